@@ -0,0 +1,88 @@
+package graphing.benchmarks;
+
+import graphing.ComposedFunction;
+import graphing.CosineFunction;
+import graphing.ExponentialFunction;
+import graphing.ExpressionParser;
+import graphing.Function;
+import graphing.FunctionCompiler;
+import graphing.LinearFunction;
+import graphing.QuadraticFunction;
+import graphing.SineFunction;
+import graphing.TangentFunction;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Evaluation throughput of each function family, one point at a time and
+ * in bulk with evaluateGrid. Scores are nanoseconds per point.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class EvaluateBenchmark {
+
+    /** Points evaluated per call */
+    private static final int POINTS = 1024;
+
+    /** Spacing of the points, so they run from -10 to 10 */
+    private static final double STEP = 20.0 / POINTS;
+
+    @Param({ "linear", "quadratic", "sine", "cosine", "tangent", "exponential",
+             "expression", "composed", "compiled" })
+    private String family;
+
+    private Function f;
+
+    private final double[] out = new double[POINTS];
+
+    @Setup
+    public void setUp() {
+        Function composed = ComposedFunction.add(
+                ComposedFunction.multiply(new ExponentialFunction(4, -0.05, 0, 0), new SineFunction(1, 2, 0, 0)),
+                new LinearFunction(0.1, -1));
+        switch (family) {
+            case "linear": f = new LinearFunction(2, 1); break;
+            case "quadratic": f = new QuadraticFunction(1, -2, 1); break;
+            case "sine": f = new SineFunction(2, 3, 0.5, 1); break;
+            case "cosine": f = new CosineFunction(2, 3, 0.5, 1); break;
+            case "tangent": f = new TangentFunction(1, 0.5, 0, 0); break;
+            case "exponential": f = new ExponentialFunction(1, 0.3, 0, 0); break;
+            case "expression": f = ExpressionParser.parse("sin(x)^2 + x/3"); break;
+            case "composed": f = composed; break;
+            case "compiled": f = FunctionCompiler.compile(composed); break;
+            default: throw new IllegalArgumentException("Unknown family " + family);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double scalar() {
+        double sum = 0;
+        for (int i = 0; i < POINTS; i++) {
+            sum += f.evaluate(-10 + i * STEP);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double[] bulk() {
+        f.evaluateGrid(-10, STEP, out, 0, POINTS);
+        return out;
+    }
+}
@@ -0,0 +1,96 @@
+package graphing.benchmarks;
+
+import graphing.ChannelSink;
+import graphing.Grapher;
+import graphing.SineFunction;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of getting a plot out: encoding a finished 1000x500 grid through a
+ * ChannelSink (nanoseconds per character, line breaks included), and a
+ * whole 80x25 plot rendered and printed (microseconds per plot). The sink
+ * writes to a channel that throws the bytes away, so only the encoding
+ * is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class OutputBenchmark {
+
+    /** Characters in the encoded grid: 1000 columns plus a line break, 500 rows */
+    private static final int GRID_CHARS = 1001 * 500;
+
+    private char[][] grid;
+
+    private ChannelSink discard;
+
+    @Setup
+    public void setUp() {
+        grid = new Grapher().render(new SineFunction(3, 2, 0, 0), -10, 10, -4, 4, 1000, 500);
+        discard = new ChannelSink(new DiscardChannel(), StandardCharsets.UTF_8, true);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        discard.close();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(GRID_CHARS)
+    public void encode() throws IOException {
+        for (char[] row : grid) {
+            discard.writeRow(row);
+        }
+        discard.flush();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void print() throws IOException {
+        Grapher printer = new Grapher();
+        printer.setCache(null);
+        printer.setSink(discard);
+        printer.plot(new SineFunction(3, 2, 0, 0), -10, 10, -4, 4, 80, 25);
+    }
+
+    /**
+     * A channel that accepts every byte and keeps none.
+     */
+    private static final class DiscardChannel implements WritableByteChannel {
+
+        @Override
+        public int write(ByteBuffer source) {
+            int count = source.remaining();
+            source.position(source.limit());
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package graphing.benchmarks;
+
+import graphing.Function;
+import graphing.Grapher;
+import graphing.RenderResult;
+import graphing.RenderSpec;
+import graphing.SineFunction;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of a full render of a sine wave, from sampling to the finished
+ * grid. Every operation uses a new Grapher with the cache off, so neither
+ * the cache nor the samples kept for panning help.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class RenderBenchmark {
+
+    /** Grid size as columns x rows */
+    @Param({ "80x25", "1000x500", "10000x5000" })
+    private String size;
+
+    private final Function f = new SineFunction(3, 2, 0, 0);
+
+    private RenderSpec spec;
+
+    @Setup
+    public void setUp() {
+        String[] parts = size.split("x");
+        spec = new RenderSpec(-10, 10, -4, 4, Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+    }
+
+    @Benchmark
+    public RenderResult render() {
+        Grapher grapher = new Grapher();
+        grapher.setCache(null);
+        return grapher.render(f, spec);
+    }
+}
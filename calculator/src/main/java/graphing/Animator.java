@@ -0,0 +1,236 @@
+package graphing;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+/**
+ * Plays an animation in the terminal, such as a sine wave whose phase
+ * shift sweeps from 0 to 2 pi, redrawing only what changes.
+ *
+ * Two grids are kept: the front grid holds what is on the screen and the
+ * back grid receives the next frame. The frames are compared cell by cell
+ * and only changed cells are printed, after an ANSI escape sequence that
+ * moves the cursor to them. Changed cells close together on a row are
+ * printed as one run (reprinting a few unchanged cells in between is
+ * shorter than another cursor move), and within a row the cursor is moved
+ * forward with the short "cursor forward" sequence instead of an absolute
+ * position. Then the grids swap roles.
+ *
+ * Frames are capped at a maximum rate, and the number of bytes written
+ * for each frame is recorded.
+ */
+public class Animator {
+
+    /** Unchanged cells between two changed ones that are reprinted rather than skipped */
+    private static final int MAX_REPRINT_GAP = 4;
+
+    /** Clears the screen and moves the cursor to the top left */
+    private static final String CLEAR_SCREEN = "\u001b[2J\u001b[H";
+
+    /** Renders each frame */
+    private final Grapher grapher = new Grapher();
+
+    /** Where frames are written */
+    private final RenderSink sink;
+
+    private final double minX;
+    private final double maxX;
+    private final double minY;
+    private final double maxY;
+    private final int width;
+    private final int height;
+
+    /** What is on the screen now (null before the first frame) */
+    private char[][] front;
+
+    /** Escape sequences and cells of the frame being written */
+    private final StringBuilder output = new StringBuilder();
+
+    /** Reusable array for handing output to the sink */
+    private char[] chars = new char[0];
+
+    /** Bytes written for each frame of the last animation */
+    private long[] frameBytes = new long[0];
+
+    /** Number of cells that changed during the last animation */
+    private long changedCells;
+
+    /**
+     * Constructs an animator for plots with the given bounds and size.
+     *
+     * @param sink where frames are written (usually the console)
+     * @param minX Minimum x-value
+     * @param maxX Maximum x-value
+     * @param minY Minimum y-value
+     * @param maxY Maximum y-value
+     * @param width Width of the ASCII grid
+     * @param height Height of the ASCII grid
+     */
+    public Animator(RenderSink sink, double minX, double maxX, double minY, double maxY,
+                    int width, int height) {
+        this.sink = sink;
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.width = width;
+        this.height = height;
+        grapher.setCache(null); // every frame is different
+    }
+
+    /**
+     * Plays frameCount frames. The first frame clears the screen and is
+     * drawn in full; each later frame only draws the cells that changed.
+     *
+     * @param frames gives the function to draw for each frame number
+     * @param frameCount number of frames
+     * @param maxFps highest number of frames per second (0 for no limit)
+     * @throws IOException if the output cannot be written
+     */
+    public void play(IntFunction<Function> frames, int frameCount, double maxFps) throws IOException {
+        long frameNanos = maxFps > 0 ? (long) (1e9 / maxFps) : 0;
+        frameBytes = new long[frameCount];
+        changedCells = 0;
+        front = null;
+
+        long nextFrame = System.nanoTime();
+        for (int frame = 0; frame < frameCount; frame++) {
+            char[][] back = grapher.render(frames.apply(frame), minX, maxX, minY, maxY, width, height);
+
+            long before = sink.bytesWritten();
+            output.setLength(0);
+            if (front == null) {
+                output.append(CLEAR_SCREEN);
+                appendFull(back);
+            } else {
+                appendChanges(back);
+            }
+            flushOutput();
+            frameBytes[frame] = sink.bytesWritten() - before;
+
+            front = back;
+
+            // Wait until this frame's time slot is over
+            nextFrame += frameNanos;
+            long wait = nextFrame - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else {
+                nextFrame = System.nanoTime(); // running late: don't try to catch up
+            }
+        }
+
+        // Leave the cursor below the graph
+        output.setLength(0);
+        moveTo(height, 0);
+        flushOutput();
+    }
+
+    /**
+     * Adds every cell of a grid to the output.
+     */
+    private void appendFull(char[][] grid) {
+        for (int row = 0; row < height; row++) {
+            moveTo(row, 0);
+            output.append(grid[row]);
+            changedCells += width;
+        }
+    }
+
+    /**
+     * Adds the changed cells of a grid to the output, in runs.
+     */
+    private void appendChanges(char[][] grid) {
+        for (int row = 0; row < height; row++) {
+            char[] now = grid[row];
+            char[] shown = front[row];
+            int cursor = -1; // column of the cursor on this row, -1 if elsewhere
+
+            int col = 0;
+            while (col < width) {
+                if (now[col] == shown[col]) {
+                    col++;
+                    continue;
+                }
+                // Extend the run while changes are no more than MAX_REPRINT_GAP apart
+                int end = col + 1;
+                int lastChange = col;
+                while (end < width && end - lastChange <= MAX_REPRINT_GAP) {
+                    if (now[end] != shown[end]) {
+                        lastChange = end;
+                    }
+                    end++;
+                }
+                end = lastChange + 1;
+
+                if (cursor < 0) {
+                    moveTo(row, col);
+                } else if (col > cursor) {
+                    output.append("\u001b[").append(col - cursor).append('C');
+                }
+                output.append(now, col, end - col);
+                for (int i = col; i < end; i++) {
+                    if (now[i] != shown[i]) {
+                        changedCells++;
+                    }
+                }
+                cursor = end;
+                col = end;
+            }
+        }
+    }
+
+    /**
+     * Adds the sequence that moves the cursor to a cell.
+     */
+    private void moveTo(int row, int col) {
+        output.append("\u001b[").append(row + 1).append(';').append(col + 1).append('H');
+    }
+
+    /**
+     * Writes the output to the sink and flushes it.
+     */
+    private void flushOutput() throws IOException {
+        int length = output.length();
+        if (chars.length < length) {
+            chars = new char[length];
+        }
+        output.getChars(0, length, chars, 0);
+        sink.write(chars, 0, length);
+        sink.flush();
+    }
+
+    /**
+     * Returns the number of bytes written for each frame of the last
+     * animation.
+     *
+     * @return bytes per frame, indexed by frame number
+     */
+    public long[] getFrameBytes() {
+        return frameBytes.clone();
+    }
+
+    /**
+     * Returns the total bytes written by the last animation.
+     *
+     * @return the byte count
+     */
+    public long getTotalBytes() {
+        long total = 0;
+        for (long bytes : frameBytes) {
+            total += bytes;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of cells that changed during the last animation
+     * (including every cell of the first frame).
+     *
+     * @return the changed cell count
+     */
+    public long getChangedCells() {
+        return changedCells;
+    }
+}
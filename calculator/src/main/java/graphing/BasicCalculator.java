@@ -1,3 +1,5 @@
+package graphing;
+
 
 /**
 	 * A simple stateless calculator class that performs 
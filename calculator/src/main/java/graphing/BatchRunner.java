@@ -0,0 +1,452 @@
+package graphing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs plot jobs from a file without any user input, for use in scripts
+ * and build pipelines.
+ *
+ * Run it with a JSON-lines file (or - for standard input) and an optional
+ * number of worker threads:
+ *
+ *   java graphing.BatchRunner jobs.jsonl 4
+ *
+ * Each line of the file is one job, for example:
+ *
+ *   {"function": "sine(2, 1, 0, 0)", "minX": -10, "maxX": 10, "minY": -3, "maxY": 3,
+ *    "width": 120, "height": 40, "output": "plots/sine.png"}
+ *
+ * "function" (see FunctionSpec) and "output" are required; the bounds and
+ * size default to the same values as the interactive program. The output
+ * format comes from the file extension: .pgm, .ppm and .png are written
+ * as images with one pixel per cell, anything else as text. Blank lines
+ * and lines starting with # are skipped.
+ *
+ * Jobs go into a queue served by a fixed pool of threads, and each job
+ * gets its own Grapher. When it is done, one line is printed per job with
+ * its time in the queue and running time, followed by the totals and the
+ * throughput. The exit status is 1 if any job failed.
+ */
+public class BatchRunner {
+
+    /** Keys a job line may contain */
+    private static final String[] KEYS = { "function", "output", "minX", "maxX", "minY", "maxY", "width", "height" };
+
+    /**
+     * One plot to make.
+     */
+    private static class Job {
+        /** Line of the jobs file the job came from */
+        int line;
+        /** The function spec as written */
+        String spec;
+        Function function;
+        double minX = -10;
+        double maxX = 10;
+        double minY = -10;
+        double maxY = 10;
+        int width = 80;
+        int height = 25;
+        Path output;
+        /** When the job was put in the queue, from System.nanoTime */
+        long queuedAt;
+    }
+
+    /**
+     * What happened to a job.
+     */
+    private static class Result {
+        Job job;
+        /** Time spent waiting in the queue */
+        long waitNanos;
+        /** Time spent plotting and writing */
+        long runNanos;
+        /** Error message, or null if the job succeeded */
+        String error;
+    }
+
+    private BatchRunner() {
+    }
+
+    /**
+     * Reads the jobs, runs them and prints the report.
+     *
+     * @param args the jobs file (or -) and optionally the number of threads
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Usage: java graphing.BatchRunner <jobs.jsonl | -> [threads]");
+            System.exit(2);
+        }
+        int threads = args.length > 1
+                ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+
+        List<Job> jobs;
+        try (BufferedReader in = args[0].equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            jobs = readJobs(in);
+        } catch (IOException e) {
+            System.out.println("Error: Could not read the jobs: " + e.getMessage());
+            System.exit(2);
+            return;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        List<Result> results = runAll(jobs, threads);
+        System.exit(report(results) ? 0 : 1);
+    }
+
+    /**
+     * Reads every job, checking all of them before any is run.
+     *
+     * @param in the jobs, one JSON object per line
+     * @return the jobs in file order
+     * @throws IOException if the jobs cannot be read
+     * @throws IllegalArgumentException if a line is not a valid job
+     */
+    private static List<Job> readJobs(BufferedReader in) throws IOException {
+        List<Job> jobs = new ArrayList<>();
+        String text;
+        int line = 0;
+        while ((text = in.readLine()) != null) {
+            line++;
+            text = text.trim();
+            if (text.isEmpty() || text.startsWith("#")) {
+                continue;
+            }
+            try {
+                jobs.add(parseJob(text, line));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + line + ": " + e.getMessage());
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Builds a job from one line of JSON.
+     */
+    private static Job parseJob(String text, int line) {
+        Map<String, Object> fields = new JsonLine(text).readObject();
+        for (String key : fields.keySet()) {
+            if (!List.of(KEYS).contains(key)) {
+                throw new IllegalArgumentException("Unknown key \"" + key + "\"");
+            }
+        }
+
+        Job job = new Job();
+        job.line = line;
+        job.spec = string(fields, "function");
+        job.function = FunctionSpec.parse(job.spec);
+        job.output = Path.of(string(fields, "output"));
+        job.minX = number(fields, "minX", job.minX);
+        job.maxX = number(fields, "maxX", job.maxX);
+        job.minY = number(fields, "minY", job.minY);
+        job.maxY = number(fields, "maxY", job.maxY);
+        job.width = size(fields, "width", job.width);
+        job.height = size(fields, "height", job.height);
+
+        if (job.minX >= job.maxX || job.minY >= job.maxY) {
+            throw new IllegalArgumentException("min values must be less than max values");
+        }
+        return job;
+    }
+
+    /**
+     * Reads a width or height, which must be a positive whole number that
+     * fits in an int.
+     */
+    private static int size(Map<String, Object> fields, String key, int fallback) {
+        double value = number(fields, key, fallback);
+        if (value != Math.rint(value) || value < 1 || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("\"" + key + "\" must be a whole number from 1 to "
+                    + Integer.MAX_VALUE);
+        }
+        return (int) value;
+    }
+
+    private static String string(Map<String, Object> fields, String key) {
+        Object value = fields.get(key);
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException("\"" + key + "\" must be a string");
+        }
+        return (String) value;
+    }
+
+    private static double number(Map<String, Object> fields, String key, double fallback) {
+        Object value = fields.get(key);
+        if (value == null) {
+            return fallback;
+        }
+        if (!(value instanceof Double)) {
+            throw new IllegalArgumentException("\"" + key + "\" must be a number");
+        }
+        return (Double) value;
+    }
+
+    /**
+     * Queues every job on a pool of worker threads and waits for all of them.
+     *
+     * @param jobs the jobs to run
+     * @param threads number of worker threads
+     * @return the results in the same order as the jobs
+     */
+    private static List<Result> runAll(List<Job> jobs, int threads) {
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, threads));
+        boolean oneThreadEach = threads > 1; // jobs already run side by side
+        try {
+            List<Future<Result>> pending = new ArrayList<>();
+            for (Job job : jobs) {
+                job.queuedAt = System.nanoTime();
+                pending.add(workers.submit(() -> run(job, oneThreadEach)));
+            }
+
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : pending) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+            return results;
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Plots one job into its output file.
+     *
+     * @param job the job
+     * @param singleThreaded true to keep each plot on its worker thread
+     * @return how the job went
+     */
+    private static Result run(Job job, boolean singleThreaded) {
+        Result result = new Result();
+        result.job = job;
+        long start = System.nanoTime();
+        result.waitNanos = start - job.queuedAt;
+
+        Grapher grapher = new Grapher();
+        grapher.setCache(null);
+        if (singleThreaded) {
+            grapher.setParallelThreshold(Integer.MAX_VALUE);
+        }
+
+        try {
+            Path parent = job.output.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+
+            String name = job.output.getFileName().toString().toLowerCase();
+            if (name.endsWith(".pgm")) {
+                grapher.exportImage(job.function, job.minX, job.maxX, job.minY, job.maxY,
+                        PixmapSink.pgm(job.output, job.width, job.height));
+            } else if (name.endsWith(".ppm")) {
+                grapher.exportImage(job.function, job.minX, job.maxX, job.minY, job.maxY,
+                        PixmapSink.ppm(job.output, job.width, job.height));
+            } else if (name.endsWith(".png")) {
+                grapher.exportImage(job.function, job.minX, job.maxX, job.minY, job.maxY,
+                        PngSink.gray(job.output, job.width, job.height));
+            } else {
+                RenderSpec spec = new RenderSpec(job.minX, job.maxX, job.minY, job.maxY, job.width, job.height);
+                RenderResult plot = grapher.render(job.function, spec);
+                try (ChannelSink out = ChannelSink.toFile(job.output)) {
+                    plot.writeTo(out);
+                }
+            }
+        } catch (IOException e) {
+            result.error = "Could not write the output: " + e;
+        } catch (RuntimeException e) {
+            result.error = e.getMessage() != null ? e.getMessage() : e.toString();
+        }
+
+        result.runNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Prints one line per job and then the totals.
+     *
+     * @param results the results in job order
+     * @return true if every job succeeded
+     */
+    private static boolean report(List<Result> results) {
+        System.out.println("line,status,wait_millis,run_millis,cells,output");
+        long cells = 0;
+        long firstQueued = Long.MAX_VALUE;
+        long lastDone = Long.MIN_VALUE;
+        int failed = 0;
+
+        for (Result r : results) {
+            Job job = r.job;
+            long jobCells = (long) job.width * job.height;
+            String status = r.error == null ? "ok" : "failed";
+            System.out.printf("%d,%s,%.3f,%.3f,%d,%s%n", job.line, status,
+                    r.waitNanos / 1e6, r.runNanos / 1e6, jobCells, job.output);
+            if (r.error == null) {
+                cells += jobCells;
+            } else {
+                failed++;
+                System.out.println("Error: line " + job.line + " (" + job.spec + "): " + r.error);
+            }
+            firstQueued = Math.min(firstQueued, job.queuedAt);
+            lastDone = Math.max(lastDone, job.queuedAt + r.waitNanos + r.runNanos);
+        }
+
+        double seconds = results.isEmpty() ? 0 : (lastDone - firstQueued) / 1e9;
+        System.out.println("jobs,failed,millis,jobs/s,Mcells/s");
+        System.out.printf("%d,%d,%.3f,%.1f,%.2f%n", results.size(), failed, seconds * 1000,
+                seconds > 0 ? results.size() / seconds : 0, seconds > 0 ? cells / seconds / 1e6 : 0);
+        return failed == 0;
+    }
+
+    /**
+     * Reads one flat JSON object: keys mapped to strings, numbers
+     * (as Double), booleans or null. Nested objects and arrays are not
+     * needed for jobs and are rejected.
+     */
+    private static class JsonLine {
+
+        private final String text;
+        private int pos;
+
+        JsonLine(String text) {
+            this.text = text;
+        }
+
+        Map<String, Object> readObject() {
+            Map<String, Object> fields = new HashMap<>();
+            expect('{');
+            if (peek() == '}') {
+                pos++;
+            } else {
+                while (true) {
+                    String key = readString();
+                    expect(':');
+                    if (fields.put(key, readValue()) != null) {
+                        throw error("Duplicate key \"" + key + "\"");
+                    }
+                    if (peek() == ',') {
+                        pos++;
+                    } else {
+                        expect('}');
+                        break;
+                    }
+                }
+            }
+            if (peek() != 0) {
+                throw error("Unexpected text after the object");
+            }
+            return fields;
+        }
+
+        private Object readValue() {
+            char c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                int start = pos;
+                while (pos < text.length() && "+-.eE0123456789".indexOf(text.charAt(pos)) >= 0) {
+                    pos++;
+                }
+                try {
+                    return Double.parseDouble(text.substring(start, pos));
+                } catch (NumberFormatException e) {
+                    throw error("Bad number '" + text.substring(start, pos) + "'");
+                }
+            }
+            for (String word : new String[] { "true", "false", "null" }) {
+                if (text.startsWith(word, pos)) {
+                    pos += word.length();
+                    return word.equals("null") ? null : Boolean.valueOf(word);
+                }
+            }
+            throw error("Expected a string, number, true, false or null");
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'n': value.append('\n'); break;
+                    case 't': value.append('\t'); break;
+                    case 'r': value.append('\r'); break;
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw error("Bad \\u escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Bad \\u escape");
+                        }
+                        pos += 4;
+                        break;
+                    default: value.append(escaped); break; // \" \\ \/
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        /**
+         * Skips spaces and returns the next character (0 at the end).
+         */
+        private char peek() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+            return pos < text.length() ? text.charAt(pos) : 0;
+        }
+
+        private void expect(char c) {
+            if (peek() != c) {
+                throw error("Expected '" + c + "'");
+            }
+            pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at column " + (pos + 1));
+        }
+    }
+}
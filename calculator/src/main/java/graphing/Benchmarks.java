@@ -0,0 +1,935 @@
+package graphing;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simple timing benchmarks for the graphing engine.
+ *
+ * Run with the name of a benchmark, for example:
+ *
+ *   java graphing.Benchmarks parallel
+ *
+ * Each benchmark warms up first so the JIT has compiled the hot loops,
+ * then reports the best of several timed runs.
+ *
+ * The suite benchmark runs everything worth tracking from release to
+ * release and prints one JSON object per line, so the results can be
+ * saved and compared by scripts (see runSuite).
+ */
+public class Benchmarks {
+
+    /** Untimed runs before measuring */
+    private static final int WARMUP_RUNS = 5;
+
+    /** Timed runs; the fastest one is reported */
+    private static final int TIMED_RUNS = 10;
+
+    /** Warmup iterations of each suite benchmark */
+    private static final int SUITE_WARMUP_ITERATIONS = 3;
+
+    /** Measured iterations of each suite benchmark */
+    private static final int SUITE_ITERATIONS = 5;
+
+    /** Points evaluated per call in the suite's evaluation benchmarks */
+    private static final int SUITE_POINTS = 1024;
+
+    /** Largest difference, in ulps, allowed between vector and scalar results */
+    private static final double VECTOR_MAX_ULPS = 4;
+
+    /** Results are added here so the JIT cannot skip the work that made them */
+    private static volatile double consumed;
+
+    /**
+     * Runs the benchmark named in args[0].
+     *
+     * @param args benchmark name followed by its options
+     */
+    public static void main(String[] args) {
+        String name = args.length > 0 ? args[0] : "";
+
+        if (name.equals("parallel")) {
+            int width = args.length > 1 ? Integer.parseInt(args[1]) : 50000;
+            int height = args.length > 2 ? Integer.parseInt(args[2]) : 400;
+            parallelScaling(width, height);
+        }
+        else if (name.equals("output")) {
+            int width = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+            int height = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+            outputCost(width, height);
+        }
+        else if (name.equals("image")) {
+            int width = args.length > 1 ? Integer.parseInt(args[1]) : 4000;
+            int height = args.length > 2 ? Integer.parseInt(args[2]) : 3000;
+            imageCost(width, height);
+        }
+        else if (name.equals("compose")) {
+            int points = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+            compositionCost(points);
+        }
+        else if (name.equals("poles")) {
+            int width = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+            int height = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+            poleCost(width, height);
+        }
+        else if (name.equals("analyze")) {
+            int points = args.length > 1 ? Integer.parseInt(args[1]) : 1 << 20;
+            analysisCost(points);
+        }
+        else if (name.equals("integrate")) {
+            double maxX = args.length > 1 ? Double.parseDouble(args[1]) : 1000;
+            integrationCost(maxX);
+        }
+        else if (name.equals("animate")) {
+            int frames = args.length > 1 ? Integer.parseInt(args[1]) : 600;
+            animationCost(frames);
+        }
+        else if (name.equals("vector")) {
+            int points = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+            if (!vectorEquivalence(points)) {
+                System.exit(1);
+            }
+        }
+        else if (name.equals("intervals")) {
+            int ranges = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+            if (!intervalEnclosure(ranges)) {
+                System.exit(1);
+            }
+        }
+        else if (name.equals("suite")) {
+            int iterationMillis = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+            runSuite(iterationMillis);
+        }
+        else if (name.equals("stress")) {
+            int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+            int renders = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+            sharedRendererStress(threads, renders);
+        }
+        else {
+            System.out.println("Usage: java graphing.Benchmarks <benchmark> [options]");
+            System.out.println("  parallel [width] [height]   render time for 1..N threads");
+            System.out.println("  output [width] [height]     printing a grid per character vs through a sink");
+            System.out.println("  image [width] [height]      exporting a plot as text, PGM, PPM and PNG");
+            System.out.println("  compose [points]            interpreted vs compiled composed functions");
+            System.out.println("  poles [width] [height]      tangent plots split at their poles vs refined blindly");
+            System.out.println("  analyze [points]            zeros found by formula vs by scanning on 1..N threads");
+            System.out.println("  integrate [maxX]            a fast sine integrated by formula vs adaptively on 1..N threads");
+            System.out.println("  animate [frames]            bytes per frame of a sine sweep, redrawn vs diffed");
+            System.out.println("  stress [threads] [renders]  many threads sharing one Grapher, checked against serial renders");
+            System.out.println("  vector [points]             SIMD results checked against scalar ones, exits 1 on a mismatch");
+            System.out.println("  intervals [ranges]          evaluateInterval checked against sampled values, exits 1 on a miss");
+            System.out.println("  suite [iteration millis]    every tracked benchmark, as JSON lines");
+        }
+    }
+
+    /**
+     * Renders a wide grid with every thread count from 1 to the number of
+     * available processors and prints the time and speedup for each.
+     *
+     * @param width grid width in columns
+     * @param height grid height in rows
+     */
+    private static void parallelScaling(int width, int height) {
+        Function f = new TangentFunction(2, 0.05, 0, 0);
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("Rendering " + width + "x" + height + " tangent grid");
+        System.out.println("threads,millis,speedup");
+
+        double singleThreaded = 0;
+        for (int threads = 1; threads <= cores; threads++) {
+            Grapher grapher = new Grapher();
+            grapher.setParallelThreshold(1);
+            grapher.setParallelism(threads);
+
+            double millis = bestMillis(() -> grapher.render(f, -1000, 1000, -20, 20, width, height));
+            if (threads == 1) {
+                singleThreaded = millis;
+            }
+            System.out.printf("%d,%.3f,%.2f%n", threads, millis, singleThreaded / millis);
+        }
+    }
+
+    /**
+     * Writes the same grid to a temporary file one character at a time
+     * through a PrintStream and row by row through a ChannelSink, and
+     * prints the time and throughput of each.
+     *
+     * @param width grid width in columns
+     * @param height grid height in rows
+     */
+    private static void outputCost(int width, int height) {
+        char[][] grid = new Grapher().render(new SineFunction(8, 0.1, 0, 0), -100, 100, -10, 10, width, height);
+        double megabytes = (double) (width + 1) * height / 1e6;
+        System.out.println("Writing " + width + "x" + height + " grid");
+        System.out.println("path,millis,MB/s");
+
+        try {
+            Path file = Files.createTempFile("grapher", ".txt");
+            try {
+                double perChar = bestMillis(() -> {
+                    try (PrintStream out = new PrintStream(new FileOutputStream(file.toFile()), true)) {
+                        for (char[] row : grid) {
+                            for (char c : row) {
+                                out.print(c);
+                            }
+                            out.println();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                System.out.printf("print-per-char,%.3f,%.1f%n", perChar, megabytes / (perChar / 1000));
+
+                double sink = bestMillis(() -> {
+                    try (ChannelSink out = ChannelSink.toFile(file)) {
+                        for (char[] row : grid) {
+                            out.writeRow(row);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                System.out.printf("channel-sink,%.3f,%.1f%n", sink, megabytes / (sink / 1000));
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Exports the same plot to a temporary file as text (the terminal path,
+     * through a ChannelSink) and as PGM, PPM and PNG images, and prints the
+     * time, file size and throughput of each. Throughput is counted in grid
+     * cells, so the formats can be compared directly.
+     *
+     * @param width plot width in cells (pixels)
+     * @param height plot height in cells (pixels)
+     */
+    private static void imageCost(int width, int height) {
+        Function f = new SineFunction(8, 0.1, 0, 0);
+        Grapher grapher = new Grapher();
+        double megacells = (double) width * height / 1e6;
+        System.out.println("Exporting " + width + "x" + height + " plot");
+        System.out.println("format,millis,file MB,Mcells/s");
+
+        try {
+            Path file = Files.createTempFile("grapher", ".img");
+            try {
+                String[] formats = { "text", "pgm", "ppm", "png" };
+                for (String format : formats) {
+                    double millis = bestMillis(() -> {
+                        try {
+                            if (format.equals("text")) {
+                                try (ChannelSink out = ChannelSink.toFile(file)) {
+                                    grapher.setSink(out);
+                                    grapher.plotStreaming(f, -100, 100, -10, 10, width, height, 64);
+                                }
+                            } else {
+                                ImageSink image = format.equals("pgm") ? PixmapSink.pgm(file, width, height)
+                                        : format.equals("ppm") ? PixmapSink.ppm(file, width, height)
+                                        : PngSink.gray(file, width, height);
+                                grapher.exportImage(f, -100, 100, -10, 10, image);
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                    System.out.printf("%s,%.3f,%.2f,%.1f%n", format, millis, Files.size(file) / 1e6,
+                            megacells / (millis / 1000));
+                }
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Evaluates a composed function (a damped wave with a linear trend) over
+     * a grid, walking the tree and through FunctionCompiler, and prints the
+     * time per point of each.
+     *
+     * @param points number of grid points per run
+     */
+    private static void compositionCost(int points) {
+        Function tree = ComposedFunction.add(
+                ComposedFunction.multiply(new ExponentialFunction(4, -0.05, 0, 0), new SineFunction(1, 2, 0, 0)),
+                new LinearFunction(0.1, -1));
+        Function compiled = FunctionCompiler.compile(tree);
+        if (compiled == tree) {
+            System.out.println("Error: no Java compiler available, only the tree can be timed");
+        }
+        double[] out = new double[points];
+        System.out.println("Evaluating exp * sin + linear at " + points + " points");
+        System.out.println("path,millis,ns/point");
+
+        double interpreted = bestMillis(() -> {
+            for (int i = 0; i < points; i++) {
+                out[i] = tree.evaluate(-50 + i * 0.0001);
+            }
+        });
+        System.out.printf("tree,%.3f,%.2f%n", interpreted, interpreted * 1e6 / points);
+
+        double fused = bestMillis(() -> {
+            for (int i = 0; i < points; i++) {
+                out[i] = compiled.evaluate(-50 + i * 0.0001);
+            }
+        });
+        System.out.printf("compiled,%.3f,%.2f%n", fused, fused * 1e6 / points);
+
+        double grid = bestMillis(() -> compiled.evaluateGrid(-50, 0.0001, out, 0, points));
+        System.out.printf("compiled-grid,%.3f,%.2f%n", grid, grid * 1e6 / points);
+    }
+
+    /**
+     * Renders a tangent with many poles, once as it is (so the gaps around
+     * each pole are split at the pole) and once with its monotonicity
+     * hidden, so the gaps are refined without knowing about the poles, and
+     * prints the evaluations and time of each.
+     *
+     * @param width grid width in columns
+     * @param height grid height in rows
+     */
+    private static void poleCost(int width, int height) {
+        Function tangent = new TangentFunction(1, 4, 0, 0);
+        Function blind = new TangentFunction(1, 4, 0, 0) {
+            @Override
+            public int monotonicity() {
+                return 0; // without a direction the poles are never used
+            }
+        };
+        System.out.println("Rendering a " + width + "x" + height + " tangent with "
+                + Math.round(40 * 4 / Math.PI) + " poles");
+        System.out.println("path,evaluations,millis");
+
+        Grapher grapher = new Grapher();
+        grapher.setCache(null);
+        for (Function f : new Function[] { tangent, blind }) {
+            double millis = bestMillis(() -> grapher.render(f, -20, 20, -5, 5, width, height));
+            System.out.printf("%s,%d,%.3f%n", f == tangent ? "split-at-poles" : "blind",
+                    grapher.getEvaluationCount(), millis);
+        }
+    }
+
+    /**
+     * Finds the zeros of sin(50x) over [-100, 100] with the sine formula,
+     * then by scanning the same wave written as a formula string with every
+     * thread count from 1 to the number of available processors, and
+     * prints the time, the number of zeros and the largest difference from
+     * the exact zeros for each.
+     *
+     * @param points samples per scan
+     */
+    private static void analysisCost(int points) {
+        Function exact = new SineFunction(1, 50, 0, 0);
+        Function parsed = ExpressionParser.parse("sin(50*x)");
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("Finding the zeros of sin(50x) over [-100, 100], scanning " + points + " points");
+        System.out.println("path,threads,millis,zeros,max_error");
+
+        FunctionAnalyzer analyzer = new FunctionAnalyzer();
+        analyzer.setScanPoints(points);
+        double[] expected = analyzer.zeros(exact, -100, 100);
+        double formula = bestMillis(() -> analyzer.zeros(exact, -100, 100));
+        System.out.printf("formula,1,%.3f,%d,0%n", formula, expected.length);
+
+        for (int threads = 1; threads <= cores; threads++) {
+            analyzer.setParallelism(threads);
+            double[][] found = new double[1][];
+            double millis = bestMillis(() -> found[0] = analyzer.zeros(parsed, -100, 100));
+            double error = found[0].length == expected.length ? 0 : Double.POSITIVE_INFINITY;
+            for (int i = 0; error < Double.POSITIVE_INFINITY && i < expected.length; i++) {
+                error = Math.max(error, Math.abs(found[0][i] - expected[i]));
+            }
+            System.out.printf("scan,%d,%.3f,%d,%.1e%n", threads, millis, found[0].length, error);
+        }
+    }
+
+    /**
+     * Integrates 3 sin(50x + 0.3) + 0.5 from 0 to maxX with the sine
+     * formula, then adaptively as a formula string with every thread count
+     * from 1 to the number of available processors, and prints the time,
+     * the evaluations, the difference from the formula and the error
+     * estimate for each.
+     *
+     * @param maxX upper end of the integral
+     */
+    private static void integrationCost(double maxX) {
+        Function exact = new SineFunction(3, 50, 0.3, 0.5);
+        Function parsed = ExpressionParser.parse("3*sin(50*x + 0.3) + 0.5");
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("Integrating 3 sin(50x + 0.3) + 0.5 from 0 to " + maxX);
+        System.out.println("path,threads,millis,evaluations,difference,error_estimate");
+
+        FunctionCalculus calculus = new FunctionCalculus();
+        FunctionCalculus.Estimate expected = calculus.integrate(exact, 0, maxX);
+        double formula = bestMillis(() -> calculus.integrate(exact, 0, maxX));
+        System.out.printf("formula,1,%.3f,0,0,%.1e%n", formula, expected.getError());
+
+        for (int threads = 1; threads <= cores; threads++) {
+            calculus.setParallelism(threads);
+            FunctionCalculus.Estimate[] found = new FunctionCalculus.Estimate[1];
+            double millis = bestMillis(() -> found[0] = calculus.integrate(parsed, 0, maxX));
+            System.out.printf("adaptive,%d,%.3f,%d,%.1e,%.1e%n", threads, millis, found[0].getEvaluations(),
+                    Math.abs(found[0].getValue() - expected.getValue()), found[0].getError());
+        }
+    }
+
+    /**
+     * Plays a sine wave whose phase shift sweeps from 0 to 2 pi into a
+     * temporary file with an Animator, and prints the bytes per frame
+     * against redrawing every frame in full.
+     *
+     * @param frames number of frames in the sweep
+     */
+    private static void animationCost(int frames) {
+        int width = 80;
+        int height = 25;
+        System.out.println("Animating a " + width + "x" + height + " sine sweep over " + frames + " frames");
+        System.out.println("path,bytes,bytes/frame,millis");
+
+        // Every frame in full: each row after a cursor move to its start
+        long fullFrame = height * (width + "\u001b[25;1H".length());
+        System.out.printf("full-redraw,%d,%.1f,%n", fullFrame * frames, (double) fullFrame);
+
+        try {
+            Path file = Files.createTempFile("grapher", ".ans");
+            try (ChannelSink out = ChannelSink.toFile(file)) {
+                Animator animator = new Animator(out, -10, 10, -2, 2, width, height);
+                long start = System.nanoTime();
+                animator.play(frame -> new SineFunction(1, 1, 2 * Math.PI * frame / frames, 0), frames, 0);
+                double millis = (System.nanoTime() - start) / 1e6;
+                long total = animator.getTotalBytes();
+                System.out.printf("diff,%d,%.1f,%.3f%n", total, (double) total / frames, millis);
+            } finally {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks that one Grapher can be shared by many threads. Every
+     * function and spec is first rendered on its own Grapher; then the
+     * threads all call render(Function, RenderSpec) on one shared Grapher
+     * at the same time, in a random order, and every result is compared
+     * with the serial one. This runs with a small cache (so grids are
+     * evicted while other threads read them) and with no cache.
+     *
+     * @param threads number of threads rendering at once
+     * @param renders renders per thread
+     */
+    private static void sharedRendererStress(int threads, int renders) {
+        Function[] functions = {
+            new SineFunction(3, 2, 0.5, 0), new TangentFunction(1, 1, 0, 0), new QuadraticFunction(0.5, -1, -4),
+            new ExponentialFunction(1, 0.7, 0, -2), ExpressionParser.parse("sin(x)^2 + sqrt(abs(x)) - 2"),
+            ComposedFunction.divide(new LinearFunction(1, 0), new CosineFunction(1, 1, 0, 0))
+        };
+        // Panned copies of the same view make the threads reuse each other's samples
+        List<RenderSpec> specs = new ArrayList<>();
+        RenderSpec base = new RenderSpec(-10, 10, -5, 5, 80, 25);
+        for (int shift = -3; shift <= 3; shift++) {
+            double step = base.columnStep() * shift;
+            specs.add(base.withX(base.getMinX() + step, base.getMaxX() + step));
+        }
+        specs.add(new RenderSpec(-3, 3, -2, 2, 120, 40));
+        specs.add(new RenderSpec(-50, 50, -10, 10, 6000, 30)); // wide enough for strip tasks
+
+        char[][][][] expected = new char[functions.length][specs.size()][][];
+        for (int f = 0; f < functions.length; f++) {
+            for (int s = 0; s < specs.size(); s++) {
+                Grapher alone = new Grapher();
+                alone.setCache(null);
+                expected[f][s] = alone.render(functions[f], specs.get(s)).toGrid();
+            }
+        }
+
+        System.out.println("Rendering " + functions.length * specs.size() + " plots on " + threads
+                + " threads sharing one Grapher");
+        System.out.println("cache,renders,mismatches,millis");
+        for (boolean cached : new boolean[] { true, false }) {
+            Grapher shared = new Grapher();
+            shared.setCache(cached ? new RenderCache(1 << 20) : null);
+            LongAdder mismatches = new LongAdder();
+            CountDownLatch start = new CountDownLatch(1);
+
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long seed = t;
+                Thread worker = new Thread(() -> {
+                    Random random = new Random(seed);
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < renders; i++) {
+                        int f = random.nextInt(functions.length);
+                        int s = random.nextInt(specs.size());
+                        RenderResult result = shared.render(functions[f], specs.get(s));
+                        for (int row = 0; row < expected[f][s].length; row++) {
+                            if (!Arrays.equals(result.getRow(row), expected[f][s][row])) {
+                                mismatches.increment();
+                                break;
+                            }
+                        }
+                    }
+                });
+                worker.start();
+                workers.add(worker);
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Thread worker : workers) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            double millis = (System.nanoTime() - begin) / 1e6;
+            System.out.printf("%s,%d,%d,%.3f%n", cached ? "on" : "off", (long) threads * renders,
+                    mismatches.sum(), millis);
+            if (mismatches.sum() > 0) {
+                System.out.println("Error: shared renders differ from serial ones");
+            }
+        }
+    }
+
+    /**
+     * Checks that the SIMD loops give the same values as the scalar
+     * formulas. Each vectorized family is evaluated in bulk and on a grid
+     * with lengths and offsets that do and do not fill whole vectors, and
+     * every value is compared with evaluate at the same x.
+     *
+     * The two may round differently (Math.exp and the vector exp are
+     * separate implementations), so a value passes when it is within
+     * VECTOR_MAX_ULPS units in the last place of the largest term of the
+     * formula at that x. Measuring against the largest term keeps the
+     * check fair where the terms cancel and the result is near zero.
+     *
+     * @param points number of random x-values per function
+     * @return true if every value was within the tolerance
+     */
+    private static boolean vectorEquivalence(int points) {
+        Function[] functions = {
+            new LinearFunction(2.5, -3), new LinearFunction(-1e-3, 1e6),
+            new QuadraticFunction(0.5, -1, -4), new QuadraticFunction(-3, 7.25, 1e-9),
+            new ExponentialFunction(1, 0.7, 0, -2), new ExponentialFunction(-4, -0.05, 3, 0.5)
+        };
+        String[] names = {
+            "2.5x - 3", "-0.001x + 1e6", "0.5x^2 - x - 4", "-3x^2 + 7.25x + 1e-9",
+            "e^(0.7x) - 2", "-4e^(-0.05(x - 3)) + 0.5"
+        };
+        System.out.println("Comparing " + points + " values per function, vector loops "
+                + (VectorSupport.isEnabled() ? "on (" + VectorSupport.laneCount() + " lanes)" : "off"));
+        System.out.println("function,path,values,maxUlps,mismatches");
+
+        Random random = new Random(1);
+        double[] xs = new double[points];
+        for (int i = 0; i < points; i++) {
+            xs[i] = (random.nextDouble() - 0.5) * 200;
+        }
+        int[] lengths = { 1, 15, 16, 17, 63, 64, points };
+
+        boolean passed = true;
+        for (int n = 0; n < functions.length; n++) {
+            Function f = functions[n];
+            double[] out = new double[points + 1];
+            long bulkValues = 0;
+            long bulkMismatches = 0;
+            double bulkWorst = 0;
+            long gridValues = 0;
+            long gridMismatches = 0;
+            double gridWorst = 0;
+            for (int length : lengths) {
+                for (int offset = 0; offset <= 1 && offset + length <= points; offset++) {
+                    f.evaluate(xs, out, offset, length);
+                    for (int i = offset; i < offset + length; i++) {
+                        double ulps = ulpsApart(f, xs[i], out[i]);
+                        bulkWorst = Math.max(bulkWorst, ulps);
+                        bulkMismatches += ulps > VECTOR_MAX_ULPS ? 1 : 0;
+                        bulkValues++;
+                    }
+
+                    double start = xs[offset];
+                    double step = 1.0 / (length + 3);
+                    f.evaluateGrid(start, step, out, offset, length);
+                    for (int i = 0; i < length; i++) {
+                        double ulps = ulpsApart(f, start + i * step, out[offset + i]);
+                        gridWorst = Math.max(gridWorst, ulps);
+                        gridMismatches += ulps > VECTOR_MAX_ULPS ? 1 : 0;
+                        gridValues++;
+                    }
+                }
+            }
+            System.out.printf("%s,bulk,%d,%.1f,%d%n", names[n], bulkValues, bulkWorst, bulkMismatches);
+            System.out.printf("%s,grid,%d,%.1f,%d%n", names[n], gridValues, gridWorst, gridMismatches);
+            passed &= bulkMismatches == 0 && gridMismatches == 0;
+        }
+        if (!passed) {
+            System.out.println("Error: vector results differ from scalar ones by more than "
+                    + VECTOR_MAX_ULPS + " ulps");
+        }
+        return passed;
+    }
+
+    /**
+     * Checks that evaluateInterval holds the curve: for random x-ranges,
+     * every defined value of the function inside the range must lie in the
+     * interval it reports. Formulas, composed functions and compiled ones
+     * are covered, including ranges where a part is undefined (a square
+     * root over negative x), which must come back as Interval.EMPTY rather
+     * than as an unbounded range that fills the column.
+     *
+     * @param ranges number of random x-ranges per function
+     * @return true if every range held its values and every undefined range was empty
+     */
+    private static boolean intervalEnclosure(int ranges) {
+        Function root = ExpressionParser.parse("sqrt(x)");
+        Function line = new LinearFunction(2, 1);
+        Function[] functions = {
+            ExpressionParser.parse("x*sin(x)"), ExpressionParser.parse("x^2/4 - 4"),
+            ExpressionParser.parse("ln(x) + acos(x/10)"), ExpressionParser.parse("1/x"),
+            ComposedFunction.add(root, line), ComposedFunction.subtract(line, root),
+            ComposedFunction.multiply(root, new SineFunction(1, 2, 0, 0)), ComposedFunction.divide(line, root),
+            ComposedFunction.compose(line, root), ComposedFunction.compose(root, line),
+            ComposedFunction.scale(root, -3, 1), ComposedFunction.shift(root, 2, -1),
+            FunctionCompiler.compile(ComposedFunction.add(root, new ExponentialFunction(1, 0.5, 0, 0)))
+        };
+        String[] names = {
+            "x*sin(x)", "x^2/4 - 4", "ln(x) + acos(x/10)", "1/x",
+            "sqrt(x) + line", "line - sqrt(x)", "sqrt(x) * sine", "line / sqrt(x)",
+            "line(sqrt(x))", "sqrt(line(x))", "-3 sqrt(x) + 1", "sqrt(2x - 1)", "compiled sqrt(x) + exp"
+        };
+        System.out.println("Checking " + ranges + " x-ranges per function");
+        System.out.println("function,ranges,empty,misses");
+
+        Random random = new Random(2);
+        boolean passed = true;
+        for (int n = 0; n < functions.length; n++) {
+            Function f = functions[n];
+            long empty = 0;
+            long misses = 0;
+            for (int k = 0; k < ranges; k++) {
+                double lo = (random.nextDouble() - 0.5) * 20;
+                double hi = lo + random.nextDouble() * (k % 2 == 0 ? 0.1 : 5);
+                Interval range = f.evaluateInterval(lo, hi);
+                empty += range.isEmpty() ? 1 : 0;
+                boolean defined = false;
+                for (int j = 0; j <= 20; j++) {
+                    double y = f.evaluate(Math.min(hi, lo + (hi - lo) * j / 20));
+                    if (Double.isNaN(y)) {
+                        continue;
+                    }
+                    defined = true;
+                    if (range.isEmpty() || y < range.getLo() || y > range.getHi()) {
+                        misses++;
+                        break;
+                    }
+                }
+                if (!defined && !range.isEmpty() && range.getLo() == Double.NEGATIVE_INFINITY
+                        && range.getHi() == Double.POSITIVE_INFINITY) {
+                    misses++; // an undefined stretch would fill the whole column
+                }
+            }
+            System.out.printf("%s,%d,%d,%d%n", names[n], ranges, empty, misses);
+            passed &= misses == 0;
+        }
+
+        // Over negative x a square root is undefined, and so is anything built on it
+        for (int n = 4; n < functions.length; n++) {
+            if (!functions[n].evaluateInterval(-2, -1).isEmpty()) {
+                System.out.println("Error: " + names[n] + " over [-2, -1] should be empty, was "
+                        + functions[n].evaluateInterval(-2, -1));
+                passed = false;
+            }
+        }
+        if (!passed) {
+            System.out.println("Error: some intervals do not hold the curve");
+        }
+        return passed;
+    }
+
+    /**
+     * Returns how far value is from f.evaluate(x), in units in the last
+     * place of the largest term of f's formula at x.
+     */
+    private static double ulpsApart(Function f, double x, double value) {
+        double expected = f.evaluate(x);
+        if (Double.compare(expected, value) == 0) {
+            return 0;
+        }
+        double scale;
+        if (f instanceof LinearFunction) {
+            LinearFunction line = (LinearFunction) f;
+            scale = Math.max(Math.abs(line.getSlopeM() * x), Math.abs(line.getYIntB()));
+        }
+        else if (f instanceof QuadraticFunction) {
+            QuadraticFunction q = (QuadraticFunction) f;
+            scale = Math.max(Math.abs(q.getCoefficentA() * x * x),
+                    Math.max(Math.abs(q.getCoefficentB() * x), Math.abs(q.getCoefficentC())));
+        }
+        else if (f instanceof ExponentialFunction) {
+            ExponentialFunction e = (ExponentialFunction) f;
+            scale = Math.max(Math.abs(expected - e.getVerticalShiftD()), Math.abs(e.getVerticalShiftD()));
+        }
+        else {
+            scale = Math.abs(expected);
+        }
+        return Math.abs(value - expected) / Math.ulp(scale);
+    }
+
+    /**
+     * Runs the benchmark suite and prints each result as one line of JSON.
+     *
+     * The first line describes the run (Java version, processors, whether
+     * the Vector API is on). Each following line is one benchmark:
+     *
+     *   {"benchmark":"evaluate.sine","params":"bulk","score":1.92,"stdev":0.03,
+     *    "unit":"ns/point","allocBytesPerOp":0.0,"gcCount":0,"gcMillis":0}
+     *
+     * Like a JMH run, each benchmark is warmed up for a few iterations and
+     * then measured for SUITE_ITERATIONS iterations of about
+     * iterationMillis each; score is the mean over those iterations and
+     * stdev its standard deviation. allocBytesPerOp is the memory the
+     * benchmark thread allocated per operation, and gcCount and gcMillis
+     * are the collections that ran while measuring.
+     *
+     * The suite covers evaluation of every function family (point by point
+     * and in bulk), full render latency at 80x25, 1000x500 and 10000x5000,
+     * and the cost of encoding and writing a grid.
+     *
+     * @param iterationMillis length of each iteration in milliseconds
+     */
+    private static void runSuite(int iterationMillis) {
+        System.out.println("{\"suite\":\"graphing-calculator\",\"java\":\"" + System.getProperty("java.version")
+                + "\",\"processors\":" + Runtime.getRuntime().availableProcessors()
+                + ",\"vector\":" + VectorSupport.isEnabled()
+                + ",\"iterationMillis\":" + iterationMillis + "}");
+
+        Function composed = ComposedFunction.add(
+                ComposedFunction.multiply(new ExponentialFunction(4, -0.05, 0, 0), new SineFunction(1, 2, 0, 0)),
+                new LinearFunction(0.1, -1));
+        String[] names = { "linear", "quadratic", "sine", "cosine", "tangent", "exponential",
+                           "expression", "composed", "compiled" };
+        Function[] functions = {
+            new LinearFunction(2, 1), new QuadraticFunction(1, -2, 1), new SineFunction(2, 3, 0.5, 1),
+            new CosineFunction(2, 3, 0.5, 1), new TangentFunction(1, 0.5, 0, 0), new ExponentialFunction(1, 0.3, 0, 0),
+            ExpressionParser.parse("sin(x)^2 + x/3"), composed, FunctionCompiler.compile(composed)
+        };
+
+        // Evaluation throughput of each family
+        double[] out = new double[SUITE_POINTS];
+        for (int i = 0; i < functions.length; i++) {
+            Function f = functions[i];
+            measure("evaluate." + names[i], "scalar", "ns/point", 1, SUITE_POINTS, iterationMillis, () -> {
+                double sum = 0;
+                for (int p = 0; p < SUITE_POINTS; p++) {
+                    sum += f.evaluate(-10 + p * 0.0195);
+                }
+                consumed += sum;
+            });
+            measure("evaluate." + names[i], "bulk", "ns/point", 1, SUITE_POINTS, iterationMillis, () -> {
+                f.evaluateGrid(-10, 0.0195, out, 0, SUITE_POINTS);
+                consumed += out[SUITE_POINTS - 1];
+            });
+        }
+
+        // Full render latency, without the cache. A Grapher reuses the samples of its last
+        // render after a pan or zoom, so every operation gets a new one to start cold.
+        int[][] sizes = { { 80, 25 }, { 1000, 500 }, { 10000, 5000 } };
+        for (int[] size : sizes) {
+            RenderSpec spec = new RenderSpec(-10, 10, -4, 4, size[0], size[1]);
+            Function f = new SineFunction(3, 2, 0, 0);
+            measure("render.sine", size[0] + "x" + size[1], "ms/op", 1e6, 1, iterationMillis, () -> {
+                Grapher grapher = new Grapher();
+                grapher.setCache(null);
+                consumed += grapher.render(f, spec).getCell(0, 0);
+            });
+        }
+
+        // Output: encoding a finished grid, and a whole plot printed to a sink
+        try (ChannelSink discard = new ChannelSink(discardChannel(), StandardCharsets.UTF_8, true)) {
+            char[][] grid = new Grapher().render(new SineFunction(3, 2, 0, 0), -10, 10, -4, 4, 1000, 500);
+            long chars = 1001L * 500;
+            measure("output.encode", "1000x500", "ns/char", 1, chars, iterationMillis, () -> {
+                try {
+                    for (char[] row : grid) {
+                        discard.writeRow(row);
+                    }
+                    discard.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            measure("plot.print", "80x25", "us/op", 1e3, 1, iterationMillis, () -> {
+                Grapher printer = new Grapher();
+                printer.setCache(null);
+                printer.setSink(discard);
+                try {
+                    printer.plot(new SineFunction(3, 2, 0, 0), -10, 10, -4, 4, 80, 25);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Measures one suite benchmark and prints its JSON line.
+     *
+     * @param benchmark name of the benchmark
+     * @param params what varies between runs of the same benchmark
+     * @param unit unit of the score
+     * @param nanosPerUnit nanoseconds in one unit (1e6 for milliseconds)
+     * @param opsPerCall operations done by one call of task
+     * @param iterationMillis length of each iteration
+     * @param task the work to measure
+     */
+    private static void measure(String benchmark, String params, String unit, double nanosPerUnit,
+                                long opsPerCall, int iterationMillis, Runnable task) {
+        for (int i = 0; i < SUITE_WARMUP_ITERATIONS; i++) {
+            runIteration(task, iterationMillis);
+        }
+
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        long allocated = allocatedBytes();
+        long totalCalls = 0;
+        double[] scores = new double[SUITE_ITERATIONS];
+        for (int i = 0; i < SUITE_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            long calls = runIteration(task, iterationMillis);
+            scores[i] = (System.nanoTime() - start) / (double) (calls * opsPerCall) / nanosPerUnit;
+            totalCalls += calls;
+        }
+        allocated = allocatedBytes() - allocated;
+        gcCount = gcCount() - gcCount;
+        gcMillis = gcMillis() - gcMillis;
+
+        double mean = 0;
+        for (double score : scores) {
+            mean += score / scores.length;
+        }
+        double variance = 0;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean) / (scores.length - 1);
+        }
+        double allocPerOp = allocated < 0 ? -1 : (double) allocated / (totalCalls * opsPerCall);
+
+        System.out.printf("{\"benchmark\":\"%s\",\"params\":\"%s\",\"score\":%.4g,\"stdev\":%.3g,"
+                + "\"unit\":\"%s\",\"allocBytesPerOp\":%.4g,\"gcCount\":%d,\"gcMillis\":%d}%n",
+                benchmark, params, mean, Math.sqrt(variance), unit, allocPerOp, gcCount, gcMillis);
+    }
+
+    /**
+     * Calls a task again and again until the iteration time is up.
+     *
+     * @return the number of calls made (at least one)
+     */
+    private static long runIteration(Runnable task, int iterationMillis) {
+        long end = System.nanoTime() + iterationMillis * 1_000_000L;
+        long calls = 0;
+        do {
+            task.run();
+            calls++;
+        } while (System.nanoTime() < end);
+        return calls;
+    }
+
+    /**
+     * Returns the bytes allocated so far by this thread, or -1 if the JVM
+     * cannot tell.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /**
+     * Returns a channel that accepts and throws away every byte, so output
+     * can be timed without a disk.
+     */
+    private static WritableByteChannel discardChannel() {
+        return new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                int count = src.remaining();
+                src.position(src.limit());
+                return count;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * Times a task and returns its fastest run in milliseconds.
+     *
+     * @param task the work to time
+     * @return the best time in milliseconds
+     */
+    private static double bestMillis(Runnable task) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            task.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < TIMED_RUNS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+}
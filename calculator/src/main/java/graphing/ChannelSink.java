@@ -0,0 +1,179 @@
+package graphing;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A RenderSink that encodes text into a reusable byte buffer and writes
+ * the buffer to a channel only when it fills up or is flushed.
+ * 
+ * Rows are copied into a reusable character buffer and encoded in bulk,
+ * so writing a grid allocates nothing and costs one system call per
+ * buffer of output instead of one per character.
+ */
+public class ChannelSink implements RenderSink, AutoCloseable {
+
+    /** Size of the output byte buffer */
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    /** Number of characters encoded per batch */
+    private static final int CHAR_BATCH = 4096;
+
+    /** Characters that end a line, matching System.out.println */
+    private static final char[] LINE_SEPARATOR = System.lineSeparator().toCharArray();
+
+    /** Channel receiving the encoded bytes */
+    private final WritableByteChannel channel;
+
+    /** True when the channel should be closed along with this sink */
+    private final boolean ownsChannel;
+
+    /** True when System.out must be flushed first so output stays in order */
+    private final boolean sharesStdout;
+
+    /** Converts characters to bytes */
+    private final CharsetEncoder encoder;
+
+    /** Characters waiting to be encoded */
+    private final CharBuffer chars = CharBuffer.allocate(CHAR_BATCH);
+
+    /** Encoded bytes waiting to be written */
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+    /** Total bytes handed to the channel */
+    private long bytesWritten;
+
+    /**
+     * Constructs a sink that writes to the given channel.
+     * 
+     * @param channel the channel to write to
+     * @param charset the character encoding of the output
+     * @param ownsChannel true if close() should also close the channel
+     */
+    public ChannelSink(WritableByteChannel channel, Charset charset, boolean ownsChannel) {
+        this(channel, charset, ownsChannel, false);
+    }
+
+    private ChannelSink(WritableByteChannel channel, Charset charset, boolean ownsChannel,
+                        boolean sharesStdout) {
+        this.channel = channel;
+        this.ownsChannel = ownsChannel;
+        this.sharesStdout = sharesStdout;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Creates a sink that writes straight to standard output.
+     * 
+     * @return a sink for the console
+     */
+    public static ChannelSink stdout() {
+        FileChannel out = new FileOutputStream(FileDescriptor.out).getChannel();
+        return new ChannelSink(out, Charset.defaultCharset(), false, true);
+    }
+
+    /**
+     * Creates a sink that writes UTF-8 text to a file, replacing anything
+     * already in it.
+     * 
+     * @param path the file to write
+     * @return a sink for the file
+     * @throws IOException if the file cannot be opened
+     */
+    public static ChannelSink toFile(Path path) throws IOException {
+        FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new ChannelSink(out, StandardCharsets.UTF_8, true, false);
+    }
+
+    @Override
+    public void write(char[] text, int offset, int length) throws IOException {
+        int end = offset + length;
+        while (offset < end) {
+            int batch = Math.min(chars.remaining(), end - offset);
+            chars.put(text, offset, batch);
+            offset += batch;
+            if (!chars.hasRemaining()) {
+                encodeChars();
+            }
+        }
+    }
+
+    @Override
+    public void newLine() throws IOException {
+        write(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        encodeChars();
+        drainBytes();
+    }
+
+    @Override
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Flushes the sink and closes the channel if this sink opened it.
+     * 
+     * @throws IOException if the output cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        if (ownsChannel) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Encodes every waiting character into the byte buffer, writing the
+     * byte buffer out whenever it fills up.
+     */
+    private void encodeChars() throws IOException {
+        chars.flip();
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, false);
+            if (result.isOverflow()) {
+                drainBytes();
+            } else {
+                break;
+            }
+        }
+        // Keep a lone high surrogate for the next batch
+        chars.compact();
+    }
+
+    /**
+     * Writes every encoded byte to the channel.
+     */
+    private void drainBytes() throws IOException {
+        if (bytes.position() == 0) {
+            return;
+        }
+        if (sharesStdout) {
+            System.out.flush(); // Anything printed earlier must come first
+        }
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            bytesWritten += channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
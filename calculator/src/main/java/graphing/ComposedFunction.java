@@ -0,0 +1,276 @@
+package graphing;
+
+import java.util.Objects;
+
+/**
+ * A function built from other functions: a sum, difference, product,
+ * quotient or composition of two functions, or one function scaled or
+ * shifted. For example, a damped wave with a linear trend is
+ *
+ *   add(multiply(new ExponentialFunction(...), new SineFunction(...)),
+ *       new LinearFunction(...))
+ *
+ * Evaluating a ComposedFunction walks the tree of functions. To evaluate
+ * a large tree quickly, pass it to FunctionCompiler.compile, which turns
+ * the whole tree into one generated class.
+ */
+public class ComposedFunction implements Function {
+
+    /**
+     * How the two parts of a ComposedFunction are combined.
+     */
+    public enum Kind {
+        /** left(x) + right(x) */
+        ADD,
+        /** left(x) - right(x) */
+        SUBTRACT,
+        /** left(x) * right(x) */
+        MULTIPLY,
+        /** left(x) / right(x) */
+        DIVIDE,
+        /** left(right(x)) */
+        COMPOSE,
+        /** a * left(x) + b */
+        SCALE,
+        /** left(a * x + b) */
+        SHIFT
+    }
+
+    /** How the parts are combined */
+    private final Kind kind;
+
+    /** First (or only) part */
+    private final Function left;
+
+    /** Second part (null for SCALE and SHIFT) */
+    private final Function right;
+
+    /** Multiplier used by SCALE and SHIFT */
+    private final double a;
+
+    /** Offset used by SCALE and SHIFT */
+    private final double b;
+
+    private ComposedFunction(Kind kind, Function left, Function right, double a, double b) {
+        if (left == null || (right == null && kind != Kind.SCALE && kind != Kind.SHIFT)) {
+            throw new IllegalArgumentException("Missing function to combine.");
+        }
+        this.kind = kind;
+        this.left = left;
+        this.right = right;
+        this.a = a;
+        this.b = b;
+    }
+
+    /**
+     * Returns f(x) + g(x).
+     */
+    public static ComposedFunction add(Function f, Function g) {
+        return new ComposedFunction(Kind.ADD, f, g, 0, 0);
+    }
+
+    /**
+     * Returns f(x) - g(x).
+     */
+    public static ComposedFunction subtract(Function f, Function g) {
+        return new ComposedFunction(Kind.SUBTRACT, f, g, 0, 0);
+    }
+
+    /**
+     * Returns f(x) * g(x).
+     */
+    public static ComposedFunction multiply(Function f, Function g) {
+        return new ComposedFunction(Kind.MULTIPLY, f, g, 0, 0);
+    }
+
+    /**
+     * Returns f(x) / g(x).
+     */
+    public static ComposedFunction divide(Function f, Function g) {
+        return new ComposedFunction(Kind.DIVIDE, f, g, 0, 0);
+    }
+
+    /**
+     * Returns outer(inner(x)).
+     */
+    public static ComposedFunction compose(Function outer, Function inner) {
+        return new ComposedFunction(Kind.COMPOSE, outer, inner, 0, 0);
+    }
+
+    /**
+     * Returns factor * f(x) + offset (stretches and moves the graph vertically).
+     */
+    public static ComposedFunction scale(Function f, double factor, double offset) {
+        return new ComposedFunction(Kind.SCALE, f, null, factor, offset);
+    }
+
+    /**
+     * Returns f(factor * x + offset) (squeezes and moves the graph horizontally).
+     */
+    public static ComposedFunction shift(Function f, double factor, double offset) {
+        return new ComposedFunction(Kind.SHIFT, f, null, factor, offset);
+    }
+
+    /**
+     * Returns how the parts are combined.
+     *
+     * @return the kind of combination
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the first (or only) part.
+     *
+     * @return the left function
+     */
+    public Function getLeft() {
+        return left;
+    }
+
+    /**
+     * Returns the second part, or null for SCALE and SHIFT.
+     *
+     * @return the right function
+     */
+    public Function getRight() {
+        return right;
+    }
+
+    /**
+     * Returns the multiplier used by SCALE and SHIFT.
+     *
+     * @return the factor
+     */
+    public double getFactor() {
+        return a;
+    }
+
+    /**
+     * Returns the offset used by SCALE and SHIFT.
+     *
+     * @return the offset
+     */
+    public double getOffset() {
+        return b;
+    }
+
+    /**
+     * Evaluates the combined function at the given x-value.
+     *
+     * @param x the input value
+     * @return the combined y-value
+     */
+    @Override
+    public double evaluate(double x) {
+        switch (kind) {
+            case ADD:      return left.evaluate(x) + right.evaluate(x);
+            case SUBTRACT: return left.evaluate(x) - right.evaluate(x);
+            case MULTIPLY: return left.evaluate(x) * right.evaluate(x);
+            case DIVIDE:   return left.evaluate(x) / right.evaluate(x);
+            case COMPOSE:  return left.evaluate(right.evaluate(x));
+            case SCALE:    return a * left.evaluate(x) + b;
+            default:       return left.evaluate(a * x + b);
+        }
+    }
+
+    /**
+     * Combines the ranges of the parts with interval arithmetic. When a part
+     * has no defined value over the range (Interval.EMPTY), neither does
+     * the combination.
+     *
+     * @param lo the lower end of the x-range
+     * @param hi the upper end of the x-range
+     * @return a range holding every y-value over [lo, hi]
+     */
+    @Override
+    public Interval evaluateInterval(double lo, double hi) {
+        if (kind == Kind.SHIFT) {
+            double x1 = a * lo + b;
+            double x2 = a * hi + b;
+            return left.evaluateInterval(Math.min(x1, x2), Math.max(x1, x2));
+        }
+        if (kind == Kind.COMPOSE) {
+            Interval inner = right.evaluateInterval(lo, hi);
+            if (inner.isEmpty()) {
+                return Interval.EMPTY;
+            }
+            return left.evaluateInterval(inner.getLo(), inner.getHi());
+        }
+        Interval l = left.evaluateInterval(lo, hi);
+        if (l.isEmpty()) {
+            return Interval.EMPTY;
+        }
+        if (kind == Kind.SCALE) {
+            return l.scale(a, b);
+        }
+
+        Interval r = right.evaluateInterval(lo, hi);
+        if (r.isEmpty()) {
+            return Interval.EMPTY;
+        }
+        switch (kind) {
+            case ADD:
+                return Interval.between(l.getLo() + r.getLo(), l.getHi() + r.getHi());
+            case SUBTRACT:
+                return Interval.between(l.getLo() - r.getHi(), l.getHi() - r.getLo());
+            case MULTIPLY:
+                return product(l, r.getLo(), r.getHi());
+            default:
+                if (r.getLo() <= 0 && r.getHi() >= 0) {
+                    return Interval.ALL; // dividing by a range that holds 0
+                }
+                return product(l, 1 / r.getHi(), 1 / r.getLo());
+        }
+    }
+
+    /**
+     * Multiplies an interval by the interval [lo, hi].
+     */
+    private static Interval product(Interval l, double lo, double hi) {
+        double p1 = l.getLo() * lo;
+        double p2 = l.getLo() * hi;
+        double p3 = l.getHi() * lo;
+        double p4 = l.getHi() * hi;
+        return Interval.between(Math.min(Math.min(p1, p2), Math.min(p3, p4)),
+                Math.max(Math.max(p1, p2), Math.max(p3, p4)));
+    }
+
+    /**
+     * Two combinations are equal when they combine equal parts in the same way.
+     *
+     * @param other the object to compare with
+     * @return true if other is the same combination of equal functions
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ComposedFunction)) {
+            return false;
+        }
+        ComposedFunction that = (ComposedFunction) other;
+        return kind == that.kind && Double.compare(a, that.a) == 0 && Double.compare(b, that.b) == 0
+                && left.equals(that.left) && Objects.equals(right, that.right);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, left, right, a, b);
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case ADD:      return "(" + left + " + " + right + ")";
+            case SUBTRACT: return "(" + left + " - " + right + ")";
+            case MULTIPLY: return "(" + left + " * " + right + ")";
+            case DIVIDE:   return "(" + left + " / " + right + ")";
+            case COMPOSE:  return left + " o " + right;
+            case SCALE:    return "(" + a + " * " + left + " + " + b + ")";
+            default:       return left + "(" + a + "x + " + b + ")";
+        }
+    }
+}
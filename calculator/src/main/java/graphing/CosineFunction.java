@@ -0,0 +1,224 @@
+package graphing;
+
+import java.util.Objects;
+
+
+/**
+ * Represents a cosine mathematical function of the form:
+ * 
+ * y = A * cos(Bx + C) + D
+ * 
+ * where:
+ * A = amplitude
+ * B = frequency
+ * C = phase shift
+ * D = vertical shift
+ * 
+ * This class implements the Function interface and provides
+ * an implementation of the evaluate method.
+ */
+public class CosineFunction implements Function {
+
+    /** Amplitude of the cosine function */
+    private double amplitude;
+
+    /** Frequency (controls the period) of the cosine function */
+    private double frequency;
+
+    /** Phase shift of the cosine function */
+    private double phaseShift;
+
+    /** Vertical shift of the cosine function */
+    private double verticalShift;
+
+    /**
+     * Constructs a cosine function with the given parameters.
+     *
+     * @param amplitude the amplitude (A)
+     * @param frequency the frequency (B)
+     * @param phaseShift the phase shift (C)
+     * @param verticalShift the vertical shift (D)
+     */
+    public CosineFunction(double amplitude, double frequency, double phaseShift, double verticalShift) {
+        this.amplitude = amplitude;
+        this.frequency = frequency;
+        this.phaseShift = phaseShift;
+        this.verticalShift = verticalShift;
+    }
+
+    /**
+     * Returns the amplitude (A).
+     *
+     * @return the amplitude (A)
+     */
+    public double getAmplitude() {
+        return amplitude;
+    }
+
+    /**
+     * Returns the frequency (B).
+     *
+     * @return the frequency (B)
+     */
+    public double getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Returns the phase shift (C).
+     *
+     * @return the phase shift (C)
+     */
+    public double getPhaseShift() {
+        return phaseShift;
+    }
+
+    /**
+     * Returns the vertical shift (D).
+     *
+     * @return the vertical shift (D)
+     */
+    public double getVerticalShift() {
+        return verticalShift;
+    }
+
+    /**
+     * Evaluates the cosine function at the given x-value.
+     *
+     * @param x the input value
+     * @return the computed y-value of the cosine function
+     */
+    @Override
+    public double evaluate(double x) {
+        // Apply the cosine formula using Math.cos
+        return amplitude * Math.cos(frequency * x + phaseShift) + verticalShift;
+    }
+
+    /**
+     * Evaluates the cosine function at many x-values in one loop.
+     *
+     * @param xs the input values
+     * @param out the array receiving the y-values
+     * @param offset the first index to evaluate
+     * @param length the number of values to evaluate
+     */
+    @Override
+    public void evaluate(double[] xs, double[] out, int offset, int length) {
+        double a = amplitude;
+        double b = frequency;
+        double c = phaseShift;
+        double d = verticalShift;
+        for (int i = offset; i < offset + length; i++) {
+            out[i] = a * Math.cos(b * xs[i] + c) + d;
+        }
+    }
+
+    /**
+     * Evaluates the cosine function on the grid x = start + i * step.
+     *
+     * @param start the first x-value of the grid
+     * @param step the spacing between grid points
+     * @param out the array receiving the y-values
+     * @param offset the index of out that receives the first result
+     * @param count the number of grid points
+     */
+    @Override
+    public void evaluateGrid(double start, double step, double[] out, int offset, int count) {
+        double a = amplitude;
+        double b = frequency;
+        double c = phaseShift;
+        double d = verticalShift;
+        for (int i = 0; i < count; i++) {
+            out[offset + i] = a * Math.cos(b * (start + i * step) + c) + d;
+        }
+    }
+
+    /**
+     * Evaluates the cosine function using the fast kernels in FastTrig.
+     *
+     * @param x the input value
+     * @param accuracy the accuracy tier
+     * @return the calculated y-value
+     */
+    @Override
+    public double evaluate(double x, FastTrig.Accuracy accuracy) {
+        return amplitude * FastTrig.cos(frequency * x + phaseShift, accuracy) + verticalShift;
+    }
+
+    /**
+     * Returns the largest error of evaluate(x, accuracy) for a result y.
+     *
+     * @param y the value returned by evaluate(x, accuracy)
+     * @param accuracy the accuracy tier that produced it
+     * @return the largest possible absolute error
+     */
+    @Override
+    public double approximationError(double y, FastTrig.Accuracy accuracy) {
+        return Math.abs(amplitude) * accuracy.errorBound();
+    }
+
+    /**
+     * Returns the range of the cosine wave over [lo, hi]. The range of cos is
+     * found from the angles at the two ends, widened to +1 or -1 when a peak
+     * (2k*pi) or trough (pi + 2k*pi) falls between them.
+     *
+     * @param lo the lower end of the x-range
+     * @param hi the upper end of the x-range
+     * @return the range of y-values
+     */
+    @Override
+    public Interval evaluateInterval(double lo, double hi) {
+        double a1 = frequency * lo + phaseShift;
+        double a2 = frequency * hi + phaseShift;
+        double from = Math.min(a1, a2);
+        double to = Math.max(a1, a2);
+
+        Interval cos;
+        if (to - from >= 2 * Math.PI) {
+            cos = new Interval(-1, 1); // a full period or more
+        } else {
+            cos = Interval.between(Math.cos(from), Math.cos(to));
+            if (containsAngle(from, to, 0)) {
+                cos = cos.include(1);
+            }
+            if (containsAngle(from, to, Math.PI)) {
+                cos = cos.include(-1);
+            }
+        }
+        return cos.scale(amplitude, verticalShift);
+    }
+
+    /**
+     * Checks whether base + 2k*pi lies in [from, to] for some whole number k.
+     */
+    private static boolean containsAngle(double from, double to, double base) {
+        double k = Math.ceil((from - base) / (2 * Math.PI));
+        return base + k * 2 * Math.PI <= to;
+    }
+
+    /**
+     * Two cosine functions are equal when they have the same parameters.
+     *
+     * @param other the object to compare with
+     * @return true if other is a CosineFunction with the same parameters
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        CosineFunction that = (CosineFunction) other;
+        return Double.compare(amplitude, that.amplitude) == 0 &&
+                Double.compare(frequency, that.frequency) == 0 &&
+                Double.compare(phaseShift, that.phaseShift) == 0 &&
+                Double.compare(verticalShift, that.verticalShift) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(amplitude, frequency, phaseShift, verticalShift);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,198 @@
+package graphing;
+
+import java.util.Objects;
+
+
+/**
+ * Represents an exponential mathematical function of the form:
+ * 
+ * y = A * e^(B(x - C)) + D
+ * 
+ * where:
+ * A = vertical stretch
+ * B = exponent rate
+ * C = horizontal shift
+ * D = vertical shift
+ * 
+ * This class implements the Function interface and provides
+ * an evaluation of the exponential function.
+ */
+public class ExponentialFunction implements Function {
+
+    /** Vertical stretch factor (A) */
+	private double verticalStretchA;
+
+    /** Exponent growth/decay rate (B) */
+	private double exponentB;
+
+    /** Horizontal shift (C) */
+	private double horizontalShiftC;
+
+    /** Vertical shift (D) */
+	private double verticalShiftD;
+
+    /**
+     * Constructs an exponential function with the given parameters.
+     *
+     * @param verticalStretchA the vertical stretch (A)
+     * @param exponentB the exponent rate (B)
+     * @param horizontalShiftC the horizontal shift (C)
+     * @param verticalShiftD the vertical shift (D)
+     */
+    public ExponentialFunction(double verticalStretchA, double exponentB,
+                               double horizontalShiftC, double verticalShiftD) {
+        this.verticalStretchA = verticalStretchA;
+        this.exponentB = exponentB;
+        this.horizontalShiftC = horizontalShiftC;
+        this.verticalShiftD = verticalShiftD;
+    }
+
+    /**
+     * Returns the vertical stretch (A).
+     *
+     * @return the vertical stretch (A)
+     */
+    public double getVerticalStretchA() {
+        return verticalStretchA;
+    }
+
+    /**
+     * Returns the exponent rate (B).
+     *
+     * @return the exponent rate (B)
+     */
+    public double getExponentB() {
+        return exponentB;
+    }
+
+    /**
+     * Returns the horizontal shift (C).
+     *
+     * @return the horizontal shift (C)
+     */
+    public double getHorizontalShiftC() {
+        return horizontalShiftC;
+    }
+
+    /**
+     * Returns the vertical shift (D).
+     *
+     * @return the vertical shift (D)
+     */
+    public double getVerticalShiftD() {
+        return verticalShiftD;
+    }
+
+    /**
+     * Evaluates the exponential function at the given x-value.
+     *
+     * @param x the input value
+     * @return the computed y-value of the exponential function
+     */
+    @Override
+    public double evaluate(double x) {
+        // Apply the exponential function formula using Math.exp
+    	double y = verticalStretchA * Math.exp(exponentB * (x - horizontalShiftC)) + verticalShiftD;
+    	return y;
+    }
+
+    /**
+     * Evaluates the exponential function at many x-values in one loop.
+     *
+     * @param xs the input values
+     * @param out the array receiving the y-values
+     * @param offset the first index to evaluate
+     * @param length the number of values to evaluate
+     */
+    @Override
+    public void evaluate(double[] xs, double[] out, int offset, int length) {
+        // Use the SIMD loop when the Vector API is available
+        if (VectorSupport.use(length)) {
+            VectorKernels.exponential(verticalStretchA, exponentB, horizontalShiftC, verticalShiftD,
+                    xs, out, offset, length);
+            return;
+        }
+        double a = verticalStretchA;
+        double b = exponentB;
+        double c = horizontalShiftC;
+        double d = verticalShiftD;
+        for (int i = offset; i < offset + length; i++) {
+            out[i] = a * Math.exp(b * (xs[i] - c)) + d;
+        }
+    }
+
+    /**
+     * Evaluates the exponential function on the grid x = start + i * step.
+     *
+     * @param start the first x-value of the grid
+     * @param step the spacing between grid points
+     * @param out the array receiving the y-values
+     * @param offset the index of out that receives the first result
+     * @param count the number of grid points
+     */
+    @Override
+    public void evaluateGrid(double start, double step, double[] out, int offset, int count) {
+        if (VectorSupport.use(count)) {
+            VectorKernels.exponentialGrid(verticalStretchA, exponentB, horizontalShiftC, verticalShiftD,
+                    start, step, out, offset, count);
+            return;
+        }
+        double a = verticalStretchA;
+        double b = exponentB;
+        double c = horizontalShiftC;
+        double d = verticalShiftD;
+        for (int i = 0; i < count; i++) {
+            out[offset + i] = a * Math.exp(b * ((start + i * step) - c)) + d;
+        }
+    }
+
+    /**
+     * Returns the range of the exponential over [lo, hi]. The function is
+     * monotonic, so the range runs between its values at the two ends.
+     *
+     * @param lo the lower end of the x-range
+     * @param hi the upper end of the x-range
+     * @return the range of y-values
+     */
+    @Override
+    public Interval evaluateInterval(double lo, double hi) {
+        return Interval.between(evaluate(lo), evaluate(hi));
+    }
+
+    /**
+     * The exponential rises when A and B have the same sign and falls when
+     * their signs differ.
+     *
+     * @return the sign of A * B (0 when the function is flat)
+     */
+    @Override
+    public int monotonicity() {
+        return (int) (Math.signum(verticalStretchA) * Math.signum(exponentB));
+    }
+
+    /**
+     * Two exponential functions are equal when they have the same parameters.
+     *
+     * @param other the object to compare with
+     * @return true if other is a ExponentialFunction with the same parameters
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        ExponentialFunction that = (ExponentialFunction) other;
+        return Double.compare(verticalStretchA, that.verticalStretchA) == 0 &&
+                Double.compare(exponentB, that.exponentB) == 0 &&
+                Double.compare(horizontalShiftC, that.horizontalShiftC) == 0 &&
+                Double.compare(verticalShiftD, that.verticalShiftD) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(verticalStretchA, exponentB, horizontalShiftC, verticalShiftD);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,354 @@
+package graphing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A function defined by a formula typed in by the user, for example
+ * y = 2*sin(x) + x^2. Create one with ExpressionParser.parse.
+ *
+ * The parsed expression is turned into a short list of steps when the
+ * function is created. Every shared subexpression is one step, and each
+ * step stores its result in a slot of a register array. Evaluating the
+ * function just runs the steps in order, so it never re-parses the formula
+ * and never allocates: each thread reuses its own register arrays.
+ *
+ * The same steps run on intervals in evaluateInterval, which bounds the
+ * formula over a range of x-values for interval rendering.
+ */
+public class ExpressionFunction implements Function {
+
+    /** Number of x-values run through the steps together in the bulk methods */
+    private static final int BLOCK = 256;
+
+    /** The exponent of a square, for the ranges of steps that multiply a value by itself */
+    private static final Interval TWO = new Interval(2, 2);
+
+    /** The formula as the user typed it */
+    private final String source;
+
+    /** The parsed expression the steps were built from */
+    private final ExpressionNode root;
+
+    /** Operation of each step */
+    private final ExpressionNode.Op[] ops;
+
+    /** Register holding each step's first operand */
+    private final int[] leftRegister;
+
+    /** Register holding each step's second operand (-1 for unary steps) */
+    private final int[] rightRegister;
+
+    /** Register each step writes its result to */
+    private final int[] targetRegister;
+
+    /** Starting register contents, with every constant already in place */
+    private final double[] constants;
+
+    /** Each constant register as a one-number interval (null for the other registers) */
+    private final Interval[] constantRanges;
+
+    /** Register holding the final result */
+    private final int resultRegister;
+
+    /** Hash code of the expression's structure */
+    private final int shapeHash;
+
+    /** Registers for evaluate(x), one array per thread */
+    private final ThreadLocal<double[]> registers;
+
+    /** Registers for the bulk methods, one block of values per register */
+    private final ThreadLocal<double[][]> blockRegisters;
+
+    /**
+     * Builds the list of steps for a parsed expression.
+     *
+     * @param source the formula text
+     * @param root the parsed expression
+     */
+    ExpressionFunction(String source, ExpressionNode root) {
+        this.source = source;
+        this.root = root;
+
+        // Give every distinct node a register, children before parents
+        List<ExpressionNode> order = new ArrayList<>();
+        Map<ExpressionNode, Integer> slots = new IdentityHashMap<>();
+        assignRegisters(root, order, slots);
+
+        constants = new double[order.size()];
+        constantRanges = new Interval[order.size()];
+        List<ExpressionNode> steps = new ArrayList<>();
+        for (ExpressionNode node : order) {
+            if (node.op == ExpressionNode.Op.CONST) {
+                constants[slots.get(node)] = node.value;
+                constantRanges[slots.get(node)] = Double.isNaN(node.value)
+                        ? Interval.EMPTY : new Interval(node.value, node.value);
+            } else {
+                steps.add(node);
+            }
+        }
+
+        ops = new ExpressionNode.Op[steps.size()];
+        leftRegister = new int[steps.size()];
+        rightRegister = new int[steps.size()];
+        targetRegister = new int[steps.size()];
+        for (int i = 0; i < steps.size(); i++) {
+            ExpressionNode node = steps.get(i);
+            ops[i] = node.op;
+            leftRegister[i] = node.left != null ? slots.get(node.left) : -1;
+            rightRegister[i] = node.right != null ? slots.get(node.right) : -1;
+            targetRegister[i] = slots.get(node);
+        }
+        resultRegister = slots.get(root);
+        shapeHash = ExpressionNode.shapeHash(root, new IdentityHashMap<>());
+
+        registers = ThreadLocal.withInitial(constants::clone);
+        blockRegisters = ThreadLocal.withInitial(this::newBlockRegisters);
+    }
+
+    /**
+     * Numbers the nodes of the expression in post-order, visiting shared
+     * nodes only once.
+     */
+    private static void assignRegisters(ExpressionNode node, List<ExpressionNode> order,
+                                        Map<ExpressionNode, Integer> slots) {
+        if (slots.containsKey(node)) {
+            return;
+        }
+        if (node.left != null) {
+            assignRegisters(node.left, order, slots);
+        }
+        if (node.right != null) {
+            assignRegisters(node.right, order, slots);
+        }
+        slots.put(node, order.size());
+        order.add(node);
+    }
+
+    /**
+     * Creates block registers with the constant registers already filled.
+     */
+    private double[][] newBlockRegisters() {
+        double[][] block = new double[constants.length][BLOCK];
+        for (int r = 0; r < constants.length; r++) {
+            Arrays.fill(block[r], constants[r]);
+        }
+        return block;
+    }
+
+    /**
+     * Returns the parsed expression (used by FunctionCompiler).
+     *
+     * @return the root node of the expression
+     */
+    ExpressionNode getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns the number of steps run per evaluation, after constant
+     * folding and sharing of repeated subexpressions.
+     *
+     * @return the step count
+     */
+    public int getStepCount() {
+        return ops.length;
+    }
+
+    /**
+     * Evaluates the formula at the given x-value.
+     *
+     * @param x the input value
+     * @return the value of the formula at x
+     */
+    @Override
+    public double evaluate(double x) {
+        double[] r = registers.get();
+        for (int i = 0; i < ops.length; i++) {
+            ExpressionNode.Op op = ops[i];
+            double value;
+            if (op == ExpressionNode.Op.X) {
+                value = x;
+            } else {
+                int right = rightRegister[i];
+                value = ExpressionNode.apply(op, r[leftRegister[i]], right >= 0 ? r[right] : 0);
+            }
+            r[targetRegister[i]] = value;
+        }
+        return r[resultRegister];
+    }
+
+    /**
+     * Evaluates the formula at many x-values. The values are handled a block
+     * at a time, running each step over the whole block before moving to the
+     * next step, so the cost of picking each operation is shared by the block.
+     *
+     * @param xs the input values
+     * @param out the array receiving the y-values
+     * @param offset the first index to evaluate
+     * @param length the number of values to evaluate
+     */
+    @Override
+    public void evaluate(double[] xs, double[] out, int offset, int length) {
+        double[][] r = blockRegisters.get();
+        for (int start = offset; start < offset + length; start += BLOCK) {
+            int count = Math.min(BLOCK, offset + length - start);
+            runBlock(r, xs, start, count);
+            System.arraycopy(r[resultRegister], 0, out, start, count);
+        }
+    }
+
+    /**
+     * Evaluates the formula on the grid x = start + i * step, a block of
+     * values at a time.
+     *
+     * @param start the first x-value of the grid
+     * @param step the spacing between grid points
+     * @param out the array receiving the y-values
+     * @param offset the index of out that receives the first result
+     * @param count the number of grid points
+     */
+    @Override
+    public void evaluateGrid(double start, double step, double[] out, int offset, int count) {
+        double[][] r = blockRegisters.get();
+        for (int first = 0; first < count; first += BLOCK) {
+            int n = Math.min(BLOCK, count - first);
+            runGridBlock(r, start, step, first, n);
+            System.arraycopy(r[resultRegister], 0, out, offset + first, n);
+        }
+    }
+
+    /**
+     * Returns a range holding every value of the formula for x in [lo, hi].
+     * The steps are run with interval arithmetic (see
+     * ExpressionNode.applyInterval), so the range always holds the curve,
+     * though it can be wider than the curve when x appears more than once.
+     *
+     * @param lo the lower end of the x-range
+     * @param hi the upper end of the x-range
+     * @return a range holding every y-value over [lo, hi]
+     */
+    @Override
+    public Interval evaluateInterval(double lo, double hi) {
+        Interval x = new Interval(lo, hi);
+        Interval[] r = constantRanges.clone();
+        for (int i = 0; i < ops.length; i++) {
+            ExpressionNode.Op op = ops[i];
+            Interval value;
+            if (op == ExpressionNode.Op.X) {
+                value = x;
+            } else if (op == ExpressionNode.Op.MUL && leftRegister[i] == rightRegister[i]) {
+                // x^2 is parsed as x * x; a square never goes below 0
+                value = ExpressionNode.applyInterval(ExpressionNode.Op.POW, r[leftRegister[i]], TWO);
+            } else {
+                int right = rightRegister[i];
+                value = ExpressionNode.applyInterval(op, r[leftRegister[i]], right >= 0 ? r[right] : null);
+            }
+            r[targetRegister[i]] = value;
+        }
+        return r[resultRegister];
+    }
+
+    /**
+     * Runs every step over xs[from .. from + count - 1].
+     */
+    private void runBlock(double[][] r, double[] xs, int from, int count) {
+        for (int i = 0; i < ops.length; i++) {
+            double[] target = r[targetRegister[i]];
+            if (ops[i] == ExpressionNode.Op.X) {
+                System.arraycopy(xs, from, target, 0, count);
+            } else {
+                runStep(i, r, target, count);
+            }
+        }
+    }
+
+    /**
+     * Runs every step over the grid points first .. first + count - 1.
+     */
+    private void runGridBlock(double[][] r, double start, double step, int first, int count) {
+        for (int i = 0; i < ops.length; i++) {
+            double[] target = r[targetRegister[i]];
+            if (ops[i] == ExpressionNode.Op.X) {
+                for (int j = 0; j < count; j++) {
+                    target[j] = start + (first + j) * step;
+                }
+            } else {
+                runStep(i, r, target, count);
+            }
+        }
+    }
+
+    /**
+     * Runs one (non-x) step over a block of values.
+     */
+    private void runStep(int i, double[][] r, double[] target, int count) {
+        ExpressionNode.Op op = ops[i];
+        double[] a = r[leftRegister[i]];
+        double[] b = rightRegister[i] >= 0 ? r[rightRegister[i]] : a;
+
+        // The common arithmetic gets its own tight loops
+        switch (op) {
+            case ADD:
+                for (int j = 0; j < count; j++) {
+                    target[j] = a[j] + b[j];
+                }
+                break;
+            case SUB:
+                for (int j = 0; j < count; j++) {
+                    target[j] = a[j] - b[j];
+                }
+                break;
+            case MUL:
+                for (int j = 0; j < count; j++) {
+                    target[j] = a[j] * b[j];
+                }
+                break;
+            case DIV:
+                for (int j = 0; j < count; j++) {
+                    target[j] = a[j] / b[j];
+                }
+                break;
+            default:
+                for (int j = 0; j < count; j++) {
+                    target[j] = ExpressionNode.apply(op, a[j], b[j]);
+                }
+        }
+    }
+
+    /**
+     * Two formulas are equal when they parse to the same expression, even
+     * if they were typed differently ("2x+1" and "2 * x + 1").
+     *
+     * @param other the object to compare with
+     * @return true if other is an ExpressionFunction computing the same expression
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ExpressionFunction)) {
+            return false;
+        }
+        ExpressionFunction that = (ExpressionFunction) other;
+        return shapeHash == that.shapeHash
+                && ExpressionNode.sameShape(root, that.root, new IdentityHashMap<>());
+    }
+
+    @Override
+    public int hashCode() {
+        return shapeHash;
+    }
+
+    /**
+     * Returns the formula as it was typed.
+     */
+    @Override
+    public String toString() {
+        return source;
+    }
+}
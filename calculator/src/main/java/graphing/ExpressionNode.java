@@ -0,0 +1,293 @@
+package graphing;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * One node of a parsed expression: a number, the variable x, or an
+ * operation applied to one or two child nodes.
+ *
+ * Nodes are immutable and are shared by the parser: two structurally
+ * identical subexpressions are the same node object, so child nodes can
+ * be compared with ==.
+ */
+final class ExpressionNode {
+
+    /**
+     * Every kind of node. Unary operations use only the left child.
+     */
+    enum Op {
+        CONST, X,
+        ADD, SUB, MUL, DIV, POW,
+        NEG, SIN, COS, TAN, ASIN, ACOS, ATAN, SINH, COSH, TANH,
+        EXP, LN, LOG, SQRT, ABS, FLOOR, CEIL;
+
+        /**
+         * Returns true for operations with two operands.
+         */
+        boolean isBinary() {
+            return this == ADD || this == SUB || this == MUL || this == DIV || this == POW;
+        }
+    }
+
+    /** sin, cos and tan with no stretch or shift, used for the ranges of SIN, COS and TAN */
+    private static final SineFunction UNIT_SINE = new SineFunction(1, 1, 0, 0);
+    private static final CosineFunction UNIT_COSINE = new CosineFunction(1, 1, 0, 0);
+    private static final TangentFunction UNIT_TANGENT = new TangentFunction(1, 1, 0, 0);
+
+    /** What this node computes */
+    final Op op;
+
+    /** First operand (null for CONST and X) */
+    final ExpressionNode left;
+
+    /** Second operand (null unless the operation is binary) */
+    final ExpressionNode right;
+
+    /** The number held by a CONST node */
+    final double value;
+
+    /** Number of nodes on the longest path from this node down to a leaf */
+    final int depth;
+
+    ExpressionNode(Op op, ExpressionNode left, ExpressionNode right, double value) {
+        this.op = op;
+        this.left = left;
+        this.right = right;
+        this.value = value;
+        this.depth = 1 + Math.max(left != null ? left.depth : 0, right != null ? right.depth : 0);
+    }
+
+    /**
+     * Applies an operation to already evaluated operands.
+     *
+     * @param op the operation (not CONST or X)
+     * @param a the first operand
+     * @param b the second operand (ignored by unary operations)
+     * @return the result
+     */
+    static double apply(Op op, double a, double b) {
+        switch (op) {
+            case ADD:   return a + b;
+            case SUB:   return a - b;
+            case MUL:   return a * b;
+            case DIV:   return a / b;
+            case POW:   return Math.pow(a, b);
+            case NEG:   return -a;
+            case SIN:   return Math.sin(a);
+            case COS:   return Math.cos(a);
+            case TAN:   return Math.tan(a);
+            case ASIN:  return Math.asin(a);
+            case ACOS:  return Math.acos(a);
+            case ATAN:  return Math.atan(a);
+            case SINH:  return Math.sinh(a);
+            case COSH:  return Math.cosh(a);
+            case TANH:  return Math.tanh(a);
+            case EXP:   return Math.exp(a);
+            case LN:    return Math.log(a);
+            case LOG:   return Math.log10(a);
+            case SQRT:  return Math.sqrt(a);
+            case ABS:   return Math.abs(a);
+            case FLOOR: return Math.floor(a);
+            case CEIL:  return Math.ceil(a);
+            default:
+                throw new IllegalArgumentException("Cannot apply " + op);
+        }
+    }
+
+    /**
+     * Applies an operation to ranges of operands: returns an interval
+     * holding op(a, b) for every a and b in the two ranges. Values where the
+     * operation is undefined (the square root of a negative number, say)
+     * are left out, so a range with no defined value gives Interval.EMPTY.
+     *
+     * @param op the operation (not CONST or X)
+     * @param a the range of the first operand
+     * @param b the range of the second operand (ignored by unary operations)
+     * @return a range holding every result
+     */
+    static Interval applyInterval(Op op, Interval a, Interval b) {
+        if (a.isEmpty() || (op.isBinary() && b.isEmpty())) {
+            return Interval.EMPTY;
+        }
+        double lo = a.getLo();
+        double hi = a.getHi();
+        switch (op) {
+            case ADD:   return Interval.between(lo + b.getLo(), hi + b.getHi());
+            case SUB:   return Interval.between(lo - b.getHi(), hi - b.getLo());
+            case MUL:   return corners(Op.MUL, a, b);
+            case DIV:
+                if (b.getLo() <= 0 && b.getHi() >= 0) {
+                    return Interval.ALL; // dividing by a range that holds 0
+                }
+                return corners(Op.DIV, a, b);
+            case POW:   return power(a, b);
+            case NEG:   return new Interval(-hi, -lo);
+            case SIN:   return UNIT_SINE.evaluateInterval(lo, hi);
+            case COS:   return UNIT_COSINE.evaluateInterval(lo, hi);
+            case TAN:   return UNIT_TANGENT.evaluateInterval(lo, hi);
+            case ASIN:
+            case ACOS:
+                if (hi < -1 || lo > 1) {
+                    return Interval.EMPTY;
+                }
+                return Interval.between(apply(op, Math.max(lo, -1), 0), apply(op, Math.min(hi, 1), 0));
+            case SQRT:
+            case LN:
+            case LOG:
+                if (hi < 0) {
+                    return Interval.EMPTY;
+                }
+                return Interval.between(apply(op, Math.max(lo, 0), 0), apply(op, hi, 0));
+            case COSH:
+                if (lo < 0 && hi > 0) {
+                    return Interval.between(1, Math.max(Math.cosh(lo), Math.cosh(hi)));
+                }
+                return Interval.between(Math.cosh(lo), Math.cosh(hi));
+            case ABS:
+                if (lo < 0 && hi > 0) {
+                    return new Interval(0, Math.max(-lo, hi));
+                }
+                return new Interval(Math.min(Math.abs(lo), Math.abs(hi)), Math.max(Math.abs(lo), Math.abs(hi)));
+            case FLOOR:
+            case CEIL:
+                return new Interval(apply(op, lo, 0), apply(op, hi, 0)); // exact, so not widened
+            default:
+                // atan, sinh, tanh and exp only increase
+                return Interval.between(apply(op, lo, 0), apply(op, hi, 0));
+        }
+    }
+
+    /**
+     * Returns the range of a * b or a / b, which is reached at one of the
+     * four pairs of ends (b must not hold 0 when dividing).
+     */
+    private static Interval corners(Op op, Interval a, Interval b) {
+        double p1 = apply(op, a.getLo(), b.getLo());
+        double p2 = apply(op, a.getLo(), b.getHi());
+        double p3 = apply(op, a.getHi(), b.getLo());
+        double p4 = apply(op, a.getHi(), b.getHi());
+        return Interval.between(Math.min(Math.min(p1, p2), Math.min(p3, p4)),
+                Math.max(Math.max(p1, p2), Math.max(p3, p4)));
+    }
+
+    /**
+     * Returns the range of a ^ b. A whole-number exponent is allowed on any
+     * base; otherwise only bases of 0 and up are defined, and there a ^ b
+     * only rises or falls in each operand, so the range is reached at the
+     * ends.
+     */
+    private static Interval power(Interval a, Interval b) {
+        double n = b.getLo();
+        if (n == b.getHi() && n == Math.rint(n) && !Double.isInfinite(n)) {
+            if (n == 0) {
+                return new Interval(1, 1);
+            }
+            boolean spansZero = a.getLo() <= 0 && a.getHi() >= 0;
+            if (n < 0 && spansZero) {
+                return Interval.ALL; // a pole at 0
+            }
+            double p1 = Math.pow(a.getLo(), n);
+            double p2 = Math.pow(a.getHi(), n);
+            if (spansZero && n % 2 == 0) {
+                return Interval.between(0, Math.max(p1, p2)); // an even power dips to 0
+            }
+            return Interval.between(p1, p2);
+        }
+        if (a.getHi() < 0) {
+            return Interval.EMPTY;
+        }
+        return corners(Op.POW, new Interval(Math.max(a.getLo(), 0), a.getHi()), b);
+    }
+
+    /**
+     * Two nodes are equal when they hold the same operation on the same
+     * child objects (children are already shared, so == is enough).
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ExpressionNode)) {
+            return false;
+        }
+        ExpressionNode node = (ExpressionNode) other;
+        return op == node.op && left == node.left && right == node.right
+                && Double.compare(value, node.value) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(op, System.identityHashCode(left), System.identityHashCode(right), value);
+    }
+
+    /**
+     * Checks whether two expressions compute the same thing step for step.
+     * Unlike equals this also works for nodes built by different parsers.
+     *
+     * @param a the first expression
+     * @param b the second expression
+     * @param matched pairs of nodes already found to match, so shared
+     *        subexpressions are only compared once
+     * @return true if the expressions have the same structure and numbers
+     */
+    static boolean sameShape(ExpressionNode a, ExpressionNode b, Map<ExpressionNode, ExpressionNode> matched) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        if (matched.get(a) == b) {
+            return true;
+        }
+        if (a.op != b.op || Double.compare(a.value, b.value) != 0) {
+            return false;
+        }
+        if (!sameShape(a.left, b.left, matched) || !sameShape(a.right, b.right, matched)) {
+            return false;
+        }
+        matched.put(a, b);
+        return true;
+    }
+
+    /**
+     * Returns a hash code that agrees with sameShape.
+     *
+     * @param node the expression
+     * @param hashes hash codes of nodes already visited
+     * @return the hash code of the expression's structure
+     */
+    static int shapeHash(ExpressionNode node, Map<ExpressionNode, Integer> hashes) {
+        if (node == null) {
+            return 0;
+        }
+        Integer known = hashes.get(node);
+        if (known != null) {
+            return known;
+        }
+        int hash = Objects.hash(node.op.ordinal(), Double.hashCode(node.value),
+                shapeHash(node.left, hashes), shapeHash(node.right, hashes));
+        hashes.put(node, hash);
+        return hash;
+    }
+
+    /**
+     * Writes the node back out as a fully parenthesized formula.
+     */
+    @Override
+    public String toString() {
+        switch (op) {
+            case CONST: return Double.toString(value);
+            case X:     return "x";
+            case ADD:   return "(" + left + " + " + right + ")";
+            case SUB:   return "(" + left + " - " + right + ")";
+            case MUL:   return "(" + left + " * " + right + ")";
+            case DIV:   return "(" + left + " / " + right + ")";
+            case POW:   return "(" + left + " ^ " + right + ")";
+            case NEG:   return "(-" + left + ")";
+            default:    return op.name().toLowerCase() + "(" + left + ")";
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package graphing;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parses formulas such as "2*sin(x) + x^2" into an ExpressionFunction.
+ *
+ * Supported syntax:
+ * - numbers (3, 0.5, 1e-3), the variable x and the constants pi and e
+ * - + - * / and ^ (power, right-associative), unary minus, parentheses
+ * - implicit multiplication such as 2x, 3(x + 1) or 2sin(x)
+ * - sin cos tan asin acos atan sinh cosh tanh exp ln log sqrt abs floor ceil
+ *
+ * While parsing, operations whose operands are all numbers are computed
+ * right away (constant folding), and identical subexpressions are built
+ * only once (common-subexpression elimination), so "sin(x)^2 + sin(x)"
+ * computes sin(x) a single time.
+ *
+ * Formulas may nest at most MAX_DEPTH levels deep, counting both
+ * parentheses and the operations of the parsed expression, so that neither
+ * the parser nor the code that walks the expression runs out of stack.
+ */
+public class ExpressionParser {
+
+    /** Deepest nesting allowed in a formula */
+    public static final int MAX_DEPTH = 500;
+
+    /** Function names and the operation each one stands for */
+    private static final Map<String, ExpressionNode.Op> FUNCTIONS = new HashMap<>();
+
+    static {
+        FUNCTIONS.put("sin", ExpressionNode.Op.SIN);
+        FUNCTIONS.put("cos", ExpressionNode.Op.COS);
+        FUNCTIONS.put("tan", ExpressionNode.Op.TAN);
+        FUNCTIONS.put("asin", ExpressionNode.Op.ASIN);
+        FUNCTIONS.put("acos", ExpressionNode.Op.ACOS);
+        FUNCTIONS.put("atan", ExpressionNode.Op.ATAN);
+        FUNCTIONS.put("sinh", ExpressionNode.Op.SINH);
+        FUNCTIONS.put("cosh", ExpressionNode.Op.COSH);
+        FUNCTIONS.put("tanh", ExpressionNode.Op.TANH);
+        FUNCTIONS.put("exp", ExpressionNode.Op.EXP);
+        FUNCTIONS.put("ln", ExpressionNode.Op.LN);
+        FUNCTIONS.put("log", ExpressionNode.Op.LOG);
+        FUNCTIONS.put("sqrt", ExpressionNode.Op.SQRT);
+        FUNCTIONS.put("abs", ExpressionNode.Op.ABS);
+        FUNCTIONS.put("floor", ExpressionNode.Op.FLOOR);
+        FUNCTIONS.put("ceil", ExpressionNode.Op.CEIL);
+    }
+
+    /** The formula being parsed */
+    private final String text;
+
+    /** Index of the next unread character */
+    private int pos;
+
+    /** Number of parseUnary calls under way, one per level of nesting */
+    private int nesting;
+
+    /** Every node built so far, used to share identical subexpressions */
+    private final Map<ExpressionNode, ExpressionNode> nodes = new HashMap<>();
+
+    private ExpressionParser(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parses a formula in x.
+     *
+     * @param text the formula, for example "x^2 - 3x + 2"
+     * @return a Function that evaluates the formula
+     * @throws IllegalArgumentException if the formula is not valid or nests
+     *         more than MAX_DEPTH levels deep
+     */
+    public static ExpressionFunction parse(String text) {
+        ExpressionParser parser = new ExpressionParser(text);
+        ExpressionNode root = parser.parseExpression();
+        parser.skipSpaces();
+        if (parser.pos < text.length()) {
+            throw parser.error("Unexpected '" + text.charAt(parser.pos) + "'");
+        }
+        return new ExpressionFunction(text.trim(), root);
+    }
+
+    /**
+     * expression := term (('+' | '-') term)*
+     */
+    private ExpressionNode parseExpression() {
+        ExpressionNode node = parseTerm();
+        while (true) {
+            if (accept('+')) {
+                node = binary(ExpressionNode.Op.ADD, node, parseTerm());
+            }
+            else if (accept('-')) {
+                node = binary(ExpressionNode.Op.SUB, node, parseTerm());
+            }
+            else {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * term := unary (('*' | '/' | implicit) unary)*
+     */
+    private ExpressionNode parseTerm() {
+        ExpressionNode node = parseUnary();
+        while (true) {
+            if (accept('*')) {
+                node = binary(ExpressionNode.Op.MUL, node, parseUnary());
+            }
+            else if (accept('/')) {
+                node = binary(ExpressionNode.Op.DIV, node, parseUnary());
+            }
+            else if (startsPrimary()) {
+                // Implicit multiplication: 2x, 3(x + 1), 2sin(x)
+                node = binary(ExpressionNode.Op.MUL, node, parseUnary());
+            }
+            else {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * unary := '-' unary | '+' unary | power
+     */
+    private ExpressionNode parseUnary() {
+        // Every nested level (parentheses, function calls, signs and
+        // exponents) passes through here
+        if (++nesting > MAX_DEPTH) {
+            throw error("Formula nests more than " + MAX_DEPTH + " levels deep");
+        }
+        ExpressionNode node;
+        if (accept('-')) {
+            node = unary(ExpressionNode.Op.NEG, parseUnary());
+        }
+        else if (accept('+')) {
+            node = parseUnary();
+        }
+        else {
+            node = parsePower();
+        }
+        nesting--;
+        return node;
+    }
+
+    /**
+     * power := primary ('^' unary)?
+     *
+     * The exponent is parsed with parseUnary, which makes ^ right-associative
+     * (2^3^2 is 2^9) and allows negative exponents (x^-1).
+     */
+    private ExpressionNode parsePower() {
+        ExpressionNode base = parsePrimary();
+        if (accept('^')) {
+            return binary(ExpressionNode.Op.POW, base, parseUnary());
+        }
+        return base;
+    }
+
+    /**
+     * primary := number | 'x' | 'pi' | 'e' | function '(' expression ')' | '(' expression ')'
+     */
+    private ExpressionNode parsePrimary() {
+        skipSpaces();
+        if (pos >= text.length()) {
+            throw error("Unexpected end of formula");
+        }
+        char c = text.charAt(pos);
+
+        if (accept('(')) {
+            ExpressionNode inside = parseExpression();
+            expect(')');
+            return inside;
+        }
+        if (Character.isDigit(c) || c == '.') {
+            return constant(parseNumber());
+        }
+        if (Character.isLetter(c)) {
+            int start = pos;
+            String name = parseName();
+            if (name.equals("x")) {
+                return intern(new ExpressionNode(ExpressionNode.Op.X, null, null, 0));
+            }
+            if (name.equals("pi")) {
+                return constant(Math.PI);
+            }
+            if (name.equals("e")) {
+                return constant(Math.E);
+            }
+            ExpressionNode.Op op = FUNCTIONS.get(name);
+            if (op == null) {
+                pos = start;
+                throw error("Unknown name '" + name + "'");
+            }
+            expect('(');
+            ExpressionNode argument = parseExpression();
+            expect(')');
+            return unary(op, argument);
+        }
+        throw error("Unexpected '" + c + "'");
+    }
+
+    /**
+     * Reads a decimal number with an optional exponent (1.5e-3). An 'e' is
+     * only read as an exponent when digits follow it, so "2e" means 2 * e.
+     */
+    private double parseNumber() {
+        int start = pos;
+        while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+            pos++;
+        }
+        if (pos < text.length() && (text.charAt(pos) == 'e' || text.charAt(pos) == 'E')) {
+            int exponent = pos + 1;
+            if (exponent < text.length() && (text.charAt(exponent) == '+' || text.charAt(exponent) == '-')) {
+                exponent++;
+            }
+            if (exponent < text.length() && Character.isDigit(text.charAt(exponent))) {
+                pos = exponent;
+                while (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+                    pos++;
+                }
+            }
+        }
+        String number = text.substring(start, pos);
+        try {
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            pos = start;
+            throw error("Bad number '" + number + "'");
+        }
+    }
+
+    /**
+     * Reads a run of letters, lower-cased.
+     */
+    private String parseName() {
+        int start = pos;
+        while (pos < text.length() && Character.isLetter(text.charAt(pos))) {
+            pos++;
+        }
+        return text.substring(start, pos).toLowerCase();
+    }
+
+    /**
+     * Builds a binary node, computing it right away when both operands are
+     * numbers and simplifying a few identities.
+     */
+    private ExpressionNode binary(ExpressionNode.Op op, ExpressionNode left, ExpressionNode right) {
+        if (left.op == ExpressionNode.Op.CONST && right.op == ExpressionNode.Op.CONST) {
+            return constant(ExpressionNode.apply(op, left.value, right.value));
+        }
+        if (op == ExpressionNode.Op.ADD && isConstant(right, 0)) {
+            return left;
+        }
+        if (op == ExpressionNode.Op.ADD && isConstant(left, 0)) {
+            return right;
+        }
+        if (op == ExpressionNode.Op.SUB && isConstant(right, 0)) {
+            return left;
+        }
+        if ((op == ExpressionNode.Op.MUL || op == ExpressionNode.Op.DIV) && isConstant(right, 1)) {
+            return left;
+        }
+        if (op == ExpressionNode.Op.MUL && isConstant(left, 1)) {
+            return right;
+        }
+        if (op == ExpressionNode.Op.POW && isConstant(right, 1)) {
+            return left;
+        }
+        if (op == ExpressionNode.Op.POW && isConstant(right, 2)) {
+            // x^2 becomes x * x, with x computed once
+            return intern(new ExpressionNode(ExpressionNode.Op.MUL, left, left, 0));
+        }
+        return intern(new ExpressionNode(op, left, right, 0));
+    }
+
+    /**
+     * Builds a unary node, computing it right away when the operand is a number.
+     */
+    private ExpressionNode unary(ExpressionNode.Op op, ExpressionNode operand) {
+        if (operand.op == ExpressionNode.Op.CONST) {
+            return constant(ExpressionNode.apply(op, operand.value, 0));
+        }
+        if (op == ExpressionNode.Op.NEG && operand.op == ExpressionNode.Op.NEG) {
+            return operand.left; // -(-a) is a
+        }
+        return intern(new ExpressionNode(op, operand, null, 0));
+    }
+
+    private ExpressionNode constant(double value) {
+        return intern(new ExpressionNode(ExpressionNode.Op.CONST, null, null, value));
+    }
+
+    private static boolean isConstant(ExpressionNode node, double value) {
+        return node.op == ExpressionNode.Op.CONST && node.value == value;
+    }
+
+    /**
+     * Returns the existing node equal to this one, or this one if it is new.
+     * Long chains such as x + x^2 + x^3 + ... build deep expressions without
+     * nesting in the text, so the depth is checked here too.
+     */
+    private ExpressionNode intern(ExpressionNode node) {
+        if (node.depth > MAX_DEPTH) {
+            throw error("Formula nests more than " + MAX_DEPTH + " levels deep");
+        }
+        ExpressionNode existing = nodes.putIfAbsent(node, node);
+        return existing != null ? existing : node;
+    }
+
+    /**
+     * Checks whether the next token can start a primary (for implicit
+     * multiplication).
+     */
+    private boolean startsPrimary() {
+        skipSpaces();
+        if (pos >= text.length()) {
+            return false;
+        }
+        char c = text.charAt(pos);
+        return c == '(' || Character.isLetterOrDigit(c) || c == '.';
+    }
+
+    /**
+     * Consumes the character c if it comes next (after spaces).
+     */
+    private boolean accept(char c) {
+        skipSpaces();
+        if (pos < text.length() && text.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!accept(c)) {
+            throw error("Expected '" + c + "'");
+        }
+    }
+
+    private void skipSpaces() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + (pos + 1) + " in \"" + text + "\"");
+    }
+}
@@ -0,0 +1,187 @@
+package graphing;
+
+/**
+ * Fast approximations of sin, cos and tan with selectable accuracy.
+ *
+ * The angle is first reduced to r in [-pi/4, pi/4] plus a quadrant number
+ * (Cody-Waite reduction with a two-part pi/2). sin(r) and cos(r) are then
+ * computed with either a short polynomial (HIGH) or a lookup table with
+ * linear interpolation (PIXEL), and the quadrant picks the sign and which
+ * of the two is returned.
+ *
+ * Angles too large for the reduction to stay accurate fall back to the
+ * exact Math methods.
+ */
+public final class FastTrig {
+
+    /**
+     * Accuracy tiers, from most to least accurate (and slowest to fastest).
+     */
+    public enum Accuracy {
+        /** Math.sin / Math.cos / Math.tan */
+        EXACT(0),
+
+        /** Polynomial kernels, within 1e-9 of the exact sine and cosine */
+        HIGH(1e-9),
+
+        /** Table kernels, accurate enough for pixel placement (about 1e-6) */
+        PIXEL(2e-6);
+
+        /** Largest absolute error of sine and cosine in this tier */
+        private final double errorBound;
+
+        Accuracy(double errorBound) {
+            this.errorBound = errorBound;
+        }
+
+        /**
+         * Returns the largest absolute error of sine and cosine in this tier.
+         *
+         * @return the error bound
+         */
+        public double errorBound() {
+            return errorBound;
+        }
+    }
+
+    /** 2 / pi, used to find the quadrant */
+    private static final double TWO_OVER_PI = 2 / Math.PI;
+
+    /** First 33 bits of pi/2, so k * PIO2_HI is exact for the angles we reduce */
+    private static final double PIO2_HI = 1.57079632673412561417e+00;
+
+    /** pi/2 - PIO2_HI */
+    private static final double PIO2_LO = 6.07710050650619224932e-11;
+
+    /** Angles larger than this are passed to the Math methods */
+    private static final double REDUCTION_LIMIT = 1e5;
+
+    /** Number of table intervals covering [0, pi/4] */
+    private static final int TABLE_SIZE = 256;
+
+    /** Width of one table interval */
+    private static final double TABLE_STEP = (Math.PI / 4) / TABLE_SIZE;
+
+    /** sin(j * TABLE_STEP) for j = 0 .. TABLE_SIZE */
+    private static final double[] SIN_TABLE = new double[TABLE_SIZE + 1];
+
+    /** cos(j * TABLE_STEP) for j = 0 .. TABLE_SIZE */
+    private static final double[] COS_TABLE = new double[TABLE_SIZE + 1];
+
+    static {
+        for (int j = 0; j <= TABLE_SIZE; j++) {
+            SIN_TABLE[j] = Math.sin(j * TABLE_STEP);
+            COS_TABLE[j] = Math.cos(j * TABLE_STEP);
+        }
+    }
+
+    private FastTrig() {
+    }
+
+    /**
+     * Computes sin(x) in the given accuracy tier.
+     *
+     * @param x the angle in radians
+     * @param accuracy the accuracy tier
+     * @return the sine of x
+     */
+    public static double sin(double x, Accuracy accuracy) {
+        if (accuracy == Accuracy.EXACT || !(Math.abs(x) <= REDUCTION_LIMIT)) {
+            return Math.sin(x);
+        }
+        int k = (int) Math.rint(x * TWO_OVER_PI);
+        double r = (x - k * PIO2_HI) - k * PIO2_LO;
+
+        switch (k & 3) {
+            case 0:
+                return sinKernel(r, accuracy);
+            case 1:
+                return cosKernel(r, accuracy);
+            case 2:
+                return -sinKernel(r, accuracy);
+            default:
+                return -cosKernel(r, accuracy);
+        }
+    }
+
+    /**
+     * Computes cos(x) in the given accuracy tier.
+     *
+     * @param x the angle in radians
+     * @param accuracy the accuracy tier
+     * @return the cosine of x
+     */
+    public static double cos(double x, Accuracy accuracy) {
+        if (accuracy == Accuracy.EXACT || !(Math.abs(x) <= REDUCTION_LIMIT)) {
+            return Math.cos(x);
+        }
+        int k = (int) Math.rint(x * TWO_OVER_PI);
+        double r = (x - k * PIO2_HI) - k * PIO2_LO;
+
+        switch (k & 3) {
+            case 0:
+                return cosKernel(r, accuracy);
+            case 1:
+                return -sinKernel(r, accuracy);
+            case 2:
+                return -cosKernel(r, accuracy);
+            default:
+                return sinKernel(r, accuracy);
+        }
+    }
+
+    /**
+     * Computes tan(x) in the given accuracy tier as a ratio of the sine and
+     * cosine kernels. Near the poles the error grows like 1 / cos^2(x).
+     *
+     * @param x the angle in radians
+     * @param accuracy the accuracy tier
+     * @return the tangent of x
+     */
+    public static double tan(double x, Accuracy accuracy) {
+        if (accuracy == Accuracy.EXACT || !(Math.abs(x) <= REDUCTION_LIMIT)) {
+            return Math.tan(x);
+        }
+        int k = (int) Math.rint(x * TWO_OVER_PI);
+        double r = (x - k * PIO2_HI) - k * PIO2_LO;
+        double s = sinKernel(r, accuracy);
+        double c = cosKernel(r, accuracy);
+
+        // tan(r + k*pi/2) is tan(r) for even k and -cot(r) for odd k
+        return (k & 1) == 0 ? s / c : -c / s;
+    }
+
+    /**
+     * Approximates sin(r) for r in [-pi/4, pi/4].
+     */
+    private static double sinKernel(double r, Accuracy accuracy) {
+        if (accuracy == Accuracy.PIXEL) {
+            double a = Math.abs(r);
+            double position = a / TABLE_STEP;
+            int j = Math.min((int) position, TABLE_SIZE - 1);
+            double fraction = position - j;
+            double s = SIN_TABLE[j] + fraction * (SIN_TABLE[j + 1] - SIN_TABLE[j]);
+            return r < 0 ? -s : s;
+        }
+        // Taylor series through r^11; the first dropped term is below 1e-11
+        double r2 = r * r;
+        return r + r * r2 * (-1.0 / 6 + r2 * (1.0 / 120 + r2 * (-1.0 / 5040
+                + r2 * (1.0 / 362880 + r2 * (-1.0 / 39916800)))));
+    }
+
+    /**
+     * Approximates cos(r) for r in [-pi/4, pi/4].
+     */
+    private static double cosKernel(double r, Accuracy accuracy) {
+        if (accuracy == Accuracy.PIXEL) {
+            double position = Math.abs(r) / TABLE_STEP;
+            int j = Math.min((int) position, TABLE_SIZE - 1);
+            double fraction = position - j;
+            return COS_TABLE[j] + fraction * (COS_TABLE[j + 1] - COS_TABLE[j]);
+        }
+        // Taylor series through r^10; the first dropped term is below 2e-10
+        double r2 = r * r;
+        return 1 + r2 * (-1.0 / 2 + r2 * (1.0 / 24 + r2 * (-1.0 / 720
+                + r2 * (1.0 / 40320 + r2 * (-1.0 / 3628800)))));
+    }
+}
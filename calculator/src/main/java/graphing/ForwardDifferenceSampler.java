@@ -0,0 +1,280 @@
+package graphing;
+
+/**
+ * Samples a function on an evenly spaced x-grid by stepping from one
+ * sample to the next instead of evaluating every point from scratch.
+ *
+ * Each built-in function family has its own recurrence:
+ * - Linear: one add per step
+ * - Quadratic: second-order finite differences (two adds per step)
+ * - Exponential: one multiply by e^(B * step)
+ * - Sine / Cosine / Tangent: rotating (sin, cos) of the angle by B * step
+ *
+ * None of the stepping loops call Math.pow, Math.exp, Math.sin or Math.cos.
+ * Rounding error builds up with every step, so the sampler re-anchors on an
+ * exactly evaluated point every few samples. After each block it compares
+ * the last stepped value with the exact one; if the drift is larger than
+ * the error bound the block is redone with anchors twice as close, and when
+ * the drift is comfortably small the anchors are spread out again.
+ *
+ * When even anchors two samples apart drift too far (for example an
+ * exponential far off the grid, whose values are so large that rounding
+ * alone exceeds an absolute bound), stepping costs more than it saves, so
+ * the next DIRECT_RUN samples are evaluated directly before stepping is
+ * tried again.
+ *
+ * Functions without a known recurrence are simply evaluated with
+ * evaluateGrid. A sampler keeps state between calls, so each thread
+ * should use its own instance.
+ */
+public class ForwardDifferenceSampler {
+
+    /** Default number of steps between exact anchor points */
+    private static final int DEFAULT_ANCHOR_INTERVAL = 256;
+
+    /** Largest number of steps allowed between anchor points */
+    private static final int MAX_ANCHOR_INTERVAL = 4096;
+
+    /** Fewest steps between anchor points; closer than this, samples are evaluated directly */
+    private static final int MIN_ANCHOR_INTERVAL = 2;
+
+    /** Number of samples evaluated directly when stepping drifts too far */
+    private static final int DIRECT_RUN = 256;
+
+    /** Largest absolute drift allowed between a stepped and an exact sample */
+    private final double errorBound;
+
+    /** Current number of steps between anchor points */
+    private int anchorInterval = DEFAULT_ANCHOR_INTERVAL;
+
+    /** Largest drift measured during the most recent call to sample */
+    private double maxDrift;
+
+    /**
+     * Constructs a sampler that keeps the drift of every sample at or below
+     * the given bound.
+     *
+     * @param errorBound the largest absolute error allowed per sample
+     */
+    public ForwardDifferenceSampler(double errorBound) {
+        if (!(errorBound > 0)) {
+            throw new IllegalArgumentException("Error bound must be positive.");
+        }
+        this.errorBound = errorBound;
+    }
+
+    /**
+     * Returns the largest absolute error this sampler allows.
+     *
+     * @return the configured error bound
+     */
+    public double getErrorBound() {
+        return errorBound;
+    }
+
+    /**
+     * Returns the largest drift measured at an anchor check during the
+     * most recent call to sample. It never exceeds the error bound, because
+     * samples that cannot be stepped accurately are evaluated directly.
+     *
+     * @return the measured drift
+     */
+    public double getMaxDrift() {
+        return maxDrift;
+    }
+
+    /**
+     * Returns the current number of steps between exact anchor points.
+     *
+     * @return the anchor interval
+     */
+    public int getAnchorInterval() {
+        return anchorInterval;
+    }
+
+    /**
+     * Samples f at x = start + i * step for i = 0 .. count - 1, storing the
+     * i-th value at out[offset + i].
+     *
+     * @param f the function to sample
+     * @param start the first x-value
+     * @param step the spacing between x-values
+     * @param out the array receiving the samples
+     * @param offset the index of out that receives the first sample
+     * @param count the number of samples
+     */
+    public void sample(Function f, double start, double step, double[] out, int offset, int count) {
+        maxDrift = 0;
+        int i = 0;
+        while (i < count) {
+            int length = Math.min(anchorInterval, count - i);
+            double drift = fillBlock(f, start, step, i, out, offset + i, length);
+
+            if (drift > errorBound) {
+                // Too much drift: redo this block with anchors closer together
+                if (anchorInterval > MIN_ANCHOR_INTERVAL) {
+                    anchorInterval = Math.max(MIN_ANCHOR_INTERVAL, anchorInterval / 2);
+                    continue;
+                }
+                // Even the closest anchors drift too far: evaluate a run
+                // directly, then try stepping again
+                int direct = Math.min(DIRECT_RUN, count - i);
+                f.evaluateGrid(start + i * step, step, out, offset + i, direct);
+                i += direct;
+                continue;
+            }
+
+            maxDrift = Math.max(maxDrift, drift);
+            i += length;
+
+            // Very little drift: spread the anchors back out
+            if (drift < errorBound / 4 && anchorInterval < MAX_ANCHOR_INTERVAL) {
+                anchorInterval *= 2;
+            }
+        }
+    }
+
+    /**
+     * Fills one block of samples starting from an exact anchor and returns
+     * the block's drift.
+     */
+    private double fillBlock(Function f, double start, double step, int first,
+                             double[] out, int pos, int length) {
+        double x0 = start + first * step;
+        double drift;
+
+        if (f instanceof LinearFunction) {
+            linearBlock((LinearFunction) f, x0, step, out, pos, length);
+            drift = lastSampleDrift(f, start, step, first, out, pos, length);
+        }
+        else if (f instanceof QuadraticFunction) {
+            quadraticBlock((QuadraticFunction) f, x0, step, out, pos, length);
+            drift = lastSampleDrift(f, start, step, first, out, pos, length);
+        }
+        else if (f instanceof ExponentialFunction) {
+            exponentialBlock((ExponentialFunction) f, x0, step, out, pos, length);
+            drift = lastSampleDrift(f, start, step, first, out, pos, length);
+        }
+        else if (f instanceof SineFunction) {
+            SineFunction s = (SineFunction) f;
+            drift = trigBlock(0, s.getAmplitude(), s.getFrequency(), s.getPhaseShift(), s.getVerticalShift(),
+                    start, step, first, out, pos, length);
+        }
+        else if (f instanceof CosineFunction) {
+            CosineFunction c = (CosineFunction) f;
+            drift = trigBlock(1, c.getAmplitude(), c.getFrequency(), c.getPhaseShift(), c.getVerticalShift(),
+                    start, step, first, out, pos, length);
+        }
+        else if (f instanceof TangentFunction) {
+            TangentFunction t = (TangentFunction) f;
+            drift = trigBlock(2, t.getAmplitude(), t.getFrequency(), t.getPhaseShift(), t.getVerticalShift(),
+                    start, step, first, out, pos, length);
+        }
+        else {
+            // No recurrence known: evaluate every point exactly
+            f.evaluateGrid(x0, step, out, pos, length);
+            drift = 0;
+        }
+        return Double.isNaN(drift) ? Double.POSITIVE_INFINITY : drift;
+    }
+
+    /**
+     * Compares the last stepped sample of a block with an exact evaluation.
+     * The polynomial and exponential recurrences drift steadily, so the
+     * last sample has the largest error in the block.
+     */
+    private static double lastSampleDrift(Function f, double start, double step, int first,
+                                          double[] out, int pos, int length) {
+        int last = length - 1;
+        return Math.abs(out[pos + last] - f.evaluate(start + (first + last) * step));
+    }
+
+    /**
+     * y(i + 1) = y(i) + m * step
+     */
+    private static void linearBlock(LinearFunction f, double x0, double step,
+                                    double[] out, int pos, int length) {
+        double y = f.evaluate(x0);
+        double dy = f.getSlopeM() * step;
+        for (int i = 0; i < length; i++) {
+            out[pos + i] = y;
+            y += dy;
+        }
+    }
+
+    /**
+     * y(i + 1) = y(i) + d1(i), d1(i + 1) = d1(i) + d2 where d2 = 2 * a * step^2
+     */
+    private static void quadraticBlock(QuadraticFunction f, double x0, double step,
+                                       double[] out, int pos, int length) {
+        double a = f.getCoefficentA();
+        double b = f.getCoefficentB();
+        double y = f.evaluate(x0);
+        double d1 = a * (2 * x0 * step + step * step) + b * step;
+        double d2 = 2 * a * step * step;
+        for (int i = 0; i < length; i++) {
+            out[pos + i] = y;
+            y += d1;
+            d1 += d2;
+        }
+    }
+
+    /**
+     * A * e^(B(x - C)) grows by the constant ratio e^(B * step) each step.
+     */
+    private static void exponentialBlock(ExponentialFunction f, double x0, double step,
+                                         double[] out, int pos, int length) {
+        double d = f.getVerticalShiftD();
+        double e = f.getVerticalStretchA() * Math.exp(f.getExponentB() * (x0 - f.getHorizontalShiftC()));
+        double ratio = Math.exp(f.getExponentB() * step);
+        for (int i = 0; i < length; i++) {
+            out[pos + i] = e + d;
+            e *= ratio;
+        }
+    }
+
+    /**
+     * Rotates (sin, cos) of the angle Bx + C by B * step each step.
+     * kind is 0 for sine, 1 for cosine and 2 for tangent.
+     *
+     * The rotation error is measured on the last (sin, cos) pair. For
+     * tangent that error is magnified by 1 / cos^2 near the poles, so the
+     * largest magnification seen in the block is folded into the estimate.
+     */
+    private static double trigBlock(int kind, double amplitude, double frequency, double phaseShift,
+                                    double verticalShift, double start, double step, int first,
+                                    double[] out, int pos, int length) {
+        double angle = frequency * (start + first * step) + phaseShift;
+        double sin = Math.sin(angle);
+        double cos = Math.cos(angle);
+        double sinStep = Math.sin(frequency * step);
+        double cosStep = Math.cos(frequency * step);
+        double magnify = 1;
+        double lastSin = sin;
+        double lastCos = cos;
+        for (int i = 0; i < length; i++) {
+            double value;
+            if (kind == 0) {
+                value = sin;
+            }
+            else if (kind == 1) {
+                value = cos;
+            }
+            else {
+                value = sin / cos;
+                magnify = Math.max(magnify, 1 / (cos * cos));
+            }
+            out[pos + i] = amplitude * value + verticalShift;
+            lastSin = sin;
+            lastCos = cos;
+
+            double nextSin = sin * cosStep + cos * sinStep;
+            cos = cos * cosStep - sin * sinStep;
+            sin = nextSin;
+        }
+
+        double lastAngle = frequency * (start + (first + length - 1) * step) + phaseShift;
+        double rotationError = Math.abs(lastSin - Math.sin(lastAngle)) + Math.abs(lastCos - Math.cos(lastAngle));
+        return Math.abs(amplitude) * rotationError * magnify;
+    }
+}
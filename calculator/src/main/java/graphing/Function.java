@@ -0,0 +1,108 @@
+package graphing;
+
+public interface Function {
+
+    // Abstract method (every function class MUST implement this)
+    
+    /**
+     * Evaluates the function at the given x-value.
+     * @param x the input value
+     * @return the output of the function at x
+     */
+    double evaluate(double x);
+
+    // Bulk methods (function classes override these with tight loops)
+
+    /**
+     * Evaluates the function at xs[offset] through xs[offset + length - 1]
+     * and stores each result at the same index of out.
+     * @param xs the input values
+     * @param out the array receiving the outputs
+     * @param offset the first index to evaluate
+     * @param length the number of values to evaluate
+     */
+    default void evaluate(double[] xs, double[] out, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            out[i] = evaluate(xs[i]);
+        }
+    }
+
+    /**
+     * Evaluates the function on the evenly spaced grid
+     * x = start + i * step for i = 0 .. count - 1, storing the
+     * i-th result at out[offset + i].
+     * @param start the first x-value of the grid
+     * @param step the spacing between grid points
+     * @param out the array receiving the outputs
+     * @param offset the index of out that receives the first result
+     * @param count the number of grid points
+     */
+    default void evaluateGrid(double start, double step, double[] out, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            out[offset + i] = evaluate(start + i * step);
+        }
+    }
+
+    // Accuracy methods (only the trigonometric functions approximate)
+
+    /**
+     * Evaluates the function at x in the given accuracy tier. Functions
+     * without fast approximations always evaluate exactly.
+     * @param x the input value
+     * @param accuracy the accuracy tier
+     * @return the (possibly approximate) output of the function at x
+     */
+    default double evaluate(double x, FastTrig.Accuracy accuracy) {
+        return evaluate(x);
+    }
+
+    /**
+     * Returns how far a value y returned by evaluate(x, accuracy) may be
+     * from the exact result.
+     * @param y the value returned by evaluate(x, accuracy)
+     * @param accuracy the accuracy tier that produced it
+     * @return the largest possible absolute error (0 when exact)
+     */
+    default double approximationError(double y, FastTrig.Accuracy accuracy) {
+        return 0;
+    }
+
+    // Interval method (function classes override this with exact ranges)
+
+    /**
+     * Returns an interval holding every value the function takes for x in
+     * [lo, hi]. This default only looks at the two ends and the middle, so
+     * it is not guaranteed to hold every value; the built-in function
+     * classes override it with exact enclosures.
+     * @param lo the lower end of the x-range
+     * @param hi the upper end of the x-range
+     * @return the range of the function over [lo, hi]
+     */
+    default Interval evaluateInterval(double lo, double hi) {
+        return Interval.between(evaluate(lo), evaluate(hi)).include(evaluate((lo + hi) / 2));
+    }
+
+    // Shape methods (function classes override these when they know the answer)
+
+    /**
+     * Returns the first pole after x: the smallest x-value greater than x
+     * where the function is undefined and runs off to infinity. Functions
+     * without poles return positive infinity.
+     * @param x the x-value to search from
+     * @return the next pole, or Double.POSITIVE_INFINITY if there is none
+     */
+    default double nextPole(double x) {
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Tells whether the function only increases or only decreases between
+     * neighboring poles (or everywhere, if it has no poles). An increasing
+     * function runs up to +infinity on the left of a pole and comes back
+     * from -infinity on its right; a decreasing one does the opposite.
+     * @return 1 if increasing, -1 if decreasing, 0 if neither or unknown
+     */
+    default int monotonicity() {
+        return 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,726 @@
+package graphing;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds the zeros, local minima and local maxima of a function, and the
+ * points where two functions meet, between minX and maxX.
+ *
+ * The built-in function families are solved with their formulas:
+ * - LinearFunction: x = -b / m, and no extrema;
+ * - QuadraticFunction: the quadratic formula, and the vertex at -b / 2a;
+ * - SineFunction and CosineFunction: asin or acos of -D / A, repeated
+ *   every period, and the peaks and troughs of the wave;
+ * - TangentFunction: atan of -D / A, repeated every period, and no extrema;
+ * - ExponentialFunction: x = C + ln(-D / A) / B, and no extrema.
+ * Two lines or parabolas, or a function and a horizontal line, meet where
+ * their difference is 0, which is solved the same way.
+ *
+ * Any other function is scanned instead. It is sampled at scanPoints
+ * evenly spaced x-values, in chunks on the fork-join pool. Between every
+ * two neighboring samples whose signs differ, the zero is found with
+ * Brent's method. Around every sample lower (or higher) than both its
+ * neighbors, the minimum (or maximum) is found with Brent's minimizer.
+ * So a scan can miss two zeros or extrema closer together than the
+ * sample spacing, and a zero where the curve only touches the x-axis
+ * without crossing it.
+ *
+ * Every method returns the x-values in increasing order.
+ */
+public class FunctionAnalyzer {
+
+    /** Default number of samples in a scan */
+    private static final int DEFAULT_SCAN_POINTS = 1 << 16;
+
+    /** Samples scanned by one fork-join task */
+    private static final int CHUNK_POINTS = 4096;
+
+    /** Most steps Brent's method takes on one bracket */
+    private static final int MAX_ITERATIONS = 200;
+
+    /** Most results a formula may list before the range is refused */
+    private static final int MAX_RESULTS = 1 << 20;
+
+    /** Distance from 1 to the next larger double */
+    private static final double EPSILON = Math.ulp(1.0);
+
+    /** Relative accuracy of a minimum: a function is flat near its minimum */
+    private static final double MINIMUM_TOLERANCE = Math.sqrt(EPSILON);
+
+    /** The part of a bracket taken by a golden-section step */
+    private static final double GOLDEN_SECTION = (3 - Math.sqrt(5)) / 2;
+
+    /** What a scan looks for */
+    private enum Target {
+        ZEROS, MINIMA
+    }
+
+    /** Number of samples in a scan */
+    private int scanPoints = DEFAULT_SCAN_POINTS;
+
+    /** Pool that scans the chunks */
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * Sets how many evenly spaced samples a scan takes. More samples find
+     * zeros and extrema that are closer together, at the cost of more
+     * evaluations.
+     *
+     * @param points Number of samples (at least 3)
+     */
+    public void setScanPoints(int points) {
+        scanPoints = Math.max(3, points);
+    }
+
+    /**
+     * Sets how many threads scan. By default the common fork-join pool is
+     * used.
+     *
+     * @param threads Number of scanning threads
+     */
+    public void setParallelism(int threads) {
+        if (pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+        pool = new ForkJoinPool(Math.max(1, threads));
+    }
+
+    /**
+     * Finds every x in [minX, maxX] where f(x) = 0. A function that is 0
+     * over a whole stretch has no separate zeros there, and none are
+     * listed.
+     *
+     * @param f The function
+     * @param minX Minimum x-value
+     * @param maxX Maximum x-value
+     * @return The zeros, in increasing order
+     */
+    public double[] zeros(Function f, double minX, double maxX) {
+        double lo = Math.min(minX, maxX);
+        double hi = checkRange(minX, maxX);
+        double[] exact = formulaZeros(f, lo, hi);
+        return exact != null ? exact : scan(f, lo, hi, Target.ZEROS);
+    }
+
+    /**
+     * Finds every local minimum of f strictly between minX and maxX.
+     *
+     * @param f The function
+     * @param minX Minimum x-value
+     * @param maxX Maximum x-value
+     * @return The x-values of the minima, in increasing order
+     */
+    public double[] minima(Function f, double minX, double maxX) {
+        double lo = Math.min(minX, maxX);
+        double hi = checkRange(minX, maxX);
+        double[] exact = formulaExtrema(f, lo, hi, false);
+        return exact != null ? exact : scan(f, lo, hi, Target.MINIMA);
+    }
+
+    /**
+     * Finds every local maximum of f strictly between minX and maxX.
+     *
+     * @param f The function
+     * @param minX Minimum x-value
+     * @param maxX Maximum x-value
+     * @return The x-values of the maxima, in increasing order
+     */
+    public double[] maxima(Function f, double minX, double maxX) {
+        double lo = Math.min(minX, maxX);
+        double hi = checkRange(minX, maxX);
+        double[] exact = formulaExtrema(f, lo, hi, true);
+        return exact != null ? exact : scan(ComposedFunction.scale(f, -1, 0), lo, hi, Target.MINIMA);
+    }
+
+    /**
+     * Finds every x in [minX, maxX] where f(x) = g(x).
+     *
+     * @param f The first function
+     * @param g The second function
+     * @param minX Minimum x-value
+     * @param maxX Maximum x-value
+     * @return The x-values where the graphs meet, in increasing order
+     */
+    public double[] intersections(Function f, Function g, double minX, double maxX) {
+        double lo = Math.min(minX, maxX);
+        double hi = checkRange(minX, maxX);
+        Function difference = formulaDifference(f, g);
+        if (difference != null) {
+            double[] exact = formulaZeros(difference, lo, hi);
+            if (exact != null) {
+                return exact;
+            }
+        }
+        return scan(ComposedFunction.subtract(f, g), lo, hi, Target.ZEROS);
+    }
+
+    /**
+     * Makes sure the range can be searched.
+     *
+     * @return The larger end of the range
+     */
+    private static double checkRange(double minX, double maxX) {
+        if (!Double.isFinite(minX) || !Double.isFinite(maxX)) {
+            throw new IllegalArgumentException("The x-range must be finite.");
+        }
+        return Math.max(minX, maxX);
+    }
+
+    // Formulas for the built-in families
+
+    /**
+     * Solves f(x) = 0 with the formula for f's family.
+     *
+     * @return The zeros, or null if f has no formula
+     */
+    private static double[] formulaZeros(Function f, double lo, double hi) {
+        DoubleList found = new DoubleList();
+        if (f instanceof LinearFunction) {
+            LinearFunction line = (LinearFunction) f;
+            addLineZero(found, line.getSlopeM(), line.getYIntB(), lo, hi);
+        }
+        else if (f instanceof QuadraticFunction) {
+            QuadraticFunction parabola = (QuadraticFunction) f;
+            double a = parabola.getCoefficentA();
+            double b = parabola.getCoefficentB();
+            double c = parabola.getCoefficentC();
+            if (a == 0) {
+                addLineZero(found, b, c, lo, hi);
+            } else {
+                double discriminant = b * b - 4 * a * c;
+                if (discriminant == 0) {
+                    addIfInside(found, -b / (2 * a), lo, hi);
+                } else if (discriminant > 0) {
+                    // Written this way so no root comes from subtracting two close numbers
+                    double q = -0.5 * (b + Math.copySign(Math.sqrt(discriminant), b));
+                    addIfInside(found, q / a, lo, hi);
+                    addIfInside(found, c / q, lo, hi);
+                }
+            }
+        }
+        else if (f instanceof SineFunction) {
+            SineFunction wave = (SineFunction) f;
+            double ratio = -wave.getVerticalShift() / wave.getAmplitude();
+            if (wave.getFrequency() != 0 && Math.abs(ratio) <= 1) {
+                double angle = Math.asin(ratio);
+                addPeriodic(found, wave.getFrequency(), wave.getPhaseShift(), angle, 2 * Math.PI, lo, hi);
+                addPeriodic(found, wave.getFrequency(), wave.getPhaseShift(), Math.PI - angle, 2 * Math.PI, lo, hi);
+            }
+        }
+        else if (f instanceof CosineFunction) {
+            CosineFunction wave = (CosineFunction) f;
+            double ratio = -wave.getVerticalShift() / wave.getAmplitude();
+            if (wave.getFrequency() != 0 && Math.abs(ratio) <= 1) {
+                double angle = Math.acos(ratio);
+                addPeriodic(found, wave.getFrequency(), wave.getPhaseShift(), angle, 2 * Math.PI, lo, hi);
+                addPeriodic(found, wave.getFrequency(), wave.getPhaseShift(), -angle, 2 * Math.PI, lo, hi);
+            }
+        }
+        else if (f instanceof TangentFunction) {
+            TangentFunction wave = (TangentFunction) f;
+            if (wave.getFrequency() != 0 && wave.getAmplitude() != 0) {
+                double angle = Math.atan(-wave.getVerticalShift() / wave.getAmplitude());
+                addPeriodic(found, wave.getFrequency(), wave.getPhaseShift(), angle, Math.PI, lo, hi);
+            }
+        }
+        else if (f instanceof ExponentialFunction) {
+            ExponentialFunction growth = (ExponentialFunction) f;
+            double ratio = -growth.getVerticalShiftD() / growth.getVerticalStretchA();
+            if (growth.getExponentB() != 0 && ratio > 0) {
+                addIfInside(found, growth.getHorizontalShiftC() + Math.log(ratio) / growth.getExponentB(), lo, hi);
+            }
+        }
+        else {
+            return null;
+        }
+        return found.toSortedArray();
+    }
+
+    /**
+     * Finds the maxima or minima of f with the formula for f's family.
+     *
+     * @return The extrema, or null if f has no formula
+     */
+    private static double[] formulaExtrema(Function f, double lo, double hi, boolean maxima) {
+        DoubleList found = new DoubleList();
+        if (f instanceof LinearFunction || f instanceof TangentFunction || f instanceof ExponentialFunction) {
+            return found.toSortedArray(); // these only rise or fall
+        }
+        if (f instanceof QuadraticFunction) {
+            QuadraticFunction parabola = (QuadraticFunction) f;
+            double a = parabola.getCoefficentA();
+            // The vertex is a minimum when the parabola opens upward
+            if (a != 0 && (a < 0) == maxima) {
+                addIfStrictlyInside(found, -parabola.getCoefficentB() / (2 * a), lo, hi);
+            }
+        }
+        else if (f instanceof SineFunction) {
+            SineFunction wave = (SineFunction) f;
+            if (wave.getFrequency() != 0 && wave.getAmplitude() != 0) {
+                // sin peaks at pi/2 and bottoms out at -pi/2; a negative A swaps them
+                double angle = (wave.getAmplitude() > 0) == maxima ? Math.PI / 2 : -Math.PI / 2;
+                addPeriodic(found, wave.getFrequency(), wave.getPhaseShift(), angle, 2 * Math.PI, lo, hi);
+            }
+        }
+        else if (f instanceof CosineFunction) {
+            CosineFunction wave = (CosineFunction) f;
+            if (wave.getFrequency() != 0 && wave.getAmplitude() != 0) {
+                double angle = (wave.getAmplitude() > 0) == maxima ? 0 : Math.PI;
+                addPeriodic(found, wave.getFrequency(), wave.getPhaseShift(), angle, 2 * Math.PI, lo, hi);
+            }
+        }
+        else {
+            return null;
+        }
+        double[] extrema = found.toSortedArray();
+        // Extrema are local, so a peak exactly at minX or maxX does not count
+        int from = extrema.length > 0 && extrema[0] == lo ? 1 : 0;
+        int to = extrema.length > from && extrema[extrema.length - 1] == hi ? extrema.length - 1 : extrema.length;
+        return Arrays.copyOfRange(extrema, from, to);
+    }
+
+    /**
+     * Writes f - g as a single built-in function when there is a formula
+     * for it: two polynomials of degree two or less, or any built-in
+     * family and a horizontal line.
+     *
+     * @return f - g, or null if it has no formula
+     */
+    private static Function formulaDifference(Function f, Function g) {
+        double[] p = polynomial(f);
+        double[] q = polynomial(g);
+        if (p != null && q != null) {
+            return new QuadraticFunction(p[0] - q[0], p[1] - q[1], p[2] - q[2]);
+        }
+        if (q != null && q[0] == 0 && q[1] == 0) {
+            return shift(f, -q[2]);
+        }
+        if (p != null && p[0] == 0 && p[1] == 0) {
+            return shift(g, -p[2]); // g - c has the same zeros as c - g
+        }
+        return null;
+    }
+
+    /**
+     * Returns the coefficients {a, b, c} of a line or parabola
+     * ax^2 + bx + c, or null for any other function.
+     */
+    private static double[] polynomial(Function f) {
+        if (f instanceof LinearFunction) {
+            LinearFunction line = (LinearFunction) f;
+            return new double[] { 0, line.getSlopeM(), line.getYIntB() };
+        }
+        if (f instanceof QuadraticFunction) {
+            QuadraticFunction parabola = (QuadraticFunction) f;
+            return new double[] { parabola.getCoefficentA(), parabola.getCoefficentB(), parabola.getCoefficentC() };
+        }
+        return null;
+    }
+
+    /**
+     * Returns f moved up by offset as the same kind of function, or null if
+     * f is not a family with a vertical shift.
+     */
+    private static Function shift(Function f, double offset) {
+        if (f instanceof SineFunction) {
+            SineFunction wave = (SineFunction) f;
+            return new SineFunction(wave.getAmplitude(), wave.getFrequency(), wave.getPhaseShift(),
+                    wave.getVerticalShift() + offset);
+        }
+        if (f instanceof CosineFunction) {
+            CosineFunction wave = (CosineFunction) f;
+            return new CosineFunction(wave.getAmplitude(), wave.getFrequency(), wave.getPhaseShift(),
+                    wave.getVerticalShift() + offset);
+        }
+        if (f instanceof TangentFunction) {
+            TangentFunction wave = (TangentFunction) f;
+            return new TangentFunction(wave.getAmplitude(), wave.getFrequency(), wave.getPhaseShift(),
+                    wave.getVerticalShift() + offset);
+        }
+        if (f instanceof ExponentialFunction) {
+            ExponentialFunction growth = (ExponentialFunction) f;
+            return new ExponentialFunction(growth.getVerticalStretchA(), growth.getExponentB(),
+                    growth.getHorizontalShiftC(), growth.getVerticalShiftD() + offset);
+        }
+        return null;
+    }
+
+    /**
+     * Adds the zero of the line mx + b, if it has exactly one.
+     */
+    private static void addLineZero(DoubleList found, double m, double b, double lo, double hi) {
+        if (m != 0) {
+            addIfInside(found, -b / m, lo, hi);
+        }
+    }
+
+    /**
+     * Adds every x in [lo, hi] where Bx + C = angle + k * period for some
+     * whole number k.
+     */
+    private static void addPeriodic(DoubleList found, double frequency, double phaseShift, double angle,
+                                    double period, double lo, double hi) {
+        double from = Math.min(frequency * lo, frequency * hi) + phaseShift;
+        double to = Math.max(frequency * lo, frequency * hi) + phaseShift;
+        double first = Math.ceil((from - angle) / period);
+        double last = Math.floor((to - angle) / period);
+        if (last - first + found.size >= MAX_RESULTS) {
+            throw new IllegalArgumentException("Too many points to list between " + lo + " and " + hi + ".");
+        }
+        for (double k = first; k <= last; k++) {
+            addIfInside(found, (angle + k * period - phaseShift) / frequency, lo, hi);
+        }
+    }
+
+    private static void addIfInside(DoubleList found, double x, double lo, double hi) {
+        if (x >= lo && x <= hi) {
+            found.add(x);
+        }
+    }
+
+    private static void addIfStrictlyInside(DoubleList found, double x, double lo, double hi) {
+        if (x > lo && x < hi) {
+            found.add(x);
+        }
+    }
+
+    // Scanning for any other function
+
+    /**
+     * Samples f across [lo, hi] and narrows down every zero or minimum the
+     * samples reveal.
+     *
+     * @return The x-values found, in increasing order
+     */
+    private double[] scan(Function f, double lo, double hi, Target target) {
+        int points = scanPoints;
+        double step = (hi - lo) / (points - 1);
+        if (!(step > 0)) {
+            // A single x-value: it is a zero or nothing
+            return target == Target.ZEROS && f.evaluate(lo) == 0 ? new double[] { lo } : new double[0];
+        }
+        // Zeros are found to within a few rounding steps of the largest x
+        double tolerance = 2 * Math.ulp(Math.max(Math.abs(lo), Math.abs(hi)));
+        ScanTask task = new ScanTask(f, lo, step, points, tolerance, target, 0, points);
+        DoubleList found = points <= CHUNK_POINTS ? task.compute() : pool.invoke(task);
+
+        // Neighboring chunks may both report a zero that sits on their shared sample
+        double[] xs = found.toSortedArray();
+        int count = 0;
+        for (int i = 0; i < xs.length; i++) {
+            if (count == 0 || xs[i] - xs[count - 1] > step * 1e-6) {
+                xs[count++] = xs[i];
+            }
+        }
+        return Arrays.copyOf(xs, count);
+    }
+
+    /**
+     * A run of samples scanned as one fork-join task. Runs longer than
+     * CHUNK_POINTS are split in half and scanned in parallel.
+     */
+    private static class ScanTask extends RecursiveTask<DoubleList> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Function f;
+        private final double lo;
+        private final double step;
+        private final int points;
+        private final double tolerance;
+        private final Target target;
+        private final int from;
+        private final int to;
+
+        ScanTask(Function f, double lo, double step, int points, double tolerance, Target target,
+                 int from, int to) {
+            this.f = f;
+            this.lo = lo;
+            this.step = step;
+            this.points = points;
+            this.tolerance = tolerance;
+            this.target = target;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected DoubleList compute() {
+            if (to - from <= CHUNK_POINTS) {
+                return scanChunk();
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask right = new ScanTask(f, lo, step, points, tolerance, target, middle, to);
+            right.fork();
+            DoubleList found = new ScanTask(f, lo, step, points, tolerance, target, from, middle).compute();
+            found.addAll(right.join());
+            return found;
+        }
+
+        /**
+         * Looks at samples from through to - 1, each with its neighbors.
+         * A zero between samples i and i + 1 belongs to sample i, so every
+         * gap is searched by exactly one chunk.
+         */
+        private DoubleList scanChunk() {
+            int first = Math.max(0, from - 1);
+            int last = Math.min(points - 1, to);
+            double start = lo + first * step;
+            double[] ys = new double[last - first + 1];
+            f.evaluateGrid(start, step, ys, 0, ys.length);
+
+            DoubleList found = new DoubleList();
+            for (int i = from; i < to; i++) {
+                int j = i - first;
+                double x = start + j * step;
+                double y = ys[j];
+                if (target == Target.ZEROS) {
+                    if (y == 0) {
+                        found.add(x);
+                    } else if (j + 1 < ys.length && ((y < 0 && ys[j + 1] > 0) || (y > 0 && ys[j + 1] < 0))) {
+                        double root = findZero(f, x, x + step, tolerance);
+                        if (!Double.isNaN(root)) {
+                            found.add(root);
+                        }
+                    }
+                } else if (j > 0 && j + 1 < ys.length && y < ys[j - 1] && y <= ys[j + 1]) {
+                    double minimum = findMinimum(f, x - step, x, x + step, y, tolerance);
+                    // A smooth minimum lies a little below the lowest sample at most
+                    // (a parabola: an eighth of the rise to its neighbors); near a
+                    // pole the function keeps falling, which is no minimum at all
+                    if (!Double.isNaN(minimum)
+                            && y - f.evaluate(minimum) <= 4 * (Math.max(ys[j - 1], ys[j + 1]) - y)) {
+                        found.add(minimum);
+                    }
+                }
+            }
+            return found;
+        }
+    }
+
+    /**
+     * Finds the zero of f between a and b with Brent's method, which
+     * combines inverse quadratic interpolation and the secant method with
+     * bisection: it converges quickly on smooth functions and never more
+     * slowly than bisection.
+     *
+     * @param f The function, which changes sign between a and b
+     * @param a One end of the bracket
+     * @param b The other end of the bracket
+     * @param tolerance Smallest step worth taking
+     * @return The zero, or NaN if the sign change was a pole rather than a zero
+     */
+    private static double findZero(Function f, double a, double b, double tolerance) {
+        double fa = f.evaluate(a);
+        double fb = f.evaluate(b);
+        if (fa == 0) {
+            return a;
+        }
+        if (fb == 0) {
+            return b;
+        }
+        if ((fa < 0) == (fb < 0) || Double.isNaN(fa) || Double.isNaN(fb)) {
+            return Double.NaN;
+        }
+        double limit = Math.min(Math.abs(fa), Math.abs(fb));
+
+        // b is the best guess so far, c is on the other side of the zero
+        double c = a;
+        double fc = fa;
+        double d = b - a;
+        double e = d;
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            if ((fb < 0) == (fc < 0)) {
+                c = a;
+                fc = fa;
+                d = b - a;
+                e = d;
+            }
+            if (Math.abs(fc) < Math.abs(fb)) {
+                a = b;
+                b = c;
+                c = a;
+                fa = fb;
+                fb = fc;
+                fc = fa;
+            }
+            double tol = 2 * EPSILON * Math.abs(b) + 0.5 * tolerance;
+            double half = 0.5 * (c - b);
+            if (Math.abs(half) <= tol || fb == 0) {
+                break;
+            }
+
+            if (Math.abs(e) >= tol && Math.abs(fa) > Math.abs(fb)) {
+                // Try interpolating: a secant through two points, or a parabola through three
+                double s = fb / fa;
+                double p;
+                double q;
+                if (a == c) {
+                    p = 2 * half * s;
+                    q = 1 - s;
+                } else {
+                    double r = fb / fc;
+                    q = fa / fc;
+                    p = s * (2 * half * q * (q - r) - (b - a) * (r - 1));
+                    q = (q - 1) * (r - 1) * (s - 1);
+                }
+                if (p > 0) {
+                    q = -q;
+                }
+                p = Math.abs(p);
+                if (2 * p < Math.min(3 * half * q - Math.abs(tol * q), Math.abs(e * q))) {
+                    e = d;
+                    d = p / q;
+                } else {
+                    d = half; // the interpolation strayed, so bisect
+                    e = d;
+                }
+            } else {
+                d = half;
+                e = d;
+            }
+            a = b;
+            fa = fb;
+            b += Math.abs(d) > tol ? d : Math.copySign(tol, half);
+            fb = f.evaluate(b);
+        }
+
+        // Near a pole the function grows instead of shrinking toward 0
+        return Math.abs(fb) <= limit ? b : Double.NaN;
+    }
+
+    /**
+     * Finds the minimum of f between a and c with Brent's minimizer, which
+     * fits a parabola through its three best points and falls back to
+     * golden-section steps when the parabola cannot be trusted.
+     *
+     * @param f The function
+     * @param a Left end of the bracket
+     * @param b A point between a and c lower than both
+     * @param c Right end of the bracket
+     * @param fb f(b)
+     * @param floor Smallest step worth taking
+     * @return The x-value of the minimum, or NaN if the function is not finite there
+     */
+    private static double findMinimum(Function f, double a, double b, double c, double fb, double floor) {
+        double lo = Math.min(a, c);
+        double hi = Math.max(a, c);
+
+        // x is the lowest point so far, w the second lowest, v the previous w
+        double x = b;
+        double w = b;
+        double v = b;
+        double fx = fb;
+        double fw = fb;
+        double fv = fb;
+        double d = 0;
+        double e = 0;
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double middle = 0.5 * (lo + hi);
+            double tol = MINIMUM_TOLERANCE * Math.abs(x) + floor;
+            if (Math.abs(x - middle) <= 2 * tol - 0.5 * (hi - lo)) {
+                break;
+            }
+
+            boolean golden = true;
+            if (Math.abs(e) > tol) {
+                // Parabola through x, w and v
+                double r = (x - w) * (fx - fv);
+                double q = (x - v) * (fx - fw);
+                double p = (x - v) * q - (x - w) * r;
+                q = 2 * (q - r);
+                if (q > 0) {
+                    p = -p;
+                }
+                q = Math.abs(q);
+                double previous = e;
+                e = d;
+                if (Math.abs(p) < Math.abs(0.5 * q * previous) && p > q * (lo - x) && p < q * (hi - x)) {
+                    d = p / q;
+                    double u = x + d;
+                    if (u - lo < 2 * tol || hi - u < 2 * tol) {
+                        d = Math.copySign(tol, middle - x);
+                    }
+                    golden = false;
+                }
+            }
+            if (golden) {
+                e = x >= middle ? lo - x : hi - x;
+                d = GOLDEN_SECTION * e;
+            }
+
+            double u = Math.abs(d) >= tol ? x + d : x + Math.copySign(tol, d);
+            double fu = f.evaluate(u);
+            if (fu <= fx) {
+                if (u >= x) {
+                    lo = x;
+                } else {
+                    hi = x;
+                }
+                v = w;
+                fv = fw;
+                w = x;
+                fw = fx;
+                x = u;
+                fx = fu;
+            } else {
+                if (u < x) {
+                    lo = u;
+                } else {
+                    hi = u;
+                }
+                if (fu <= fw || w == x) {
+                    v = w;
+                    fv = fw;
+                    w = u;
+                    fw = fu;
+                } else if (fu <= fv || v == x || v == w) {
+                    v = u;
+                    fv = fu;
+                }
+            }
+        }
+        return Double.isFinite(fx) ? x : Double.NaN;
+    }
+
+    /**
+     * A growing list of doubles, kept in a plain array.
+     */
+    private static class DoubleList {
+
+        private double[] values = new double[16];
+        private int size;
+
+        void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(DoubleList other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+
+        /**
+         * Returns the values in increasing order, without repeats.
+         */
+        double[] toSortedArray() {
+            double[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            int count = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (count == 0 || sorted[i] != sorted[count - 1]) {
+                    sorted[count++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, count);
+        }
+    }
+}
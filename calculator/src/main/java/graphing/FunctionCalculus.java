@@ -0,0 +1,661 @@
+package graphing;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds definite integrals and derivatives of a function, each with an
+ * estimate of its error.
+ *
+ * The built-in function families are integrated and differentiated with
+ * their formulas:
+ * - LinearFunction and QuadraticFunction: the power rule;
+ * - SineFunction and CosineFunction: -A/B cos(Bx + C) and A/B sin(Bx + C),
+ *   written as a product of sines so a fast wave over a long range loses
+ *   no digits to cancellation;
+ * - TangentFunction: -A/B ln|cos(Bx + C)|, when no pole is in the range;
+ * - ExponentialFunction: A/B e^(B(x - C)).
+ * Their errors are the rounding errors of the formula.
+ *
+ * Any other function is integrated with the 15-point Gauss-Kronrod rule.
+ * The range is cut into PANELS equal panels, which are measured in chunks
+ * on the fork-join pool. Every panel whose error is above its share of the
+ * tolerance is then halved again and again, each half measured with the
+ * same rule, until every piece is accurate enough. The pieces still to be
+ * measured are kept as pairs of ends in a plain double array, and the
+ * panels are added up in order at the end, so the result is the same for
+ * any number of threads.
+ *
+ * Any other function is differentiated with Ridders' method: central
+ * differences with shrinking steps, combined by Richardson extrapolation
+ * until the answer stops improving.
+ */
+public class FunctionCalculus {
+
+    /** Default relative accuracy of an integral */
+    private static final double DEFAULT_TOLERANCE = 1e-10;
+
+    /** Equal panels the range of an integral is first cut into */
+    private static final int PANELS = 256;
+
+    /** Panels measured by one fork-join task */
+    private static final int CHUNK_PANELS = 16;
+
+    /** Most pieces one panel is cut into before its error is accepted */
+    private static final int MAX_PIECES = 1 << 14;
+
+    /** Most steps in the table of Ridders' method (the last is 1.4^39, about 500000, times smaller than the first) */
+    private static final int DERIVATIVE_STEPS = 40;
+
+    /** Factor the step shrinks by in Ridders' method */
+    private static final double STEP_SHRINK = 1.4;
+
+    /** How much worse an extrapolation may get before Ridders' method stops */
+    private static final double SAFE = 2;
+
+    /** Relative error below which Ridders' method may stop */
+    private static final double SETTLED = 1e-8;
+
+    /** Distance from 1 to the next larger double */
+    private static final double EPSILON = Math.ulp(1.0);
+
+    /** Rounding error of a rule, relative to the integral of |f| */
+    private static final double ROUNDING = 50 * EPSILON;
+
+    /** Most times the panels are refined as the size of the integral becomes clearer */
+    private static final int MAX_PASSES = 3;
+
+    /** Nodes of the 15-point Kronrod rule on [-1, 1]; the odd ones are the 7-point Gauss nodes */
+    private static final double[] KRONROD_NODES = {
+        0.991455371120812639206854697526329, 0.949107912342758524526189684047851,
+        0.864864423359769072789712788640926, 0.741531185599394439863864773280788,
+        0.586087235467691130294144845693013, 0.405845151377397166906606412076961,
+        0.207784955007898467600689403773245, 0.000000000000000000000000000000000
+    };
+
+    /** Weights of the 15-point Kronrod rule */
+    private static final double[] KRONROD_WEIGHTS = {
+        0.022935322010529224963732008058970, 0.063092092629978553290700663189204,
+        0.104790010322250183839876322541518, 0.140653259715525918745189590510238,
+        0.169004726639267902826583426598550, 0.190350578064785409913256402421014,
+        0.204432940075298892414161999234649, 0.209482141084727828012999174891714
+    };
+
+    /** Weights of the 7-point Gauss rule */
+    private static final double[] GAUSS_WEIGHTS = {
+        0.129484966168869693270611432679082, 0.279705391489276667901467771423780,
+        0.381830050505118944950369775488975, 0.417959183673469387755102040816327
+    };
+
+    /** Relative accuracy asked of integrals */
+    private double tolerance = DEFAULT_TOLERANCE;
+
+    /** Pool that measures the panels */
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * Sets the relative accuracy integrals are found to. An integral
+     * whose positive and negative parts nearly cancel can only be found to
+     * within the rounding error of the parts.
+     *
+     * @param relative Relative accuracy (at least 50 times the double precision)
+     */
+    public void setTolerance(double relative) {
+        tolerance = Math.max(ROUNDING, relative);
+    }
+
+    /**
+     * Sets how many threads measure the panels of an integral. By default
+     * the common fork-join pool is used.
+     *
+     * @param threads Number of threads
+     */
+    public void setParallelism(int threads) {
+        if (pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+        pool = new ForkJoinPool(Math.max(1, threads));
+    }
+
+    /**
+     * Finds the integral of f from a to b. If b is less than a the integral
+     * is negative of the one from b to a. An integral across a pole of f
+     * does not exist; its value is NaN and its error infinite.
+     *
+     * @param f The function
+     * @param a Lower end
+     * @param b Upper end
+     * @return The integral and its error
+     */
+    public Estimate integrate(Function f, double a, double b) {
+        if (!Double.isFinite(a) || !Double.isFinite(b)) {
+            throw new IllegalArgumentException("The x-range must be finite.");
+        }
+        if (a == b) {
+            return new Estimate(0, 0, 0);
+        }
+        double lo = Math.min(a, b);
+        double hi = Math.max(a, b);
+        Estimate result;
+        if (f.nextPole(Math.nextDown(lo)) <= hi) {
+            result = new Estimate(Double.NaN, Double.POSITIVE_INFINITY, 0);
+        } else {
+            result = formulaIntegral(f, lo, hi);
+            if (result == null) {
+                result = adaptiveIntegral(f, lo, hi);
+            }
+        }
+        return a < b ? result : new Estimate(-result.value, result.error, result.evaluations);
+    }
+
+    /**
+     * Finds the slope of f at x.
+     *
+     * @param f The function
+     * @param x The x-value
+     * @return The derivative and its error
+     */
+    public Estimate derivative(Function f, double x) {
+        if (!Double.isFinite(x)) {
+            throw new IllegalArgumentException("The x-value must be finite.");
+        }
+        Estimate exact = formulaDerivative(f, x);
+        return exact != null ? exact : riddersDerivative(f, x);
+    }
+
+    // Formulas for the built-in families
+
+    /**
+     * Integrates f over [lo, hi] with the formula for f's family. The
+     * caller has made sure no pole is in the range.
+     *
+     * @return The integral, or null if f has no formula
+     */
+    private static Estimate formulaIntegral(Function f, double lo, double hi) {
+        double width = hi - lo;
+        if (f instanceof LinearFunction) {
+            LinearFunction line = (LinearFunction) f;
+            return polynomialIntegral(0, line.getSlopeM(), line.getYIntB(), lo, hi);
+        }
+        if (f instanceof QuadraticFunction) {
+            QuadraticFunction parabola = (QuadraticFunction) f;
+            return polynomialIntegral(parabola.getCoefficentA(), parabola.getCoefficentB(),
+                    parabola.getCoefficentC(), lo, hi);
+        }
+        if (f instanceof SineFunction || f instanceof CosineFunction) {
+            boolean sine = f instanceof SineFunction;
+            double a = sine ? ((SineFunction) f).getAmplitude() : ((CosineFunction) f).getAmplitude();
+            double b = sine ? ((SineFunction) f).getFrequency() : ((CosineFunction) f).getFrequency();
+            double c = sine ? ((SineFunction) f).getPhaseShift() : ((CosineFunction) f).getPhaseShift();
+            double d = sine ? ((SineFunction) f).getVerticalShift() : ((CosineFunction) f).getVerticalShift();
+            double shift = d * width;
+            if (b == 0) {
+                double y = (sine ? a * Math.sin(c) : a * Math.cos(c)) + d;
+                return new Estimate(y * width, 4 * EPSILON * Math.abs(y * width), 0);
+            }
+            // cos(q) - cos(p) = -2 sin((p + q) / 2) sin((q - p) / 2), and the same for sin,
+            // so the two ends are never subtracted
+            double middle = b * (lo + hi) / 2 + c;
+            double half = b * width / 2;
+            double wave = 2 * a / b * Math.sin(half) * (sine ? Math.sin(middle) : Math.cos(middle));
+            double rounding = Math.abs(2 * a / b) * (Math.ulp(middle) + Math.ulp(half) + 4 * EPSILON);
+            return new Estimate(wave + shift, rounding + 4 * EPSILON * Math.abs(shift), 0);
+        }
+        if (f instanceof TangentFunction) {
+            TangentFunction wave = (TangentFunction) f;
+            double a = wave.getAmplitude();
+            double b = wave.getFrequency();
+            double c = wave.getPhaseShift();
+            double shift = wave.getVerticalShift() * width;
+            if (b == 0) {
+                double area = (a * Math.tan(c)) * width + shift;
+                return new Estimate(area, 4 * EPSILON * Math.abs(area), 0);
+            }
+            double startAngle = b * lo + c;
+            double endAngle = b * hi + c;
+            double area = -a / b * Math.log(Math.abs(Math.cos(endAngle) / Math.cos(startAngle)));
+            // An error in an angle changes ln|cos| by tan times that error
+            double rounding = Math.abs(a / b) * (Math.abs(Math.tan(startAngle)) * Math.ulp(startAngle)
+                    + Math.abs(Math.tan(endAngle)) * Math.ulp(endAngle) + 4 * EPSILON);
+            return new Estimate(area + shift, rounding + 4 * EPSILON * Math.abs(area + shift), 0);
+        }
+        if (f instanceof ExponentialFunction) {
+            ExponentialFunction growth = (ExponentialFunction) f;
+            double a = growth.getVerticalStretchA();
+            double b = growth.getExponentB();
+            double c = growth.getHorizontalShiftC();
+            double shift = growth.getVerticalShiftD() * width;
+            if (b == 0) {
+                double area = a * width + shift;
+                return new Estimate(area, 4 * EPSILON * Math.abs(area), 0);
+            }
+            // expm1 keeps the digits of e^(B width) - 1 when B width is small
+            double start = b * (lo - c);
+            double area = a / b * Math.exp(start) * Math.expm1(b * width);
+            double rounding = Math.abs(area) * (Math.ulp(start) + 4 * EPSILON);
+            return new Estimate(area + shift, rounding + 4 * EPSILON * Math.abs(shift), 0);
+        }
+        return null;
+    }
+
+    /**
+     * Integrates ax^2 + bx + c over [lo, hi].
+     */
+    private static Estimate polynomialIntegral(double a, double b, double c, double lo, double hi) {
+        double width = hi - lo;
+        double square = lo * lo + lo * hi + hi * hi;
+        double area = width * (a * square / 3 + b * (lo + hi) / 2 + c);
+        double size = Math.abs(width) * (Math.abs(a) * (lo * lo + Math.abs(lo * hi) + hi * hi) / 3
+                + Math.abs(b) * (Math.abs(lo) + Math.abs(hi)) / 2 + Math.abs(c));
+        return new Estimate(area, 8 * EPSILON * size, 0);
+    }
+
+    /**
+     * Differentiates f at x with the formula for f's family.
+     *
+     * @return The derivative, or null if f has no formula
+     */
+    private static Estimate formulaDerivative(Function f, double x) {
+        if (f instanceof LinearFunction) {
+            return new Estimate(((LinearFunction) f).getSlopeM(), 0, 0);
+        }
+        if (f instanceof QuadraticFunction) {
+            QuadraticFunction parabola = (QuadraticFunction) f;
+            double rise = 2 * parabola.getCoefficentA() * x;
+            double b = parabola.getCoefficentB();
+            return new Estimate(rise + b, 2 * EPSILON * (Math.abs(rise) + Math.abs(b)), 0);
+        }
+        if (f instanceof SineFunction || f instanceof CosineFunction) {
+            boolean sine = f instanceof SineFunction;
+            double a = sine ? ((SineFunction) f).getAmplitude() : ((CosineFunction) f).getAmplitude();
+            double b = sine ? ((SineFunction) f).getFrequency() : ((CosineFunction) f).getFrequency();
+            double c = sine ? ((SineFunction) f).getPhaseShift() : ((CosineFunction) f).getPhaseShift();
+            double angle = b * x + c;
+            double slope = sine ? a * b * Math.cos(angle) : -a * b * Math.sin(angle);
+            return new Estimate(slope, Math.abs(a * b) * (Math.ulp(angle) + 2 * EPSILON), 0);
+        }
+        if (f instanceof TangentFunction) {
+            TangentFunction wave = (TangentFunction) f;
+            double a = wave.getAmplitude();
+            double b = wave.getFrequency();
+            double angle = b * x + wave.getPhaseShift();
+            double cos = Math.cos(angle);
+            double slope = a * b / (cos * cos);
+            // 1 / cos^2 changes by 2 tan / cos^2 times an error in the angle
+            double rounding = Math.abs(slope) * (2 * Math.abs(Math.tan(angle)) * Math.ulp(angle) + 4 * EPSILON);
+            return new Estimate(slope, rounding, 0);
+        }
+        if (f instanceof ExponentialFunction) {
+            ExponentialFunction growth = (ExponentialFunction) f;
+            double b = growth.getExponentB();
+            double power = b * (x - growth.getHorizontalShiftC());
+            double slope = growth.getVerticalStretchA() * b * Math.exp(power);
+            return new Estimate(slope, Math.abs(slope) * (Math.ulp(power) + 3 * EPSILON), 0);
+        }
+        return null;
+    }
+
+    // Adaptive integration
+
+    /**
+     * Integrates f over [lo, hi] with the Gauss-Kronrod rule, cutting the
+     * range into pieces until each is accurate enough.
+     */
+    private Estimate adaptiveIntegral(Function f, double lo, double hi) {
+        double panelWidth = (hi - lo) / PANELS;
+        double[] values = new double[PANELS];
+        double[] errors = new double[PANELS];
+        double[] magnitudes = new double[PANELS];
+        long[] evaluations = new long[PANELS];
+
+        // First measure every panel once, to learn the size of the integral
+        pool.invoke(new PanelTask(f, lo, hi, panelWidth, -1, values, errors, magnitudes, evaluations,
+                0, PANELS));
+        double total = sum(values);
+        double magnitude = sum(magnitudes);
+
+        // Then refine the panels that fall short of their share of the tolerance. A coarse
+        // first guess of a fast wave can be far too large, so refine again while it shrinks.
+        double allowed = Double.POSITIVE_INFINITY;
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            double wanted = Math.max(tolerance * Math.abs(total), ROUNDING * magnitude);
+            if (!(wanted < allowed)) {
+                break;
+            }
+            allowed = wanted;
+            pool.invoke(new PanelTask(f, lo, hi, panelWidth, allowed / (hi - lo), values, errors,
+                    magnitudes, evaluations, 0, PANELS));
+            total = sum(values);
+        }
+
+        long count = 0;
+        for (long panelEvaluations : evaluations) {
+            count += panelEvaluations;
+        }
+        double value = sum(values);
+        double error = sum(errors);
+        return new Estimate(value, Double.isFinite(value) ? error : Double.POSITIVE_INFINITY, count);
+    }
+
+    /**
+     * Adds up values in order, carrying the rounding error of each addition
+     * (Neumaier's summation).
+     */
+    private static double sum(double[] values) {
+        double sum = 0;
+        double carry = 0;
+        for (double value : values) {
+            double next = sum + value;
+            if (Math.abs(sum) >= Math.abs(value)) {
+                carry += (sum - next) + value;
+            } else {
+                carry += (value - next) + sum;
+            }
+            sum = next;
+        }
+        return sum + carry;
+    }
+
+    /**
+     * A run of panels measured as one fork-join task. Runs longer than
+     * CHUNK_PANELS are split in half and measured in parallel.
+     *
+     * With a negative allowedPerWidth every panel is measured once with
+     * the rule. Otherwise only the panels whose error is above
+     * allowedPerWidth times their width are measured again, in pieces.
+     */
+    private static class PanelTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Function f;
+        private final double lo;
+        private final double hi;
+        private final double panelWidth;
+        private final double allowedPerWidth;
+        private final double[] values;
+        private final double[] errors;
+        private final double[] magnitudes;
+        private final long[] evaluations;
+        private final int from;
+        private final int to;
+
+        PanelTask(Function f, double lo, double hi, double panelWidth, double allowedPerWidth,
+                  double[] values, double[] errors, double[] magnitudes, long[] evaluations,
+                  int from, int to) {
+            this.f = f;
+            this.lo = lo;
+            this.hi = hi;
+            this.panelWidth = panelWidth;
+            this.allowedPerWidth = allowedPerWidth;
+            this.values = values;
+            this.errors = errors;
+            this.magnitudes = magnitudes;
+            this.evaluations = evaluations;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK_PANELS) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new PanelTask(f, lo, hi, panelWidth, allowedPerWidth, values, errors,
+                                magnitudes, evaluations, from, middle),
+                        new PanelTask(f, lo, hi, panelWidth, allowedPerWidth, values, errors,
+                                magnitudes, evaluations, middle, to));
+                return;
+            }
+            KronrodRule rule = new KronrodRule();
+            for (int i = from; i < to; i++) {
+                double start = lo + i * panelWidth;
+                double end = i == PANELS - 1 ? hi : lo + (i + 1) * panelWidth;
+                if (allowedPerWidth < 0) {
+                    rule.apply(f, start, end);
+                    values[i] = rule.value;
+                    errors[i] = rule.error;
+                    magnitudes[i] = rule.magnitude;
+                    evaluations[i] = 15;
+                } else if (!accurate(errors[i], magnitudes[i], end - start, allowedPerWidth)) {
+                    refine(rule, i, start, end);
+                }
+            }
+        }
+
+        /**
+         * Measures a panel again as a set of pieces, halving every piece
+         * whose error is above its share until all are accurate enough or
+         * the panel has MAX_PIECES pieces.
+         */
+        private void refine(KronrodRule rule, int panel, double start, double end) {
+            // Pieces still to measure, as (start, end) pairs; the panel itself already failed
+            double[] pending = new double[64];
+            double middle = start + (end - start) / 2;
+            pending[0] = start;
+            pending[1] = middle;
+            pending[2] = middle;
+            pending[3] = end;
+            int size = 4;
+            int pieces = 2;
+
+            double value = 0;
+            double carry = 0;
+            double error = 0;
+            double magnitude = 0;
+            long count = evaluations[panel];
+            while (size > 0) {
+                double pieceEnd = pending[--size];
+                double pieceStart = pending[--size];
+                rule.apply(f, pieceStart, pieceEnd);
+                count += 15;
+
+                double half = pieceStart + (pieceEnd - pieceStart) / 2;
+                boolean accurate = accurate(rule.error, rule.magnitude, pieceEnd - pieceStart, allowedPerWidth);
+                boolean hopeless = !Double.isFinite(rule.value) || pieces >= MAX_PIECES
+                        || half <= pieceStart || half >= pieceEnd;
+                if (accurate || hopeless) {
+                    double next = value + rule.value;
+                    carry += Math.abs(value) >= Math.abs(rule.value)
+                            ? (value - next) + rule.value : (rule.value - next) + value;
+                    value = next;
+                    error += rule.error;
+                    magnitude += rule.magnitude;
+                } else {
+                    if (size + 4 > pending.length) {
+                        pending = Arrays.copyOf(pending, pending.length * 2);
+                    }
+                    pending[size++] = pieceStart;
+                    pending[size++] = half;
+                    pending[size++] = half;
+                    pending[size++] = pieceEnd;
+                    pieces++;
+                }
+            }
+            values[panel] = value + carry;
+            errors[panel] = error;
+            magnitudes[panel] = magnitude;
+            evaluations[panel] = count;
+        }
+
+        /**
+         * Tells whether a piece is accurate enough: its error is within its
+         * share of the tolerance, or is no more than rounding error.
+         */
+        private static boolean accurate(double error, double magnitude, double width, double allowedPerWidth) {
+            return error <= allowedPerWidth * width || error <= 2 * ROUNDING * magnitude;
+        }
+    }
+
+    /**
+     * The 15-point Gauss-Kronrod rule with its embedded 7-point Gauss rule.
+     * Each thread keeps one, so measuring a piece allocates nothing.
+     */
+    private static class KronrodRule {
+
+        /** Values at the nodes left and right of the center */
+        private final double[] left = new double[7];
+        private final double[] right = new double[7];
+
+        /** Integral over the last piece measured */
+        double value;
+
+        /** Error estimate of value */
+        double error;
+
+        /** Integral of |f| over the last piece measured */
+        double magnitude;
+
+        /**
+         * Measures the integral of f over [a, b]. The error estimate is the
+         * difference between the Kronrod and Gauss results, scaled the way
+         * QUADPACK does, and never below the rounding error of the sum.
+         */
+        void apply(Function f, double a, double b) {
+            double center = (a + b) / 2;
+            double halfWidth = (b - a) / 2;
+            double centerValue = f.evaluate(center);
+            double gauss = centerValue * GAUSS_WEIGHTS[3];
+            double kronrod = centerValue * KRONROD_WEIGHTS[7];
+            double absolute = Math.abs(kronrod);
+            for (int j = 0; j < 7; j++) {
+                double offset = halfWidth * KRONROD_NODES[j];
+                double y1 = f.evaluate(center - offset);
+                double y2 = f.evaluate(center + offset);
+                left[j] = y1;
+                right[j] = y2;
+                kronrod += KRONROD_WEIGHTS[j] * (y1 + y2);
+                absolute += KRONROD_WEIGHTS[j] * (Math.abs(y1) + Math.abs(y2));
+                if (j % 2 == 1) {
+                    gauss += GAUSS_WEIGHTS[j / 2] * (y1 + y2);
+                }
+            }
+
+            double mean = kronrod / 2;
+            double spread = KRONROD_WEIGHTS[7] * Math.abs(centerValue - mean);
+            for (int j = 0; j < 7; j++) {
+                spread += KRONROD_WEIGHTS[j] * (Math.abs(left[j] - mean) + Math.abs(right[j] - mean));
+            }
+            value = kronrod * halfWidth;
+            magnitude = absolute * halfWidth;
+            spread *= halfWidth;
+            error = Math.abs((kronrod - gauss) * halfWidth);
+            if (spread != 0 && error != 0) {
+                error = spread * Math.min(1, Math.pow(200 * error / spread, 1.5));
+            }
+            error = Math.max(ROUNDING * magnitude, error);
+        }
+    }
+
+    // Numerical derivatives
+
+    /**
+     * Differentiates f at x with Ridders' method. The first step is 0.1
+     * (more when x is so large that 0.1 is close to its rounding step),
+     * kept to half the distance to any pole.
+     * The step keeps shrinking until the answer settles, so a function
+     * that wiggles faster than the first step is still followed; if it
+     * never settles, the best answer seen is returned with its error.
+     */
+    private static Estimate riddersDerivative(Function f, double x) {
+        double step = Math.max(0.1, 1e8 * Math.ulp(x));
+        double pole = f.nextPole(x - step);
+        while (pole < x + step) {
+            if (pole == x) {
+                throw new IllegalArgumentException("The function has a pole at x = " + x + ".");
+            }
+            step = Math.abs(pole - x) / 2;
+            pole = f.nextPole(x - step);
+        }
+
+        // Row i of the table holds the difference with the i-th step, extrapolated 0 to i times;
+        // only the last two rows are needed
+        double[] previous = new double[DERIVATIVE_STEPS];
+        double[] current = new double[DERIVATIVE_STEPS];
+        double shrinkSquared = STEP_SHRINK * STEP_SHRINK;
+        previous[0] = (f.evaluate(x + step) - f.evaluate(x - step)) / (2 * step);
+        long count = 2;
+        double best = previous[0];
+        double error = Double.POSITIVE_INFINITY;
+        for (int i = 1; i < DERIVATIVE_STEPS; i++) {
+            step /= STEP_SHRINK;
+            current[0] = (f.evaluate(x + step) - f.evaluate(x - step)) / (2 * step);
+            count += 2;
+            double factor = shrinkSquared;
+            for (int j = 1; j <= i; j++) {
+                current[j] = (current[j - 1] * factor - previous[j - 1]) / (factor - 1);
+                factor *= shrinkSquared;
+                double change = Math.max(Math.abs(current[j] - current[j - 1]),
+                        Math.abs(current[j] - previous[j - 1]));
+                if (change <= error) {
+                    error = change;
+                    best = current[j];
+                }
+            }
+            // Once settled, stop as soon as the most extrapolated value gets clearly worse
+            boolean settled = error <= SETTLED * Math.max(1, Math.abs(best));
+            if (settled && Math.abs(current[i] - previous[i - 1]) >= SAFE * error) {
+                break;
+            }
+            double[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return new Estimate(best, error, count);
+    }
+
+    /**
+     * An integral or derivative together with an estimate of its error.
+     */
+    public static final class Estimate {
+
+        /** The value found */
+        private final double value;
+
+        /** Estimated largest distance from the true value */
+        private final double error;
+
+        /** Function evaluations it took (0 for a formula) */
+        private final long evaluations;
+
+        Estimate(double value, double error, long evaluations) {
+            this.value = value;
+            this.error = error;
+            this.evaluations = evaluations;
+        }
+
+        /**
+         * Gets the value found.
+         *
+         * @return The integral or derivative
+         */
+        public double getValue() {
+            return value;
+        }
+
+        /**
+         * Gets the estimated error of the value. The true value is very
+         * likely within this distance, though for a function with features
+         * narrower than the panels the estimate can miss them.
+         *
+         * @return The error estimate
+         */
+        public double getError() {
+            return error;
+        }
+
+        /**
+         * Gets the number of function evaluations it took.
+         *
+         * @return The evaluations (0 when a formula was used)
+         */
+        public long getEvaluations() {
+            return evaluations;
+        }
+
+        @Override
+        public String toString() {
+            return value + " +/- " + error;
+        }
+    }
+}
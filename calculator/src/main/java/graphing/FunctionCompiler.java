@@ -0,0 +1,389 @@
+package graphing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Turns a tree of functions (ComposedFunction, ExpressionFunction and the
+ * built-in families) into one generated class.
+ *
+ * Evaluating a ComposedFunction calls evaluate on every part of the tree,
+ * and because those calls see many different classes the JIT cannot inline
+ * them. The compiler instead writes the whole tree out as Java source with
+ * one straight-line evaluate method, with the parameters of the built-in
+ * families written in as numbers:
+ *
+ *   double t0 = 2.0 * Math.exp(-0.1 * (x - 0.0)) + 0.0;
+ *   double t1 = 1.0 * Math.sin(3.0 * x + 0.0) + 0.0;
+ *   double t2 = t0 * t1;
+ *
+ * The source is compiled in memory with the system Java compiler and loaded
+ * as a hidden class with MethodHandles.Lookup.defineHiddenClass, so it can
+ * be unloaded once it is no longer used. Functions the compiler does not know
+ * are kept as objects and called from the generated code. Poles, monotonicity
+ * and interval bounds are answered by the original tree.
+ *
+ * Compiling takes a fraction of a second, so it only pays off for functions
+ * that are evaluated many times. The classes generated for the last
+ * CACHE_SIZE sources are kept and reused for trees that produce the same
+ * source; older ones are dropped, so they can be unloaded once no function
+ * uses them. When no compiler is available (for example on a JRE without
+ * the jdk.compiler module) compile returns the tree unchanged.
+ */
+public class FunctionCompiler {
+
+    /** Name of the generated class */
+    private static final String CLASS_NAME = "GeneratedFunction";
+
+    /** Package of the generated class: a hidden class must be in the package of its lookup */
+    private static final String PACKAGE_NAME = FunctionCompiler.class.getPackageName();
+
+    /** Number of generated classes kept for reuse */
+    private static final int CACHE_SIZE = 64;
+
+    /** Constructors of the most recently generated classes, by their source, least recently used first */
+    private static final LinkedHashMap<String, Constructor<? extends Function>> COMPILED =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Constructor<? extends Function>> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            };
+
+    /** The code of the evaluate body being written */
+    private final StringBuilder body = new StringBuilder();
+
+    /** Functions called from the generated code rather than inlined */
+    private final List<Function> leaves = new ArrayList<>();
+
+    /** Number of temporary variables used so far */
+    private int temps;
+
+    private FunctionCompiler() {
+    }
+
+    /**
+     * Compiles a function into a generated class.
+     *
+     * @param f the function to compile
+     * @return an equivalent function with a single fused evaluate method,
+     *         or f itself if it cannot be compiled
+     */
+    public static Function compile(Function f) {
+        FunctionCompiler compiler = new FunctionCompiler();
+        String result = compiler.emit(f, "x");
+        if (compiler.leaves.size() == 1 && compiler.leaves.get(0) == f) {
+            return f; // nothing to inline
+        }
+        String source = compiler.classSource(result);
+
+        try {
+            Constructor<? extends Function> constructor;
+            synchronized (COMPILED) {
+                constructor = COMPILED.get(source);
+            }
+            if (constructor == null) {
+                constructor = define(source);
+                if (constructor == null) {
+                    return f;
+                }
+                synchronized (COMPILED) {
+                    COMPILED.put(source, constructor);
+                }
+            }
+            return constructor.newInstance(compiler.leaves.toArray(new Function[0]), f);
+        } catch (ReflectiveOperationException | IOException e) {
+            return f; // the generated class could not be compiled, defined or created
+        }
+    }
+
+    /**
+     * Returns the Java source compile would generate for a function
+     * (useful for checking what was inlined).
+     *
+     * @param f the function
+     * @return the source of the generated class
+     */
+    public static String generateSource(Function f) {
+        FunctionCompiler compiler = new FunctionCompiler();
+        return compiler.classSource(compiler.emit(f, "x"));
+    }
+
+    /**
+     * Writes the code for f applied to the variable named input and returns
+     * the variable holding the result.
+     */
+    private String emit(Function f, String input) {
+        if (f instanceof LinearFunction) {
+            LinearFunction line = (LinearFunction) f;
+            return assign(num(line.getSlopeM()) + " * " + input + " + " + num(line.getYIntB()));
+        }
+        if (f instanceof QuadraticFunction) {
+            QuadraticFunction q = (QuadraticFunction) f;
+            return assign(num(q.getCoefficentA()) + " * (" + input + " * " + input + ") + "
+                    + num(q.getCoefficentB()) + " * " + input + " + " + num(q.getCoefficentC()));
+        }
+        if (f instanceof SineFunction) {
+            SineFunction s = (SineFunction) f;
+            return assign(wave("sin", s.getAmplitude(), s.getFrequency(), s.getPhaseShift(),
+                    s.getVerticalShift(), input));
+        }
+        if (f instanceof CosineFunction) {
+            CosineFunction c = (CosineFunction) f;
+            return assign(wave("cos", c.getAmplitude(), c.getFrequency(), c.getPhaseShift(),
+                    c.getVerticalShift(), input));
+        }
+        if (f instanceof TangentFunction) {
+            TangentFunction t = (TangentFunction) f;
+            return assign(wave("tan", t.getAmplitude(), t.getFrequency(), t.getPhaseShift(),
+                    t.getVerticalShift(), input));
+        }
+        if (f instanceof ExponentialFunction) {
+            ExponentialFunction e = (ExponentialFunction) f;
+            return assign(num(e.getVerticalStretchA()) + " * Math.exp(" + num(e.getExponentB())
+                    + " * (" + input + " - " + num(e.getHorizontalShiftC()) + ")) + "
+                    + num(e.getVerticalShiftD()));
+        }
+        if (f instanceof ExpressionFunction) {
+            return emitNode(((ExpressionFunction) f).getRoot(), input, new IdentityHashMap<>());
+        }
+        if (f instanceof ComposedFunction) {
+            return emitComposed((ComposedFunction) f, input);
+        }
+
+        // Anything else is called through the leaves array
+        leaves.add(f);
+        return assign("leaves[" + (leaves.size() - 1) + "].evaluate(" + input + ")");
+    }
+
+    /**
+     * Writes the code for a ComposedFunction.
+     */
+    private String emitComposed(ComposedFunction f, String input) {
+        switch (f.getKind()) {
+            case COMPOSE:
+                return emit(f.getLeft(), emit(f.getRight(), input));
+            case SCALE:
+                return assign(num(f.getFactor()) + " * " + emit(f.getLeft(), input) + " + " + num(f.getOffset()));
+            case SHIFT:
+                return emit(f.getLeft(), assign(num(f.getFactor()) + " * " + input + " + " + num(f.getOffset())));
+            default:
+                break;
+        }
+        String left = emit(f.getLeft(), input);
+        String right = emit(f.getRight(), input);
+        switch (f.getKind()) {
+            case ADD:      return assign(left + " + " + right);
+            case SUBTRACT: return assign(left + " - " + right);
+            case MULTIPLY: return assign(left + " * " + right);
+            default:       return assign(left + " / " + right);
+        }
+    }
+
+    /**
+     * Writes the code for a parsed expression. Shared subexpressions are
+     * written once, like the steps of ExpressionFunction.
+     */
+    private String emitNode(ExpressionNode node, String input, Map<ExpressionNode, String> done) {
+        String existing = done.get(node);
+        if (existing != null) {
+            return existing;
+        }
+        String result;
+        if (node.op == ExpressionNode.Op.CONST) {
+            result = num(node.value);
+        }
+        else if (node.op == ExpressionNode.Op.X) {
+            result = input;
+        }
+        else {
+            String a = emitNode(node.left, input, done);
+            String b = node.right != null ? emitNode(node.right, input, done) : null;
+            result = assign(operation(node.op, a, b));
+        }
+        done.put(node, result);
+        return result;
+    }
+
+    /**
+     * Returns the Java expression for one expression operation, matching
+     * ExpressionNode.apply.
+     */
+    private static String operation(ExpressionNode.Op op, String a, String b) {
+        switch (op) {
+            case ADD:   return a + " + " + b;
+            case SUB:   return a + " - " + b;
+            case MUL:   return a + " * " + b;
+            case DIV:   return a + " / " + b;
+            case POW:   return "Math.pow(" + a + ", " + b + ")";
+            case NEG:   return "-" + a;
+            case LN:    return "Math.log(" + a + ")";
+            case LOG:   return "Math.log10(" + a + ")";
+            default:    return "Math." + op.name().toLowerCase() + "(" + a + ")";
+        }
+    }
+
+    /**
+     * Returns A * Math.fn(B * input + C) + D.
+     */
+    private static String wave(String fn, double a, double b, double c, double d, String input) {
+        return num(a) + " * Math." + fn + "(" + num(b) + " * " + input + " + " + num(c) + ") + " + num(d);
+    }
+
+    /**
+     * Adds "double tN = expression;" to the body and returns tN.
+     */
+    private String assign(String expression) {
+        String name = "t" + temps++;
+        body.append("        double ").append(name).append(" = ").append(expression).append(";\n");
+        return name;
+    }
+
+    /**
+     * Writes a number as a Java literal that reads back as exactly the same double.
+     */
+    private static String num(double value) {
+        if (Double.isNaN(value)) {
+            return "Double.NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+        }
+        String text = Double.toString(value);
+        return value < 0 || text.startsWith("-") ? "(" + text + ")" : text;
+    }
+
+    /**
+     * Builds the source of the generated class. The class is final, so the
+     * JIT inlines evaluate into the loops of the two bulk methods.
+     */
+    private String classSource(String result) {
+        String code = body.toString();
+        return "package " + PACKAGE_NAME + ";\n"
+                + "public final class " + CLASS_NAME + " implements Function {\n"
+                + "    private final Function[] leaves;\n"
+                + "    private final Function tree;\n"
+                + "    public " + CLASS_NAME + "(Function[] leaves, Function tree) {\n"
+                + "        this.leaves = leaves;\n"
+                + "        this.tree = tree;\n"
+                + "    }\n"
+                + "    public double evaluate(double x) {\n"
+                + code
+                + "        return " + result + ";\n"
+                + "    }\n"
+                + "    public void evaluate(double[] xs, double[] out, int offset, int length) {\n"
+                + "        for (int i = offset; i < offset + length; i++) {\n"
+                + "            out[i] = evaluate(xs[i]);\n"
+                + "        }\n"
+                + "    }\n"
+                + "    public void evaluateGrid(double start, double step, double[] out, int offset, int count) {\n"
+                + "        for (int i = 0; i < count; i++) {\n"
+                + "            out[offset + i] = evaluate(start + i * step);\n"
+                + "        }\n"
+                + "    }\n"
+                + "    public Interval evaluateInterval(double lo, double hi) {\n"
+                + "        return tree.evaluateInterval(lo, hi);\n"
+                + "    }\n"
+                + "    public double nextPole(double x) {\n"
+                + "        return tree.nextPole(x);\n"
+                + "    }\n"
+                + "    public int monotonicity() {\n"
+                + "        return tree.monotonicity();\n"
+                + "    }\n"
+                + "    public boolean equals(Object other) {\n"
+                + "        return other instanceof " + CLASS_NAME + " && tree.equals(((" + CLASS_NAME + ") other).tree);\n"
+                + "    }\n"
+                + "    public int hashCode() {\n"
+                + "        return tree.hashCode();\n"
+                + "    }\n"
+                + "    public String toString() {\n"
+                + "        return tree.toString();\n"
+                + "    }\n"
+                + "}\n";
+    }
+
+    /**
+     * Compiles the source in memory, defines it as a hidden class next to
+     * this one, and returns its constructor.
+     *
+     * @return the constructor, or null if the source could not be compiled
+     */
+    private static Constructor<? extends Function> define(String source)
+            throws ReflectiveOperationException, IOException {
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        if (javac == null) {
+            return null;
+        }
+
+        Map<String, ByteArrayOutputStream> output = new ConcurrentHashMap<>();
+        JavaFileObject input = new SimpleJavaFileObject(URI.create("string:///" + CLASS_NAME + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        List<String> options = List.of("-classpath", classPath(), "-proc:none", "-g:none");
+
+        // The file manager holds open jars and caches of the class path, so
+        // it is closed as soon as the class is compiled
+        Boolean ok;
+        try (StandardJavaFileManager standard = javac.getStandardFileManager(null, null, null)) {
+            JavaFileManager files = new ForwardingJavaFileManager<JavaFileManager>(standard) {
+                @Override
+                public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                                           JavaFileObject.Kind kind, FileObject sibling) {
+                    return new SimpleJavaFileObject(URI.create("mem:///" + className + ".class"), kind) {
+                        @Override
+                        public OutputStream openOutputStream() {
+                            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                            output.put(className, bytes);
+                            return bytes;
+                        }
+                    };
+                }
+            };
+            ok = javac.getTask(null, files, diagnostic -> { }, options, null, List.of(input)).call();
+        }
+        ByteArrayOutputStream bytes = output.get(PACKAGE_NAME + "." + CLASS_NAME);
+        if (!ok || bytes == null) {
+            return null;
+        }
+
+        Class<?> hidden = MethodHandles.lookup().defineHiddenClass(bytes.toByteArray(), true).lookupClass();
+        return hidden.asSubclass(Function.class).getConstructor(Function[].class, Function.class);
+    }
+
+    /**
+     * Returns the class path the generated source is compiled against: the
+     * location Function was loaded from, then the JVM's own class path.
+     */
+    private static String classPath() {
+        String path = System.getProperty("java.class.path");
+        try {
+            File home = new File(Function.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            return home.getPath() + File.pathSeparator + path;
+        } catch (Exception e) {
+            return path;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package graphing;
+
+/**
+ * Turns a short text description of a function into a Function, so
+ * functions can be given in files and on the command line.
+ *
+ * A spec is either one of the built-in families with its parameters in
+ * parentheses, in the same order as the class constructors:
+ *
+ *   linear(m, b)              quadratic(a, b, c)
+ *   sine(A, B, C, D)          cosine(A, B, C, D)
+ *   tangent(A, B, C, D)       exponential(A, B, C, D)
+ *
+ * or any formula ExpressionParser understands, such as "2*sin(x) + x^2".
+ * A leading "y =" is allowed and ignored. The families are checked first
+ * because their classes evaluate faster than the same formula.
+ */
+public class FunctionSpec {
+
+    private FunctionSpec() {
+    }
+
+    /**
+     * Parses a function spec.
+     *
+     * @param spec the spec, for example "sine(1, 2, 0, 0)" or "x^2 - 4"
+     * @return the function it describes
+     * @throws IllegalArgumentException if the spec is not valid
+     */
+    public static Function parse(String spec) {
+        String text = spec.trim();
+        if (text.startsWith("y") && text.substring(1).trim().startsWith("=")) {
+            text = text.substring(text.indexOf('=') + 1).trim();
+        }
+        if (text.isEmpty()) {
+            throw new IllegalArgumentException("Empty function spec");
+        }
+
+        int open = text.indexOf('(');
+        if (open > 0 && text.endsWith(")")) {
+            String name = text.substring(0, open).trim();
+            String inside = text.substring(open + 1, text.length() - 1);
+            switch (name) {
+                case "linear": {
+                    double[] p = numbers(name, inside, 2);
+                    return new LinearFunction(p[0], p[1]);
+                }
+                case "quadratic": {
+                    double[] p = numbers(name, inside, 3);
+                    return new QuadraticFunction(p[0], p[1], p[2]);
+                }
+                case "sine": {
+                    double[] p = numbers(name, inside, 4);
+                    return new SineFunction(p[0], p[1], p[2], p[3]);
+                }
+                case "cosine": {
+                    double[] p = numbers(name, inside, 4);
+                    return new CosineFunction(p[0], p[1], p[2], p[3]);
+                }
+                case "tangent": {
+                    double[] p = numbers(name, inside, 4);
+                    return new TangentFunction(p[0], p[1], p[2], p[3]);
+                }
+                case "exponential": {
+                    double[] p = numbers(name, inside, 4);
+                    return new ExponentialFunction(p[0], p[1], p[2], p[3]);
+                }
+                default:
+                    break; // not a family: treat it as a formula
+            }
+        }
+        return ExpressionParser.parse(text);
+    }
+
+    /**
+     * Reads a comma-separated list of exactly count numbers.
+     */
+    private static double[] numbers(String name, String list, int count) {
+        String[] parts = list.split(",");
+        if (parts.length != count) {
+            throw new IllegalArgumentException(name + " needs " + count + " parameters, got " + parts.length);
+        }
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            try {
+                values[i] = Double.parseDouble(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad parameter '" + parts[i].trim() + "' for " + name);
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,466 @@
+package graphing;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A small HTTP server that lets other programs on the same machine
+ * evaluate and plot functions.
+ *
+ *   java graphing.GraphServer [port]
+ *
+ * The server only listens on the loopback address (port 8080 by default)
+ * and answers two kinds of GET request:
+ *
+ *   /evaluate?f=sin(x)&x=0,0.5,1
+ *   /evaluate?f=sine(1,2,0,0)&from=-10&to=10&count=1000
+ *       returns {"x":[...],"y":[...]} (undefined values are null)
+ *
+ *   /plot?f=x^2&minX=-5&maxX=5&minY=0&maxY=25&width=80&height=25&format=text
+ *       returns the plot as text, or as an image with format=pgm, ppm or png
+ *
+ * f is a FunctionSpec. Query values are URL-encoded, so a plus sign in a
+ * formula must be sent as %2B. Missing bounds and sizes use the same
+ * defaults as the interactive program.
+ *
+ * Each request runs on its own virtual thread when the JDK has them
+ * (Java 21 and later) and on a cached thread pool otherwise. Text plots
+ * all go through one shared Grapher with render(Function, RenderSpec),
+ * which keeps no per-plot state, and share its thread-safe RenderCache.
+ * Image exports are streamed band by band and never cached, so each one
+ * builds its own Grapher. When several identical requests (the same
+ * function, bounds, size and format) arrive while the first is still
+ * being computed, the later ones wait for its result instead of
+ * computing it again; they are answered with the header
+ * "X-Shared: true".
+ */
+public class GraphServer {
+
+    /** Port used when none is given */
+    private static final int DEFAULT_PORT = 8080;
+
+    /** Most points one /evaluate request may ask for */
+    private static final int MAX_POINTS = 1_000_000;
+
+    /** Most cells one /plot request may ask for */
+    private static final long MAX_CELLS = 16_000_000;
+
+    /** The HTTP server */
+    private final HttpServer server;
+
+    /** Runs the requests */
+    private final ExecutorService executor;
+
+    /** Grids shared by every request */
+    private final RenderCache cache = new RenderCache();
+
+    /** Renders the text plots of every request */
+    private final Grapher grapher = new Grapher();
+
+    /** Results still being computed, by what was asked for */
+    private final ConcurrentHashMap<Key, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    /** Requests answered */
+    private final LongAdder requests = new LongAdder();
+
+    /** Requests answered with another request's result */
+    private final LongAdder shared = new LongAdder();
+
+    /**
+     * Creates a server on the loopback address. It does not accept
+     * requests until start is called.
+     *
+     * @param port the port to listen on (0 picks a free port)
+     * @throws IOException if the port cannot be opened
+     */
+    public GraphServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        grapher.setCache(cache);
+        executor = newThreadPerRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/evaluate", exchange -> handle(exchange, true));
+        server.createContext("/plot", exchange -> handle(exchange, false));
+    }
+
+    /**
+     * Starts the server on the port given in args[0] and runs until the
+     * process is stopped.
+     *
+     * @param args optionally the port
+     */
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        try {
+            GraphServer server = new GraphServer(port);
+            server.start();
+            System.out.println("Listening on http://localhost:" + server.getPort() + "/");
+        } catch (IOException e) {
+            System.out.println("Error: Could not start the server: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits up to the given number of seconds
+     * for those in progress to finish.
+     *
+     * @param delaySeconds how long to wait for running requests
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the port number
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the number of requests answered so far.
+     *
+     * @return the request count
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * Returns the number of requests that were answered with the result of
+     * an identical request already in progress.
+     *
+     * @return the shared request count
+     */
+    public long getSharedCount() {
+        return shared.sum();
+    }
+
+    /**
+     * Returns Executors.newVirtualThreadPerTaskExecutor() when this JDK has
+     * virtual threads, and a cached thread pool when it does not. The
+     * method is looked up by reflection so the code still compiles on
+     * older JDKs.
+     */
+    private static ExecutorService newThreadPerRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Answers one request to /evaluate or /plot.
+     */
+    private void handle(HttpExchange exchange, boolean evaluate) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                send(exchange, 405, "text/plain", "Error: Only GET is supported.\n", false);
+                return;
+            }
+            try {
+                Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+                Key key = evaluate ? evaluateKey(query) : plotKey(query);
+
+                CompletableFuture<byte[]> mine = new CompletableFuture<>();
+                CompletableFuture<byte[]> running = inFlight.putIfAbsent(key, mine);
+                byte[] body;
+                if (running != null) {
+                    shared.increment();
+                    body = running.join();
+                } else {
+                    try {
+                        body = evaluate ? evaluate(key) : plot(key);
+                        mine.complete(body);
+                    } catch (Throwable e) {
+                        // Followers are waiting on this future, even when the failure is an Error
+                        mine.completeExceptionally(e);
+                        throw e;
+                    } finally {
+                        inFlight.remove(key, mine);
+                    }
+                }
+                send(exchange, 200, contentType(key.format), body, running != null);
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, "text/plain", "Error: " + e.getMessage() + "\n", false);
+            } catch (CompletionException e) {
+                String message = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+                send(exchange, 500, "text/plain", "Error: " + message + "\n", true);
+            } catch (IOException | RuntimeException e) {
+                send(exchange, 500, "text/plain", "Error: " + e.getMessage() + "\n", false);
+            }
+        } finally {
+            exchange.close();
+            requests.increment();
+        }
+    }
+
+    /**
+     * Reads an /evaluate query: f plus either a list of x values or a
+     * range split into count points.
+     */
+    private static Key evaluateKey(Map<String, String> query) {
+        Function f = FunctionSpec.parse(required(query, "f"));
+        double[] xs;
+        if (query.containsKey("x")) {
+            String[] parts = query.get("x").split(",");
+            if (parts.length > MAX_POINTS) {
+                throw new IllegalArgumentException("At most " + MAX_POINTS + " points per request");
+            }
+            xs = new double[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                xs[i] = parseNumber("x", parts[i]);
+            }
+        } else {
+            double from = number(query, "from", -10);
+            double to = number(query, "to", 10);
+            int count = (int) number(query, "count", 101);
+            if (count < 1 || count > MAX_POINTS) {
+                throw new IllegalArgumentException("count must be between 1 and " + MAX_POINTS);
+            }
+            xs = new double[count];
+            double step = count > 1 ? (to - from) / (count - 1) : 0;
+            for (int i = 0; i < count; i++) {
+                xs[i] = from + i * step;
+            }
+        }
+        return new Key(f, xs, 0, 0, "json");
+    }
+
+    /**
+     * Reads a /plot query: f, the bounds, the size and the format.
+     */
+    private static Key plotKey(Map<String, String> query) {
+        Function f = FunctionSpec.parse(required(query, "f"));
+        double[] bounds = {
+            number(query, "minX", -10), number(query, "maxX", 10),
+            number(query, "minY", -10), number(query, "maxY", 10)
+        };
+        int width = (int) number(query, "width", 80);
+        int height = (int) number(query, "height", 25);
+        String format = query.getOrDefault("format", "text");
+
+        if (bounds[0] >= bounds[1] || bounds[2] >= bounds[3]) {
+            throw new IllegalArgumentException("min values must be less than max values");
+        }
+        if (width <= 0 || height <= 0 || (long) width * height > MAX_CELLS) {
+            throw new IllegalArgumentException("width and height must be positive, with at most "
+                    + MAX_CELLS + " cells");
+        }
+        if (contentType(format) == null) {
+            throw new IllegalArgumentException("Unknown format '" + format + "' (use text, pgm, ppm or png)");
+        }
+        return new Key(f, bounds, width, height, format);
+    }
+
+    /**
+     * Evaluates the function at every x of the key and builds the JSON reply.
+     */
+    private static byte[] evaluate(Key key) {
+        double[] xs = key.numbers;
+        double[] ys = new double[xs.length];
+        key.function.evaluate(xs, ys, 0, xs.length);
+
+        StringBuilder json = new StringBuilder(xs.length * 40);
+        json.append("{\"x\":");
+        appendArray(json, xs);
+        json.append(",\"y\":");
+        appendArray(json, ys);
+        json.append("}\n");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendArray(StringBuilder json, double[] values) {
+        json.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            if (Double.isFinite(values[i])) {
+                json.append(values[i]);
+            } else {
+                json.append("null"); // JSON has no NaN or infinity
+            }
+        }
+        json.append(']');
+    }
+
+    /**
+     * Renders the plot described by the key in its format.
+     */
+    private byte[] plot(Key key) throws IOException {
+        double[] b = key.numbers;
+        if (key.format.equals("text")) {
+            RenderResult result = grapher.render(key.function,
+                    new RenderSpec(b[0], b[1], b[2], b[3], key.width, key.height));
+            StringBuilder text = new StringBuilder((key.width + 1) * key.height);
+            for (int row = 0; row < key.height; row++) {
+                text.append(result.getRow(row)).append('\n');
+            }
+            return text.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        // exportImage remembers the bounds it drew with, so images get their own Grapher
+        Grapher imageGrapher = new Grapher();
+
+        // The image sinks write to files, so the image goes through a temporary one
+        Path file = Files.createTempFile("graph", "." + key.format);
+        try {
+            ImageSink image;
+            if (key.format.equals("pgm")) {
+                image = PixmapSink.pgm(file, key.width, key.height);
+            } else if (key.format.equals("ppm")) {
+                image = PixmapSink.ppm(file, key.width, key.height);
+            } else {
+                image = PngSink.gray(file, key.width, key.height);
+            }
+            imageGrapher.exportImage(key.function, b[0], b[1], b[2], b[3], image);
+            return Files.readAllBytes(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Returns the MIME type for a format, or null for an unknown format.
+     */
+    private static String contentType(String format) {
+        switch (format) {
+            case "json": return "application/json";
+            case "text": return "text/plain; charset=utf-8";
+            case "pgm": return "image/x-portable-graymap";
+            case "ppm": return "image/x-portable-pixmap";
+            case "png": return "image/png";
+            default: return null;
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String type, String text, boolean wasShared)
+            throws IOException {
+        send(exchange, status, type, text.getBytes(StandardCharsets.UTF_8), wasShared);
+    }
+
+    private static void send(HttpExchange exchange, int status, String type, byte[] body, boolean wasShared)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", type);
+        exchange.getResponseHeaders().set("X-Shared", String.valueOf(wasShared));
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Splits a raw query string into decoded names and values.
+     */
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> query = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static String required(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter '" + name + "'");
+        }
+        return value;
+    }
+
+    private static double number(Map<String, String> query, String name, double fallback) {
+        String value = query.get(name);
+        return value == null ? fallback : parseNumber(name, value);
+    }
+
+    private static double parseNumber(String name, String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad number '" + value + "' for " + name);
+        }
+    }
+
+    /**
+     * What a request asks for. Two requests with equal keys get the same
+     * answer, which is what lets identical requests share one result.
+     * Functions are compared with their own equals, so "sine(1,1,0,0)"
+     * and a second copy of it match.
+     */
+    private static final class Key {
+        final Function function;
+        /** The x values for /evaluate, or minX, maxX, minY, maxY for /plot */
+        final double[] numbers;
+        final int width;
+        final int height;
+        final String format;
+        private final int hash;
+
+        Key(Function function, double[] numbers, int width, int height, String format) {
+            this.function = function;
+            this.numbers = numbers;
+            this.width = width;
+            this.height = height;
+            this.format = format;
+            this.hash = Objects.hash(function, Arrays.hashCode(numbers), width, height, format);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return hash == that.hash
+                    && width == that.width
+                    && height == that.height
+                    && format.equals(that.format)
+                    && Arrays.equals(numbers, that.numbers)
+                    && function.equals(that.function);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,1413 @@
+package graphing;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Grapher class for plotting mathematical functions as ASCII art on a console grid.
+ * 
+ * This class allows you to define a coordinate system with minimum and maximum
+ * X and Y values, specify the size of the plotting grid, and then plot a function
+ * using ASCII characters.
+ *
+ * render(Function, RenderSpec) is reentrant: it reads only the spec, the
+ * function and the cache, and returns a RenderResult instead of printing,
+ * so any number of threads may share one Grapher once its settings (cache,
+ * sink, parallelism threshold) are chosen. The other methods remember the
+ * bounds and column samples of the last plot so that plot(f), pan and
+ * zoom can reuse them; they are meant for one thread at a time.
+ *
+ * @author Dillon Miller
+ */
+
+public class Grapher {
+
+    /** Largest sampling drift allowed, as a fraction of one row's height */
+    private static final double DRIFT_PER_ROW = 1e-6;
+
+    /** Largest fast-trig error allowed, as a fraction of one row's height */
+    private static final double APPROXIMATION_PER_ROW = 1e-3;
+
+    /** How many times the gap between two samples may be split in half */
+    private static final int MAX_REFINE_DEPTH = 16;
+
+    /** Most poles the gap between two columns is split at */
+    private static final int MAX_GAP_POLES = 8;
+
+    /** Default number of columns a grid needs before it is split across threads */
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 4096;
+
+    /** Fewest columns handed to one thread */
+    private static final int MIN_STRIP_COLUMNS = 512;
+
+    /** Fewest series in an overlay before they are traced on several threads */
+    private static final int OVERLAY_PARALLEL_SERIES = 8;
+
+    /** Rows drawn at a time when exporting an image */
+    private static final int IMAGE_BAND_ROWS = 64;
+
+    /** Bounds and size of the last plot, used by plot(f), pan and zoom */
+    private RenderSpec view = new RenderSpec(-10, 10, -10, 10, 80, 25);
+
+    /** Number of function evaluations used by the most recent plot */
+    private volatile long evaluationCount;
+
+    /** Grids narrower than this many columns are rendered on one thread */
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /** Pool that renders column strips of wide grids */
+    private volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /** Where printed grids are written */
+    private RenderSink sink = ChannelSink.stdout();
+
+    /** Recently rendered grids (null when caching is turned off) */
+    private RenderCache cache = new RenderCache();
+
+    /**
+     * Column samples of the last plot of the stored view, reused by the
+     * next one after a pan or zoom (null before the first plot).
+     */
+    private SampleBuffer viewSamples;
+
+    /**
+     * Sets the plotting boundaries and grid size, then calls the plot method
+     * that actually draws the function on the ASCII grid.
+     * 
+     * @param f The function to plot
+     * @param minX Minimum x-value
+     * @param maxX Maximum x-value
+     * @param minY Minimum y-value
+     * @param maxY Maximum y-value
+     * @param width Width of the ASCII grid
+     * @param height Height of the ASCII grid
+     * @throws IOException if the grid cannot be written
+     */
+    public void plot(Function f, double minX, double maxX, double minY, double maxY, int width, int height)
+            throws IOException {
+        // Store the plotting boundaries and grid size
+        view = new RenderSpec(minX, maxX, minY, maxY, width, height);
+
+        plot(f);  // Call the main plotting function
+    }
+
+    /**
+     * Plots the function on the ASCII grid using stored boundaries and grid size.
+     * 
+     * @param f The function to plot
+     * @throws IOException if the grid cannot be written
+     */
+    public void plot(Function f) throws IOException {
+        RenderResult result = render(f, view, viewSamples);
+        viewSamples = result.getSamples();
+        evaluationCount = result.getEvaluationCount();
+        printGrid(result.sharedRows()); // Print the final ASCII grid
+    }
+
+    /**
+     * Sets the plotting boundaries and grid size, then draws the function
+     * on a new ASCII grid without printing it.
+     * 
+     * @param f The function to plot
+     * @param minX Minimum x-value
+     * @param maxX Maximum x-value
+     * @param minY Minimum y-value
+     * @param maxY Maximum y-value
+     * @param width Width of the ASCII grid
+     * @param height Height of the ASCII grid
+     * @return The finished ASCII grid, indexed [row][col]
+     */
+    public char[][] render(Function f, double minX, double maxX, double minY, double maxY,
+                           int width, int height) {
+        view = new RenderSpec(minX, maxX, minY, maxY, width, height);
+
+        return render(f);
+    }
+
+    /**
+     * Draws the function on a new ASCII grid using stored boundaries and
+     * grid size.
+     * 
+     * @param f The function to plot
+     * @return The finished ASCII grid, indexed [row][col]
+     */
+    public char[][] render(Function f) {
+        RenderResult result = render(f, view, viewSamples);
+        viewSamples = result.getSamples();
+        evaluationCount = result.getEvaluationCount();
+        if (cache == null) {
+            return result.sharedRows(); // nobody else has this grid
+        }
+        // The cache keeps the original, so callers get a copy they may change
+        return result.toGrid();
+    }
+
+    /**
+     * Draws the function on a new ASCII grid with the bounds and size of a
+     * spec, and returns it without printing it. The bounds and samples
+     * stored for plot(f), pan and zoom are neither used nor changed, so many
+     * threads may call this at once.
+     * 
+     * The function is sampled once per column. Wherever two neighboring
+     * samples are more than one row apart, the gap between them is split in
+     * half (again and again if needed) until the curve is continuous, so the
+     * amount of work follows the size of the grid rather than the width of
+     * the x-range.
+     * 
+     * If the same function was already rendered with the same bounds and
+     * size, the grid is taken from the cache instead.
+     * 
+     * @param f The function to plot
+     * @param spec The bounds and size of the plot
+     * @return The finished plot
+     */
+    public RenderResult render(Function f, RenderSpec spec) {
+        return render(f, spec, null);
+    }
+
+    /**
+     * Renders a plot like render(Function, RenderSpec), taking the columns
+     * that line up with the samples of an earlier plot from those samples.
+     * 
+     * @param f The function to plot
+     * @param spec The bounds and size of the plot
+     * @param previous Samples of an earlier plot to reuse (null for none)
+     * @return The finished plot, with the samples it was drawn from
+     */
+    private RenderResult render(Function f, RenderSpec spec, SampleBuffer previous) {
+        RenderMetrics.RenderEvent event = RenderMetrics.startRender();
+        RenderStats stats = new RenderStats();
+        RenderCache cache = this.cache;
+        if (cache != null) {
+            RenderCache.Entry cached = cache.get(f, spec.getMinX(), spec.getMaxX(), spec.getMinY(),
+                    spec.getMaxY(), spec.getWidth(), spec.getHeight());
+            if (cached != null) {
+                RenderMetrics.finishRender(event, "render", f, spec, stats, true);
+                return new RenderResult(spec, cached.getRows(), 0, true, cached.getSamples());
+            }
+        }
+
+        char[][] grid = new char[spec.getHeight()][spec.getWidth()]; // Each strip blanks its own columns
+        SampleBuffer samples = new SampleBuffer(f, spec.getMinX(), spec.columnStep(), spec.getWidth());
+        renderColumns(spec, stats, grid, previous, samples, f, chooseAccuracy(spec, f), false);
+
+        if (cache != null) {
+            cache.put(f, spec.getMinX(), spec.getMaxX(), spec.getMinY(), spec.getMaxY(),
+                    spec.getWidth(), spec.getHeight(), samples, grid);
+        }
+        RenderMetrics.finishRender(event, "render", f, spec, stats, false);
+        return new RenderResult(spec, grid, stats.getEvaluations(), false, samples);
+    }
+
+    /**
+     * Sets the plotting boundaries and grid size, then plots the function
+     * using interval arithmetic instead of point samples.
+     * 
+     * @param f The function to plot
+     * @param minX Minimum x-value
+     * @param maxX Maximum x-value
+     * @param minY Minimum y-value
+     * @param maxY Maximum y-value
+     * @param width Width of the ASCII grid
+     * @param height Height of the ASCII grid
+     * @throws IOException if the grid cannot be written
+     */
+    public void plotIntervals(Function f, double minX, double maxX, double minY, double maxY,
+                              int width, int height) throws IOException {
+        view = new RenderSpec(minX, maxX, minY, maxY, width, height);
+
+        plotIntervals(f);
+    }
+
+    /**
+     * Plots the function using interval arithmetic, with stored boundaries
+     * and grid size.
+     * 
+     * Each column covers a range of x-values. The function reports the
+     * range of y-values it takes over that x-range, and every row inside
+     * it is marked. Steep curves therefore never leave gaps, and the work
+     * is one interval evaluation per column.
+     * 
+     * @param f The function to plot
+     * @throws IOException if the grid cannot be written
+     */
+    public void plotIntervals(Function f) throws IOException {
+        RenderSpec spec = view;
+        char[][] grid = new char[spec.getHeight()][spec.getWidth()]; // Each strip blanks its own columns
+
+        RenderMetrics.RenderEvent event = RenderMetrics.startRender();
+        RenderStats stats = new RenderStats();
+        renderColumns(spec, stats, grid, null, null, f, FastTrig.Accuracy.EXACT, true);
+        evaluationCount = stats.getEvaluations();
+        RenderMetrics.finishRender(event, "intervals", f, spec, stats, false);
+
+        printGrid(grid); // Print the final ASCII grid
+    }
+
+    /**
+     * Sets the plotting boundaries and grid size, then plots the function
+     * in horizontal bands of rows without ever holding the whole grid.
+     * 
+     * Like plotIntervals, each column is evaluated once as an interval and
+     * only its top and bottom rows are kept. The bands are then drawn one
+     * at a time into a reused buffer, with the axes and curve clipped to
+     * the band, and each band is written to the output sink as soon as it
+     * is finished. Memory use is bandRows * width characters plus two ints
+     * per column, however tall the plot is.
+     * 
+     * @param f The function to plot
+     * @param minX Minimum x-value
+     * @param maxX Maximum x-value
+     * @param minY Minimum y-value
+     * @param maxY Maximum y-value
+     * @param width Width of the ASCII grid
+     * @param height Height of the ASCII grid
+     * @param bandRows Number of rows drawn and written at a time
+     * @throws IOException if the grid cannot be written
+     */
+    public void plotStreaming(Function f, double minX, double maxX, double minY, double maxY,
+                              int width, int height, int bandRows) throws IOException {
+        view = new RenderSpec(minX, maxX, minY, maxY, width, height);
+        evaluationCount = streamBands(view, f, bandRows, sink);
+    }
+
+    /**
+     * Draws the plot band by band and writes each band to a sink as soon as
+     * it is finished (see plotStreaming).
+     * 
+     * @param spec The bounds and size of the plot
+     * @param f The function to plot
+     * @param bandRows Number of rows drawn and written at a time
+     * @param out Where the rows are written
+     * @return The number of function evaluations used
+     * @throws IOException if the rows cannot be written
+     */
+    private long streamBands(RenderSpec spec, Function f, int bandRows, RenderSink out) throws IOException {
+        int width = spec.getWidth();
+        int height = spec.getHeight();
+        RenderMetrics.RenderEvent event = RenderMetrics.startRender();
+        RenderStats stats = new RenderStats();
+        long start = RenderMetrics.ENABLED ? System.nanoTime() : 0;
+
+        // Top and bottom row of the curve in each column (top > bottom when empty)
+        int[] topRows = new int[width];
+        int[] bottomRows = new int[width];
+        // Second stretch of the columns a pole splits in two (null if there are none)
+        int[] lowerTopRows = null;
+        int[] lowerBottomRows = null;
+        for (int col = 0; col < width; col++) {
+            double lo = spec.columnX(col);
+            double hi = col + 1 < width ? spec.columnX(col + 1) : lo;
+            Interval range = f.evaluateInterval(Math.min(lo, hi), Math.max(lo, hi));
+            Interval gap = poleGap(stats, f, range, Math.min(lo, hi), Math.max(lo, hi));
+
+            if (gap == null) {
+                storeRange(spec, topRows, bottomRows, col, range.getLo(), range.getHi());
+                continue;
+            }
+            if (lowerTopRows == null) {
+                lowerTopRows = new int[width];
+                lowerBottomRows = new int[width];
+                Arrays.fill(lowerTopRows, height);
+                Arrays.fill(lowerBottomRows, -1);
+            }
+            storeRange(spec, topRows, bottomRows, col, gap.getHi(), Double.POSITIVE_INFINITY);
+            storeRange(spec, lowerTopRows, lowerBottomRows, col, Double.NEGATIVE_INFINITY, gap.getLo());
+        }
+        stats.addEvaluations(width);
+        if (RenderMetrics.ENABLED) {
+            stats.addEvaluateNanos(System.nanoTime() - start);
+        }
+
+        // Drawing and writing the bands are timed together as output
+        RenderMetrics.OutputEvent output = RenderMetrics.startOutput();
+        long bytesBefore = RenderMetrics.ENABLED ? out.bytesWritten() : 0;
+        long outputStart = RenderMetrics.ENABLED ? System.nanoTime() : 0;
+        char[][] band = new char[Math.max(1, Math.min(bandRows, height))][width];
+        for (int firstRow = 0; firstRow < height; firstRow += band.length) {
+            int rows = Math.min(band.length, height - firstRow);
+            int lastRow = firstRow + rows - 1;
+
+            for (int row = 0; row < rows; row++) {
+                Arrays.fill(band[row], ' ');
+            }
+            drawAxes(spec, band, firstRow, rows, 0, width);
+
+            // Clip each column's stretch of the curve to this band
+            for (int col = 0; col < width; col++) {
+                int from = Math.max(topRows[col], firstRow);
+                int to = Math.min(bottomRows[col], lastRow);
+                for (int row = from; row <= to; row++) {
+                    band[row - firstRow][col] = '*';
+                }
+            }
+            if (lowerTopRows != null) {
+                for (int col = 0; col < width; col++) {
+                    int from = Math.max(lowerTopRows[col], firstRow);
+                    int to = Math.min(lowerBottomRows[col], lastRow);
+                    for (int row = from; row <= to; row++) {
+                        band[row - firstRow][col] = '*';
+                    }
+                }
+            }
+
+            for (int row = 0; row < rows; row++) {
+                out.writeRow(band[row]);
+            }
+            out.flush(); // Let this band out before drawing the next
+        }
+        if (RenderMetrics.ENABLED) {
+            RenderMetrics.finishOutput(output, System.nanoTime() - outputStart,
+                    out.bytesWritten() - bytesBefore);
+            RenderMetrics.finishRender(event, "stream", f, spec, stats, false);
+        }
+        return stats.getEvaluations();
+    }
+
+    /**
+     * Sets the plotting boundaries and grid size, then plots every function
+     * of a request together on one grid.
+     * 
+     * @param request The functions to plot and how to draw each one
+     * @param minX Minimum x-value
+     * @param maxX Maximum x-value
+     * @param minY Minimum y-value
+     * @param maxY Maximum y-value
+     * @param width Width of the ASCII grid
+     * @param height Height of the ASCII grid
+     * @throws IOException if the grid cannot be written
+     */
+    public void plotOverlay(PlotRequest request, double minX, double maxX, double minY, double maxY,
+                            int width, int height) throws IOException {
+        view = new RenderSpec(minX, maxX, minY, maxY, width, height);
+
+        plotOverlay(request);
+    }
+
+    /**
+     * Plots every function of a request together on one grid, using stored
+     * boundaries and grid size. If any series has a color, the grid is
+     * printed with ANSI color escape sequences.
+     * 
+     * @param request The functions to plot and how to draw each one
+     * @throws IOException if the grid cannot be written
+     */
+    public void plotOverlay(PlotRequest request) throws IOException {
+        RenderSpec spec = view;
+        char[][] grid = new char[spec.getHeight()][spec.getWidth()];
+        int[][] owners = new int[spec.getHeight()][spec.getWidth()];
+        renderOverlay(spec, grid, owners, request);
+
+        if (request.hasColors()) {
+            printColored(grid, owners, request);
+        } else {
+            printGrid(grid);
+        }
+    }
+
+    /**
+     * Draws every function of a request on a new ASCII grid, using stored
+     * boundaries and grid size, without printing it.
+     * 
+     * @param request The functions to plot and how to draw each one
+     * @return The finished ASCII grid, indexed [row][col]
+     */
+    public char[][] renderOverlay(PlotRequest request) {
+        RenderSpec spec = view;
+        char[][] grid = new char[spec.getHeight()][spec.getWidth()];
+        renderOverlay(spec, grid, null, request);
+        return grid;
+    }
+
+    /**
+     * Draws every series of a request on one grid.
+     * 
+     * The x-value of each column is computed once and shared by all the
+     * series. Each series is sampled with one bulk evaluate call over that
+     * row of x-values and refined like a single plot, collecting the cells
+     * it covers. With many series this tracing runs on the fork-join pool.
+     * The cells are then drawn in the order the series were added, so the
+     * result does not depend on which thread finished first.
+     * 
+     * @param spec The bounds and size of the plot
+     * @param grid The ASCII grid
+     * @param owners Receives the index of the series drawn in each cell, or
+     *        -1 for none (may be null)
+     * @param request The functions to plot and how to draw each one
+     */
+    private void renderOverlay(RenderSpec spec, char[][] grid, int[][] owners, PlotRequest request) {
+        int width = spec.getWidth();
+        int height = spec.getHeight();
+        for (int row = 0; row < height; row++) {
+            Arrays.fill(grid[row], ' ');
+            if (owners != null) {
+                Arrays.fill(owners[row], -1);
+            }
+        }
+        drawAxes(spec, grid, 0, height, 0, width);
+        RenderMetrics.RenderEvent event = RenderMetrics.startRender();
+        RenderStats stats = new RenderStats();
+        long start = RenderMetrics.ENABLED ? System.nanoTime() : 0;
+
+        double[] xs = new double[width];
+        for (int col = 0; col < width; col++) {
+            xs[col] = spec.columnX(col);
+        }
+
+        int count = request.size();
+        CellList[] traces = new CellList[count];
+        if (count >= OVERLAY_PARALLEL_SERIES) {
+            pool.invoke(new SeriesTask(spec, stats, request, xs, traces, 0, count));
+        } else {
+            for (int s = 0; s < count; s++) {
+                traces[s] = traceSeries(spec, stats, request.get(s).getFunction(), xs);
+            }
+        }
+        evaluationCount = stats.getEvaluations();
+        long traced = RenderMetrics.ENABLED ? System.nanoTime() : 0;
+
+        for (int s = 0; s < count; s++) {
+            char glyph = request.get(s).getGlyph();
+            CellList trace = traces[s];
+            for (int i = 0; i < trace.size; i++) {
+                int row = trace.cells[i] / width;
+                int col = trace.cells[i] % width;
+                grid[row][col] = glyph;
+                if (owners != null) {
+                    owners[row][col] = s;
+                }
+            }
+        }
+        if (RenderMetrics.ENABLED) {
+            stats.addEvaluateNanos(traced - start);
+            stats.addRasterNanos(System.nanoTime() - traced);
+            RenderMetrics.finishRender(event, "overlay", null, spec, stats, false);
+        }
+    }
+
+    /**
+     * Samples one series at every column and refines the steep stretches.
+     * 
+     * @param spec The bounds and size of the plot
+     * @param stats Counts the work done for the plot
+     * @param f The function to trace
+     * @param xs The x-value of each column
+     * @return The cells the function passes through
+     */
+    private CellList traceSeries(RenderSpec spec, RenderStats stats, Function f, double[] xs) {
+        int width = spec.getWidth();
+        double[] ys = new double[width];
+        f.evaluate(xs, ys, 0, width);
+        stats.addEvaluations(width);
+
+        CellList trace = new CellList(spec);
+        for (int col = 0; col < width; col++) {
+            trace.plot(col, ys[col]);
+        }
+        for (int col = 0; col + 1 < width; col++) {
+            refineGap(spec, stats, trace, f, FastTrig.Accuracy.EXACT, col,
+                    xs[col], ys[col], xs[col + 1], ys[col + 1]);
+        }
+        return trace;
+    }
+
+    /**
+     * Prints the grid with each series' cells in its color. Neighboring
+     * cells of the same color share one escape sequence.
+     * 
+     * @param grid The ASCII grid
+     * @param owners The series drawn in each cell, or -1 for none
+     * @param request The series and their colors
+     * @throws IOException if the grid cannot be written
+     */
+    private void printColored(char[][] grid, int[][] owners, PlotRequest request) throws IOException {
+        RenderSink sink = this.sink;
+        RenderMetrics.OutputEvent event = RenderMetrics.startOutput();
+        long bytesBefore = RenderMetrics.ENABLED ? sink.bytesWritten() : 0;
+        long start = RenderMetrics.ENABLED ? System.nanoTime() : 0;
+        StringBuilder line = new StringBuilder();
+        char[] chars = new char[0];
+        for (int row = 0; row < grid.length; row++) {
+            line.setLength(0);
+            PlotRequest.Color current = PlotRequest.Color.NONE;
+            for (int col = 0; col < grid[row].length; col++) {
+                int s = owners[row][col];
+                PlotRequest.Color color = s >= 0 ? request.get(s).getColor() : PlotRequest.Color.NONE;
+                if (color != current) {
+                    line.append(color.escape()); // NONE resets to the default color
+                    current = color;
+                }
+                line.append(grid[row][col]);
+            }
+            if (current != PlotRequest.Color.NONE) {
+                line.append(PlotRequest.Color.NONE.escape());
+            }
+
+            if (chars.length < line.length()) {
+                chars = new char[line.length()];
+            }
+            line.getChars(0, line.length(), chars, 0);
+            sink.write(chars, 0, line.length());
+            sink.newLine();
+        }
+        sink.flush();
+        if (RenderMetrics.ENABLED) {
+            RenderMetrics.finishOutput(event, System.nanoTime() - start, sink.bytesWritten() - bytesBefore);
+        }
+    }
+
+    /**
+     * Plots the function with several dots per character, packed into a
+     * PackedRaster. With Braille an 80x25 character plot shows 160x100 dots.
+     * 
+     * The bounds are stored like the other plot methods; the stored grid
+     * size stays width x height characters.
+     * 
+     * @param f The function to plot
+     * @param minX Minimum x-value
+     * @param maxX Maximum x-value
+     * @param minY Minimum y-value
+     * @param maxY Maximum y-value
+     * @param width Width of the plot in characters
+     * @param height Height of the plot in characters
+     * @param style How dots are grouped into characters
+     * @throws IOException if the plot cannot be written
+     */
+    public void plotPacked(Function f, double minX, double maxX, double minY, double maxY,
+                           int width, int height, PackedRaster.Style style) throws IOException {
+        PackedRaster raster = renderPacked(f, minX, maxX, minY, maxY,
+                width * style.dotsAcross(), height * style.dotsDown());
+        view = new RenderSpec(minX, maxX, minY, maxY, width, height);
+
+        raster.writeTo(sink, style);
+    }
+
+    /**
+     * Sets the plotting boundaries and size in dots, then draws the function
+     * and axes on a new packed raster, one bit per dot.
+     * 
+     * Sampling works exactly as for the character grid, with one column of
+     * dots in place of each column of characters.
+     * 
+     * @param f The function to plot
+     * @param minX Minimum x-value
+     * @param maxX Maximum x-value
+     * @param minY Minimum y-value
+     * @param maxY Maximum y-value
+     * @param width Width of the raster in dots
+     * @param height Height of the raster in dots
+     * @return The finished raster
+     */
+    public PackedRaster renderPacked(Function f, double minX, double maxX, double minY, double maxY,
+                                     int width, int height) {
+        RenderSpec spec = new RenderSpec(minX, maxX, minY, maxY, width, height);
+        view = spec;
+
+        PackedRaster raster = new PackedRaster(width, height);
+        RenderMetrics.RenderEvent event = RenderMetrics.startRender();
+        RenderStats stats = new RenderStats();
+        drawAxes(spec, raster);
+
+        FastTrig.Accuracy accuracy = chooseAccuracy(spec, f);
+        double[] ys = new double[width];
+        double[] errors = new double[width];
+        long start = RenderMetrics.ENABLED ? System.nanoTime() : 0;
+        sampleColumns(spec, stats, viewSamples, f, accuracy, 0, width, ys, errors);
+        long sampled = RenderMetrics.ENABLED ? System.nanoTime() : 0;
+
+        PointPlotter dots = (col, y) -> {
+            int row = spec.pointRow(y);
+            if (row >= 0) {
+                raster.set(col, row);
+            }
+        };
+        for (int col = 0; col < width; col++) {
+            dots.plot(col, ys[col]);
+        }
+        for (int col = 0; col + 1 < width; col++) {
+            refineGap(spec, stats, dots, f, accuracy, col,
+                    spec.columnX(col), ys[col], spec.columnX(col + 1), ys[col + 1]);
+        }
+        evaluationCount = stats.getEvaluations();
+        if (RenderMetrics.ENABLED) {
+            stats.addEvaluateNanos(sampled - start);
+            stats.addRasterNanos(System.nanoTime() - sampled);
+            RenderMetrics.finishRender(event, "packed", f, spec, stats, false);
+        }
+        return raster;
+    }
+
+    /**
+     * Plots the function into an image file, one pixel per grid cell.
+     * 
+     * The image is drawn band by band like plotStreaming, and each row is
+     * handed to the image sink as soon as it is finished, so only
+     * IMAGE_BAND_ROWS rows are in memory however large the image is. The
+     * sink is closed when the image is complete, or when writing it fails.
+     * 
+     * @param f The function to plot
+     * @param minX Minimum x-value
+     * @param maxX Maximum x-value
+     * @param minY Minimum y-value
+     * @param maxY Maximum y-value
+     * @param image The image to write; its size is the size of the plot
+     * @throws IOException if the image cannot be written
+     */
+    public void exportImage(Function f, double minX, double maxX, double minY, double maxY,
+                            ImageSink image) throws IOException {
+        view = new RenderSpec(minX, maxX, minY, maxY, image.getWidth(), image.getHeight());
+        try (image) {
+            evaluationCount = streamBands(view, f, IMAGE_BAND_ROWS, image);
+        }
+    }
+
+    /**
+     * Returns the number of function evaluations used by the most recent plot.
+     * 
+     * @return Evaluation count
+     */
+    public long getEvaluationCount() {
+        return evaluationCount;
+    }
+
+    /**
+     * Sets where printed grids are written (the console by default).
+     * 
+     * @param sink The output sink
+     */
+    public void setSink(RenderSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Sets the cache of rendered grids, or turns caching off when cache is
+     * null. Several graphers may share one cache.
+     * 
+     * Grids are found by comparing functions with equals, so only functions
+     * that never change (like the built-in ones) should be plotted while a
+     * cache is set.
+     * 
+     * @param cache The cache to use, or null
+     */
+    public void setCache(RenderCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the cache of rendered grids, for reading its hit and miss counts.
+     * 
+     * @return The cache, or null when caching is off
+     */
+    public RenderCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Moves the stored x-bounds by a whole number of columns, to the right
+     * for positive columns. Columns that stay on screen keep their old
+     * samples, so the next plot only evaluates the newly exposed ones.
+     * 
+     * @param columns Number of columns to move by
+     */
+    public void pan(int columns) {
+        double shift = columns * view.columnStep();
+        view = view.withX(view.getMinX() + shift, view.getMaxX() + shift);
+    }
+
+    /**
+     * Zooms in on the middle column, making each column factor times
+     * narrower. Every factor-th new column falls on an old one and keeps
+     * its sample. The y-bounds are not changed.
+     * 
+     * @param factor How many times narrower each column becomes
+     */
+    public void zoomIn(int factor) {
+        zoomTo(view.columnStep() / Math.max(1, factor));
+    }
+
+    /**
+     * Zooms out from the middle column, making each column factor times
+     * wider. New columns inside the old x-range all fall on old columns and
+     * keep their samples. The y-bounds are not changed.
+     * 
+     * @param factor How many times wider each column becomes
+     */
+    public void zoomOut(int factor) {
+        zoomTo(view.columnStep() * Math.max(1, factor));
+    }
+
+    /**
+     * Sets a new column width, keeping the middle column where it is.
+     * 
+     * @param step The new distance between columns
+     */
+    private void zoomTo(double step) {
+        int middle = (view.getWidth() - 1) / 2;
+        double center = view.columnX(middle);
+        double minX = center - middle * step;
+        view = view.withX(minX, minX + (view.getWidth() - 1) * step);
+    }
+
+    /**
+     * Sets how many columns a grid needs before its columns are rendered on
+     * several threads. Smaller grids stay on the calling thread.
+     * 
+     * @param columns The column count at which rendering goes parallel
+     */
+    public void setParallelThreshold(int columns) {
+        parallelThreshold = Math.max(1, columns);
+    }
+
+    /**
+     * Sets how many threads render wide grids. By default the common
+     * fork-join pool is used.
+     * 
+     * The old pool is not shut down, because renders on other threads may
+     * still be using it; they finish there, and its threads exit once they
+     * have been idle for a while.
+     * 
+     * @param threads Number of rendering threads
+     */
+    public void setParallelism(int threads) {
+        pool = new ForkJoinPool(Math.max(1, threads));
+    }
+
+    /**
+     * Renders every column, splitting wide grids into strips of columns that
+     * are rendered on the fork-join pool. Each strip only writes to its own
+     * columns, so the strips never touch the same cell and need no locking.
+     * 
+     * @param spec The bounds and size of the plot
+     * @param stats Counts the work done for the plot
+     * @param grid The ASCII grid
+     * @param previous Samples of an earlier plot to reuse (null for none)
+     * @param samples Buffer receiving each column's sample (null if not needed)
+     * @param f The function to plot
+     * @param accuracy The accuracy tier chosen for f
+     * @param intervals true for interval rendering, false for point samples
+     */
+    private void renderColumns(RenderSpec spec, RenderStats stats, char[][] grid, SampleBuffer previous,
+                               SampleBuffer samples, Function f, FastTrig.Accuracy accuracy, boolean intervals) {
+        int width = spec.getWidth();
+        if (width < parallelThreshold) {
+            renderStrip(spec, stats, grid, previous, samples, f, accuracy, intervals, 0, width);
+            return;
+        }
+        ForkJoinPool pool = this.pool;
+        int stripColumns = Math.max(MIN_STRIP_COLUMNS, width / (4 * pool.getParallelism()));
+        pool.invoke(new StripTask(spec, stats, grid, previous, samples, f, accuracy, intervals, 0, width,
+                stripColumns));
+    }
+
+    /**
+     * Renders the columns from (inclusive) to to (exclusive).
+     * 
+     * @param spec The bounds and size of the plot
+     * @param stats Counts the work done for the plot
+     * @param grid The ASCII grid
+     * @param previous Samples of an earlier plot to reuse (null for none)
+     * @param samples Buffer receiving each column's sample (null if not needed)
+     * @param f The function to plot
+     * @param accuracy The accuracy tier chosen for f
+     * @param intervals true for interval rendering, false for point samples
+     * @param from First column of the strip
+     * @param to Column just past the end of the strip
+     */
+    private void renderStrip(RenderSpec spec, RenderStats stats, char[][] grid, SampleBuffer previous,
+                             SampleBuffer samples, Function f, FastTrig.Accuracy accuracy, boolean intervals,
+                             int from, int to) {
+        int width = spec.getWidth();
+        int height = spec.getHeight();
+
+        // Create a blank strip filled with spaces
+        for (int row = 0; row < height; row++) {
+            Arrays.fill(grid[row], from, to, ' ');
+        }
+        drawAxes(spec, grid, 0, height, from, to); // Draw this strip's part of the X and Y axes
+
+        long start = RenderMetrics.ENABLED ? System.nanoTime() : 0;
+        if (intervals) {
+            for (int col = from; col < to; col++) {
+                // The last column only holds maxX itself
+                double lo = spec.columnX(col);
+                double hi = col + 1 < width ? spec.columnX(col + 1) : lo;
+
+                Interval range = f.evaluateInterval(Math.min(lo, hi), Math.max(lo, hi));
+                Interval gap = poleGap(stats, f, range, Math.min(lo, hi), Math.max(lo, hi));
+                if (gap != null) {
+                    // One stretch runs off the top of the grid, the other off the bottom
+                    plotRange(spec, grid, col, gap.getHi(), Double.POSITIVE_INFINITY);
+                    plotRange(spec, grid, col, Double.NEGATIVE_INFINITY, gap.getLo());
+                } else {
+                    plotRange(spec, grid, col, range.getLo(), range.getHi());
+                }
+            }
+            stats.addEvaluations(to - from);
+            if (RenderMetrics.ENABLED) {
+                stats.addEvaluateNanos(System.nanoTime() - start);
+            }
+            return;
+        }
+
+        // One y-value per column, plus the first column of the next strip
+        // so the gap after this strip's last column can be refined
+        int count = Math.min(to + 1, width) - from;
+        double[] ys = new double[count];
+        double[] errors = new double[count];
+        sampleColumns(spec, stats, previous, f, accuracy, from, count, ys, errors);
+        if (samples != null) {
+            samples.store(from, ys, errors, to - from);
+        }
+        long sampled = RenderMetrics.ENABLED ? System.nanoTime() : 0;
+
+        int offGrid = 0;
+        for (int col = from; col < to; col++) {
+            if (!plotPoint(spec, grid, col, ys[col - from])) {
+                offGrid++;
+            }
+        }
+
+        // Fill in steep stretches between neighboring columns
+        PointPlotter plotter = (col, y) -> plotPoint(spec, grid, col, y);
+        for (int col = from; col < to && col + 1 < width; col++) {
+            refineGap(spec, stats, plotter, f, accuracy, col, spec.columnX(col), ys[col - from],
+                    spec.columnX(col + 1), ys[col + 1 - from]);
+        }
+        if (RenderMetrics.ENABLED) {
+            stats.addEvaluateNanos(sampled - start);
+            stats.addRasterNanos(System.nanoTime() - sampled);
+            stats.addOffGridSamples(offGrid);
+        }
+    }
+
+    /**
+     * Samples the function at the left edge of count columns, starting at
+     * column first.
+     * 
+     * Columns that line up with a sample of an earlier plot of the same
+     * function (after a pan or zoom) take that sample instead of evaluating
+     * the function again. The rest are sampled in runs of neighboring
+     * columns.
+     * 
+     * @param spec The bounds and size of the plot
+     * @param stats Counts the work done for the plot
+     * @param earlier Samples of an earlier plot to reuse (null for none)
+     * @param f The function to plot
+     * @param accuracy The accuracy tier chosen for f
+     * @param first The first column to sample
+     * @param count Number of columns to sample
+     * @param ys Array receiving the y-value for each column, starting with first
+     * @param errors Array receiving the largest possible error of each y-value
+     */
+    private void sampleColumns(RenderSpec spec, RenderStats stats, SampleBuffer earlier, Function f,
+                               FastTrig.Accuracy accuracy, int first, int count, double[] ys, double[] errors) {
+        SampleBuffer previous = earlier != null && earlier.holds(f) ? earlier : null;
+
+        int i = 0;
+        while (i < count) {
+            int index = previous != null ? previous.indexOf(spec.columnX(first + i)) : -1;
+            if (index >= 0) {
+                ys[i] = previous.getY(index);
+                errors[i] = previous.getError(index);
+                i++;
+                continue;
+            }
+            // Find the end of this run of columns that have no old sample
+            int end = i + 1;
+            while (end < count && (previous == null || previous.indexOf(spec.columnX(first + end)) < 0)) {
+                end++;
+            }
+            sampleRun(spec, stats, f, accuracy, first + i, end - i, ys, errors, i);
+            i = end;
+        }
+
+        for (i = 0; i < count; i++) {
+            ys[i] = checkRow(spec, stats, f, spec.columnX(first + i), ys[i], errors[i]);
+        }
+    }
+
+    /**
+     * Evaluates the function at the left edge of count neighboring columns.
+     * 
+     * Trig functions use the cheapest fast kernel that is accurate enough;
+     * everything else steps from sample to sample, keeping the drift far
+     * below one row.
+     * 
+     * @param spec The bounds and size of the plot
+     * @param stats Counts the work done for the plot
+     * @param f The function to plot
+     * @param accuracy The accuracy tier chosen for f
+     * @param first The first column to sample
+     * @param count Number of columns to sample
+     * @param ys Array receiving the y-values
+     * @param errors Array receiving the largest possible error of each y-value
+     * @param offset Index of ys and errors that receives the first column
+     */
+    private void sampleRun(RenderSpec spec, RenderStats stats, Function f, FastTrig.Accuracy accuracy,
+                           int first, int count, double[] ys, double[] errors, int offset) {
+        if (accuracy == FastTrig.Accuracy.EXACT) {
+            ForwardDifferenceSampler sampler = new ForwardDifferenceSampler(driftBound(spec));
+            sampler.sample(f, spec.columnX(first), spec.columnStep(), ys, offset, count);
+            Arrays.fill(errors, offset, offset + count, sampler.getErrorBound());
+        } else {
+            for (int i = offset; i < offset + count; i++) {
+                ys[i] = f.evaluate(spec.columnX(first + i - offset), accuracy);
+                errors[i] = f.approximationError(ys[i], accuracy);
+            }
+        }
+        stats.addEvaluations(count);
+    }
+
+    /**
+     * A strip of columns rendered as one fork-join task. Strips wider than
+     * stripColumns are split in half and rendered in parallel.
+     */
+    private class StripTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RenderSpec spec;
+        private final RenderStats stats;
+        private final char[][] grid;
+        private final SampleBuffer previous;
+        private final SampleBuffer samples;
+        private final Function f;
+        private final FastTrig.Accuracy accuracy;
+        private final boolean intervals;
+        private final int from;
+        private final int to;
+        private final int stripColumns;
+
+        StripTask(RenderSpec spec, RenderStats stats, char[][] grid, SampleBuffer previous, SampleBuffer samples,
+                  Function f, FastTrig.Accuracy accuracy, boolean intervals, int from, int to, int stripColumns) {
+            this.spec = spec;
+            this.stats = stats;
+            this.grid = grid;
+            this.previous = previous;
+            this.samples = samples;
+            this.f = f;
+            this.accuracy = accuracy;
+            this.intervals = intervals;
+            this.from = from;
+            this.to = to;
+            this.stripColumns = stripColumns;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= stripColumns) {
+                renderStrip(spec, stats, grid, previous, samples, f, accuracy, intervals, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new StripTask(spec, stats, grid, previous, samples, f, accuracy, intervals, from, middle,
+                            stripColumns),
+                    new StripTask(spec, stats, grid, previous, samples, f, accuracy, intervals, middle, to,
+                            stripColumns));
+        }
+    }
+
+    /**
+     * A range of series traced as one fork-join task. Ranges of more than
+     * one series are split in half and traced in parallel.
+     */
+    private class SeriesTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RenderSpec spec;
+        private final RenderStats stats;
+        private final PlotRequest request;
+        private final double[] xs;
+        private final CellList[] traces;
+        private final int from;
+        private final int to;
+
+        SeriesTask(RenderSpec spec, RenderStats stats, PlotRequest request, double[] xs,
+                   CellList[] traces, int from, int to) {
+            this.spec = spec;
+            this.stats = stats;
+            this.request = request;
+            this.xs = xs;
+            this.traces = traces;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                traces[from] = traceSeries(spec, stats, request.get(from).getFunction(), xs);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SeriesTask(spec, stats, request, xs, traces, from, middle),
+                    new SeriesTask(spec, stats, request, xs, traces, middle, to));
+        }
+    }
+
+    /**
+     * Receives the points found while refining a column.
+     */
+    private interface PointPlotter {
+        void plot(int col, double y);
+    }
+
+    /**
+     * The grid cells one overlay series passes through, stored as
+     * row * width + col in a growing array.
+     */
+    private static class CellList implements PointPlotter {
+
+        private final RenderSpec spec;
+        private int[] cells = new int[64];
+        private int size;
+
+        CellList(RenderSpec spec) {
+            this.spec = spec;
+        }
+
+        @Override
+        public void plot(int col, double y) {
+            int row = spec.pointRow(y);
+            if (row < 0 || col < 0 || col >= spec.getWidth()) {
+                return;
+            }
+            if (size == cells.length) {
+                cells = Arrays.copyOf(cells, size * 2);
+            }
+            cells[size++] = row * spec.getWidth() + col;
+        }
+    }
+
+    /**
+     * Evaluates one point between columns in the given accuracy tier.
+     * 
+     * @param spec The bounds and size of the plot
+     * @param stats Counts the work done for the plot
+     * @param f The function to plot
+     * @param x The x-value
+     * @param accuracy The accuracy tier chosen for f
+     * @return The y-value, placed in the same row as the exact value
+     */
+    private double samplePoint(RenderSpec spec, RenderStats stats, Function f, double x,
+                               FastTrig.Accuracy accuracy) {
+        double y = f.evaluate(x, accuracy);
+        stats.addEvaluations(1);
+        return checkRow(spec, stats, f, x, y, f.approximationError(y, accuracy));
+    }
+
+    /**
+     * An approximate value close to a row boundary could land in the wrong
+     * row, so such values are evaluated exactly instead.
+     * 
+     * @param spec The bounds and size of the plot
+     * @param stats Counts the work done for the plot
+     * @param f The function to plot
+     * @param x The x-value
+     * @param y The approximate y-value at x
+     * @param error Largest possible distance from the exact y-value
+     * @return y, or the exact value when the row of y cannot be trusted
+     */
+    private double checkRow(RenderSpec spec, RenderStats stats, Function f, double x, double y,
+                            double error) {
+        if (spec.nearRowBoundary(y, error)) {
+            stats.addEvaluations(1);
+            return f.evaluate(x);
+        }
+        return y;
+    }
+
+    /**
+     * Fills the gap between two neighboring column samples.
+     * 
+     * If the function is monotonic and has poles inside the gap, the gap is
+     * split at each pole. Each piece is refined toward the infinity the
+     * function runs off to at that pole, so the splitting stops once the
+     * curve leaves the grid instead of closing in on the pole itself.
+     * 
+     * @param spec The bounds and size of the plot
+     * @param stats Counts the work done for the plot
+     * @param out Receives each midpoint
+     * @param f The function to plot
+     * @param accuracy The accuracy tier chosen for f
+     * @param col Column of the left sample
+     * @param x0 Left x-value
+     * @param y0 Left y-value
+     * @param x1 Right x-value
+     * @param y1 Right y-value
+     */
+    private void refineGap(RenderSpec spec, RenderStats stats, PointPlotter out, Function f,
+                           FastTrig.Accuracy accuracy, int col, double x0, double y0, double x1, double y1) {
+        double fromX = x0;
+        double fromY = y0;
+        int direction = f.monotonicity();
+        if (direction != 0 && x0 < x1) {
+            // An increasing function reaches +infinity just left of a pole
+            double limit = direction > 0 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+            double pole = f.nextPole(x0);
+            for (int poles = 0; pole < x1 && poles < MAX_GAP_POLES; poles++) {
+                refine(spec, stats, out, f, accuracy, col, fromX, fromY, pole, limit, 0);
+                fromX = pole;
+                fromY = -limit;
+                pole = f.nextPole(pole);
+            }
+        }
+        refine(spec, stats, out, f, accuracy, col, fromX, fromY, x1, y1, 0);
+    }
+
+    /**
+     * Fills the gap between two samples when they are more than one row
+     * apart, by sampling the midpoint and repeating on both halves.
+     * 
+     * @param spec The bounds and size of the plot
+     * @param stats Counts the work done for the plot
+     * @param out Receives each midpoint
+     * @param f The function to plot
+     * @param accuracy The accuracy tier chosen for f
+     * @param col Column of the left sample; midpoints belong to this column
+     * @param x0 Left x-value
+     * @param y0 Left y-value
+     * @param x1 Right x-value
+     * @param y1 Right y-value
+     * @param depth How many times this gap has already been split
+     */
+    private void refine(RenderSpec spec, RenderStats stats, PointPlotter out, Function f,
+                        FastTrig.Accuracy accuracy, int col, double x0, double y0, double x1, double y1,
+                        int depth) {
+        double p0 = spec.rowPosition(y0);
+        double p1 = spec.rowPosition(y1);
+        int height = spec.getHeight();
+
+        // Stop when the samples are in neighboring rows, both fall off the
+        // same edge of the grid, or the gap cannot be split any further
+        if (!(Math.abs(p1 - p0) > 1) || depth >= MAX_REFINE_DEPTH) {
+            return;
+        }
+        if ((p0 <= -1 && p1 <= -1) || (p0 >= height && p1 >= height)) {
+            return;
+        }
+
+        double xm = (x0 + x1) / 2;
+        double ym = samplePoint(spec, stats, f, xm, accuracy);
+        out.plot(col, ym);
+
+        refine(spec, stats, out, f, accuracy, col, x0, y0, xm, ym, depth + 1);
+        refine(spec, stats, out, f, accuracy, col, xm, ym, x1, y1, depth + 1);
+    }
+
+    /**
+     * Places a '*' for the given y-value in a column, if it is on the grid.
+     * 
+     * @param spec The bounds and size of the plot
+     * @param grid The ASCII grid
+     * @param col Column index
+     * @param y The y-value
+     * @return true if the point was on the grid
+     */
+    private static boolean plotPoint(RenderSpec spec, char[][] grid, int col, double y) {
+        int row = spec.pointRow(y); // Convert y to row index
+
+        // Check bounds and place '*' character on the grid
+        if (col >= 0 && col < spec.getWidth() && row >= 0) {
+            grid[row][col] = '*';
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Places a '*' in every row of a column that holds a y-value between
+     * lo and hi.
+     * 
+     * @param spec The bounds and size of the plot
+     * @param grid The ASCII grid
+     * @param col Column index
+     * @param lo Lowest y-value in the column
+     * @param hi Highest y-value in the column
+     */
+    private static void plotRange(RenderSpec spec, char[][] grid, int col, double lo, double hi) {
+        if (!spec.rangeVisible(lo, hi)) {
+            return; // entirely above or below the grid
+        }
+        for (int row = spec.rangeFirstRow(hi); row <= spec.rangeLastRow(lo); row++) {
+            grid[row][col] = '*';
+        }
+    }
+
+    /**
+     * Stores the top and bottom row of a column that holds every y-value
+     * between lo and hi (top > bottom when none of them is on the grid).
+     * 
+     * @param spec The bounds and size of the plot
+     * @param topRows Receives the top row of each column
+     * @param bottomRows Receives the bottom row of each column
+     * @param col Column index
+     * @param lo Lowest y-value
+     * @param hi Highest y-value
+     */
+    private static void storeRange(RenderSpec spec, int[] topRows, int[] bottomRows, int col,
+                                   double lo, double hi) {
+        if (spec.rangeVisible(lo, hi)) {
+            topRows[col] = spec.rangeFirstRow(hi);
+            bottomRows[col] = spec.rangeLastRow(lo);
+        } else {
+            topRows[col] = spec.getHeight();
+            bottomRows[col] = -1;
+        }
+    }
+
+    /**
+     * Finds the y-values an unbounded column range skips because of a pole.
+     * 
+     * An interval that holds a pole is unbounded, which would fill the whole
+     * column. But a monotonic function runs off to one infinity on the left
+     * of the pole and comes back from the other on its right, so with a
+     * single pole in the column it never takes the values between its two
+     * ends.
+     * 
+     * @param stats Counts the work done for the plot
+     * @param f The function to plot
+     * @param range The range f reported for the column
+     * @param lo Lowest x-value of the column
+     * @param hi Highest x-value of the column
+     * @return The skipped y-values, or null if the whole range is covered
+     */
+    private static Interval poleGap(RenderStats stats, Function f, Interval range, double lo, double hi) {
+        if (!Double.isInfinite(range.getLo()) && !Double.isInfinite(range.getHi())) {
+            return null; // no pole in the column
+        }
+        int direction = f.monotonicity();
+        if (direction == 0) {
+            return null;
+        }
+        double pole = f.nextPole(lo);
+        if (!(pole < hi) || f.nextPole(pole) < hi) {
+            return null; // no known pole, or a whole branch fits in the column
+        }
+
+        double left = f.evaluate(lo);
+        double right = f.evaluate(hi);
+        stats.addEvaluations(2);
+        // Increasing: the left branch covers [left, +inf), the right one (-inf, right]
+        double gapLo = direction > 0 ? right : left;
+        double gapHi = direction > 0 ? left : right;
+        return gapLo < gapHi ? Interval.between(gapLo, gapHi) : null;
+    }
+
+    /**
+     * Works out how far an incrementally stepped sample may drift from the
+     * exact value: a tiny fraction of the height of one row.
+     * 
+     * @param spec The bounds and size of the plot
+     * @return Largest absolute sampling error allowed
+     */
+    private static double driftBound(RenderSpec spec) {
+        double rowHeight = spec.rowHeight();
+        if (rowHeight > 0 && rowHeight < Double.POSITIVE_INFINITY) {
+            return rowHeight * DRIFT_PER_ROW;
+        }
+        return Double.MIN_NORMAL;
+    }
+
+    /**
+     * Picks the cheapest accuracy tier whose error is a small fraction of
+     * one row for this function. Values that still come out close to a row
+     * boundary are re-evaluated exactly, so the chosen tier only affects
+     * speed, never which row a point lands in.
+     * 
+     * @param spec The bounds and size of the plot
+     * @param f The function being plotted
+     * @return PIXEL or HIGH when one is accurate enough, otherwise EXACT
+     */
+    private static FastTrig.Accuracy chooseAccuracy(RenderSpec spec, Function f) {
+        double rowHeight = spec.rowHeight();
+        FastTrig.Accuracy[] cheapestFirst = { FastTrig.Accuracy.PIXEL, FastTrig.Accuracy.HIGH };
+
+        for (FastTrig.Accuracy accuracy : cheapestFirst) {
+            // Error at the middle of the plot (0 for functions that are always exact)
+            double error = f.approximationError((spec.getMinY() + spec.getMaxY()) / 2, accuracy);
+            if (error > 0 && error <= rowHeight * APPROXIMATION_PER_ROW) {
+                return accuracy;
+            }
+        }
+        return FastTrig.Accuracy.EXACT;
+    }
+
+    /**
+     * Draws the part of the coordinate axes that falls in columns from
+     * (inclusive) to to (exclusive) and in the rows held by grid.
+     * 
+     * @param spec The bounds and size of the plot
+     * @param grid The ASCII grid, or a band of it
+     * @param firstRow Grid row stored at grid[0] (0 unless grid is a band)
+     * @param rows Number of rows of grid to draw in
+     * @param from First column to draw in
+     * @param to Column just past the last one to draw in
+     */
+    private static void drawAxes(RenderSpec spec, char[][] grid, int firstRow, int rows, int from, int to) {
+        int xAxisRow = spec.yToRow(0) - firstRow; // Row for x-axis
+        int yAxisCol = spec.xToCol(0); // Column for y-axis
+
+        // Draw horizontal x-axis
+        if (xAxisRow >= 0 && xAxisRow < rows) {
+            for (int col = from; col < to; col++) {
+                grid[xAxisRow][col] = '-';
+            }
+        }
+
+        // Draw vertical y-axis
+        if (yAxisCol >= from && yAxisCol < to) {
+            for (int row = 0; row < rows; row++) {
+                grid[row][yAxisCol] = '|';
+            }
+        }
+
+        // Mark the origin
+        if (xAxisRow >= 0 && xAxisRow < rows && yAxisCol >= from && yAxisCol < to) {
+            grid[xAxisRow][yAxisCol] = '+';
+        }
+    }
+
+    /**
+     * Draws the X and Y axes on a packed raster as lines of dots. The
+     * origin is where the two lines cross.
+     * 
+     * @param spec The bounds and size of the plot, with one dot per cell
+     * @param raster The raster, with one dot per grid cell
+     */
+    private static void drawAxes(RenderSpec spec, PackedRaster raster) {
+        int xAxisRow = spec.yToRow(0); // Row for x-axis
+        int yAxisCol = spec.xToCol(0); // Column for y-axis
+
+        if (xAxisRow >= 0 && xAxisRow < spec.getHeight()) {
+            raster.drawRow(xAxisRow);
+        }
+        if (yAxisCol >= 0 && yAxisCol < spec.getWidth()) {
+            raster.drawColumn(yAxisCol);
+        }
+    }
+
+    /**
+     * Prints the ASCII grid row by row to the output sink (the console
+     * unless another sink was set).
+     * 
+     * @param grid The ASCII grid
+     * @throws IOException if the grid cannot be written
+     */
+    private void printGrid(char[][] grid) throws IOException {
+        RenderSink sink = this.sink;
+        RenderMetrics.OutputEvent event = RenderMetrics.startOutput();
+        long bytesBefore = RenderMetrics.ENABLED ? sink.bytesWritten() : 0;
+        long start = RenderMetrics.ENABLED ? System.nanoTime() : 0;
+        for (char[] row : grid) {
+            sink.writeRow(row); // Whole row at once, with a line break
+        }
+        sink.flush();
+        if (RenderMetrics.ENABLED) {
+            RenderMetrics.finishOutput(event, System.nanoTime() - start, sink.bytesWritten() - bytesBefore);
+        }
+    }    
+}
\ No newline at end of file
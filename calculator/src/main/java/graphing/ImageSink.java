@@ -0,0 +1,207 @@
+package graphing;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A RenderSink that turns rows of characters into rows of pixels and
+ * saves them as an image file, one pixel per character.
+ *
+ * Each character is looked up in a palette: by default spaces are white,
+ * the axis characters ('-', '|' and '+') are gray and every other
+ * character (the curve) is black. setColor changes the color of a
+ * character, for example to give each overlay glyph its own color.
+ *
+ * Rows are written out as soon as they end, so together with
+ * Grapher.plotStreaming (or Grapher.exportImage) an image far larger than
+ * the heap can be produced: only one band of rows is ever in memory.
+ *
+ * The image size is fixed when the sink is created. Rows shorter than the
+ * width are padded with the background, and rows past the height are
+ * ignored.
+ */
+public abstract class ImageSink implements RenderSink, AutoCloseable {
+
+    /** White, used for spaces and padding */
+    public static final int BACKGROUND = 0xFFFFFF;
+
+    /** Image width in pixels */
+    private final int width;
+
+    /** Image height in pixels */
+    private final int height;
+
+    /** Bytes per pixel: 1 for gray, 3 for RGB */
+    private final int channels;
+
+    /** Color of each character, as 0xRRGGBB */
+    private final int[] palette = new int[65536];
+
+    /** Brightness of each character's color, for gray images */
+    private final byte[] grayPalette = new byte[65536];
+
+    /** Pixel bytes of the row being built */
+    private final byte[] row;
+
+    /** Number of pixels of the current row filled so far */
+    private int column;
+
+    /** Number of rows written so far */
+    private int rowsWritten;
+
+    /**
+     * Sets up the palette and row buffer.
+     *
+     * @param width image width in pixels
+     * @param height image height in pixels
+     * @param color true for RGB pixels, false for gray
+     */
+    protected ImageSink(int width, int height, boolean color) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image size must be positive.");
+        }
+        this.width = width;
+        this.height = height;
+        this.channels = color ? 3 : 1;
+        this.row = new byte[width * channels];
+
+        Arrays.fill(palette, 0x000000);
+        setColor(' ', BACKGROUND);
+        setColor('-', 0xA0A0A0);
+        setColor('|', 0xA0A0A0);
+        setColor('+', 0xA0A0A0);
+    }
+
+    /**
+     * Sets the color used for a character.
+     *
+     * @param c the character
+     * @param rgb the color as 0xRRGGBB (gray images use its brightness)
+     */
+    public void setColor(char c, int rgb) {
+        palette[c] = rgb & 0xFFFFFF;
+        grayPalette[c] = brightness(rgb);
+    }
+
+    /**
+     * Returns the image width.
+     *
+     * @return the width in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the image height.
+     *
+     * @return the height in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the bytes per pixel (1 for gray, 3 for RGB).
+     *
+     * @return the number of color channels
+     */
+    protected int getChannels() {
+        return channels;
+    }
+
+    /**
+     * Converts characters to pixels of the current row.
+     */
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+        int count = Math.min(length, width - column);
+        if (channels == 1) {
+            for (int i = 0; i < count; i++) {
+                row[column++] = grayPalette[chars[offset + i]];
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                setPixel(column++, palette[chars[offset + i]]);
+            }
+        }
+    }
+
+    /**
+     * Ends the current row, padding it with the background, and saves it.
+     */
+    @Override
+    public void newLine() throws IOException {
+        if (rowsWritten >= height) {
+            column = 0;
+            return;
+        }
+        while (column < width) {
+            setPixel(column++, BACKGROUND);
+        }
+        writePixels(row);
+        rowsWritten++;
+        column = 0;
+    }
+
+    /**
+     * Fills any rows that were never written with the background, then
+     * finishes the file. The file is closed even if filling it fails.
+     *
+     * @throws IOException if the image cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (column > 0) {
+                newLine();
+            }
+            while (rowsWritten < height) {
+                newLine();
+            }
+        } finally {
+            finish();
+        }
+    }
+
+    /**
+     * Stores one pixel of the current row.
+     */
+    private void setPixel(int x, int rgb) {
+        if (channels == 1) {
+            row[x] = brightness(rgb);
+        } else {
+            int i = x * 3;
+            row[i] = (byte) (rgb >>> 16);
+            row[i + 1] = (byte) (rgb >>> 8);
+            row[i + 2] = (byte) rgb;
+        }
+    }
+
+    /**
+     * Returns the brightness of a color, with the usual weights for red,
+     * green and blue.
+     */
+    private static byte brightness(int rgb) {
+        int r = (rgb >>> 16) & 0xFF;
+        int g = (rgb >>> 8) & 0xFF;
+        int b = rgb & 0xFF;
+        return (byte) ((r * 299 + g * 587 + b * 114) / 1000);
+    }
+
+    /**
+     * Saves one finished row of pixel bytes. The array is reused for the
+     * next row, so it must be copied or written out before returning.
+     *
+     * @param pixels width * channels bytes, left to right
+     * @throws IOException if the image cannot be written
+     */
+    protected abstract void writePixels(byte[] pixels) throws IOException;
+
+    /**
+     * Completes the file after the last row and closes it.
+     *
+     * @throws IOException if the image cannot be written
+     */
+    protected abstract void finish() throws IOException;
+}
@@ -0,0 +1,118 @@
+package graphing;
+
+/**
+ * A closed range of numbers [lo, hi], used to hold every y-value a
+ * function takes over a range of x-values.
+ * 
+ * An interval may be unbounded (for example a tangent over one of its
+ * poles) or empty (for example a square root over negative x-values), and
+ * is immutable.
+ */
+public final class Interval {
+
+    /** An interval covering every number */
+    public static final Interval ALL = new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    /** An interval holding no number; both its ends are NaN, so it is never drawn */
+    public static final Interval EMPTY = new Interval(Double.NaN, Double.NaN);
+
+    /** Lower end of the interval */
+    private final double lo;
+
+    /** Upper end of the interval */
+    private final double hi;
+
+    /**
+     * Constructs the interval [lo, hi].
+     * 
+     * @param lo the lower end
+     * @param hi the upper end (must not be less than lo)
+     */
+    public Interval(double lo, double hi) {
+        if (lo > hi) {
+            throw new IllegalArgumentException("Interval lower end " + lo + " is above upper end " + hi);
+        }
+        this.lo = lo;
+        this.hi = hi;
+    }
+
+    /**
+     * Builds the smallest interval holding both values, widened outward by
+     * one unit in the last place so rounding cannot shrink it.
+     * 
+     * @param a one end
+     * @param b the other end
+     * @return the interval between a and b
+     */
+    public static Interval between(double a, double b) {
+        if (Double.isNaN(a) || Double.isNaN(b)) {
+            return ALL;
+        }
+        return new Interval(Math.nextDown(Math.min(a, b)), Math.nextUp(Math.max(a, b)));
+    }
+
+    /**
+     * Returns the lower end of the interval.
+     * 
+     * @return the lower end
+     */
+    public double getLo() {
+        return lo;
+    }
+
+    /**
+     * Returns the upper end of the interval.
+     * 
+     * @return the upper end
+     */
+    public double getHi() {
+        return hi;
+    }
+
+    /**
+     * Tells whether the interval holds no number at all.
+     * 
+     * @return true for EMPTY
+     */
+    public boolean isEmpty() {
+        return Double.isNaN(lo);
+    }
+
+    /**
+     * Returns the smallest interval holding this interval and the value v.
+     * 
+     * @param v the value to include
+     * @return the widened interval
+     */
+    public Interval include(double v) {
+        if (Double.isNaN(v)) {
+            return ALL;
+        }
+        if (isEmpty()) {
+            return between(v, v);
+        }
+        if (v >= lo && v <= hi) {
+            return this;
+        }
+        return new Interval(Math.min(lo, Math.nextDown(v)), Math.max(hi, Math.nextUp(v)));
+    }
+
+    /**
+     * Maps every value t of this interval to a * t + b.
+     * 
+     * @param a the scale factor
+     * @param b the offset
+     * @return the image of this interval
+     */
+    public Interval scale(double a, double b) {
+        if (isEmpty()) {
+            return EMPTY;
+        }
+        return between(a * lo + b, a * hi + b);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + lo + ", " + hi + "]";
+    }
+}
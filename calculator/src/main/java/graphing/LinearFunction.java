@@ -0,0 +1,167 @@
+package graphing;
+
+import java.util.Objects;
+
+/**
+ * Represents a linear mathematical function of the form:
+ * 
+ * y = mx + b
+ * 
+ * where:
+ * m = slope
+ * b = y-intercept
+ * 
+ * This class implements the Function interface and
+ * provides an evaluation of a linear function.
+ */
+public class LinearFunction implements Function {
+	
+    /** Slope of the line (m) */
+	private double slopeM;
+
+    /** Y-intercept of the line (b) */
+    private double yIntB;
+    
+    /**
+     * Constructs a linear function with the given slope and y-intercept.
+     *
+     * @param slopeM the slope of the line
+     * @param yIntB the y-intercept
+     */
+    public LinearFunction(double slopeM, double yIntB) {
+        this.slopeM = slopeM;
+        this.yIntB = yIntB;
+    }
+
+    /**
+     * Returns the slope of the line (m).
+     *
+     * @return the slope of the line (m)
+     */
+    public double getSlopeM() {
+        return slopeM;
+    }
+
+    /**
+     * Returns the y-intercept of the line (b).
+     *
+     * @return the y-intercept of the line (b)
+     */
+    public double getYIntB() {
+        return yIntB;
+    }
+
+    /**
+     * Evaluates the linear function at the given x-value.
+     *
+     * @param x the input value
+     * @return the computed y-value using y = mx + b
+     */
+    @Override
+    public double evaluate(double x) {
+        // Apply the linear function formula
+    	double y = slopeM * x + yIntB;
+        return y;
+    }
+
+    /**
+     * Evaluates the linear function at many x-values in one loop.
+     *
+     * @param xs the input values
+     * @param out the array receiving the y-values
+     * @param offset the first index to evaluate
+     * @param length the number of values to evaluate
+     */
+    @Override
+    public void evaluate(double[] xs, double[] out, int offset, int length) {
+        // Use the SIMD loop when the Vector API is available
+        if (VectorSupport.use(length)) {
+            VectorKernels.linear(slopeM, yIntB, xs, out, offset, length);
+            return;
+        }
+        // Copy the fields into locals so the loop only touches the arrays
+        double m = slopeM;
+        double b = yIntB;
+        for (int i = offset; i < offset + length; i++) {
+            out[i] = m * xs[i] + b;
+        }
+    }
+
+    /**
+     * Evaluates the linear function on the grid x = start + i * step.
+     *
+     * @param start the first x-value of the grid
+     * @param step the spacing between grid points
+     * @param out the array receiving the y-values
+     * @param offset the index of out that receives the first result
+     * @param count the number of grid points
+     */
+    @Override
+    public void evaluateGrid(double start, double step, double[] out, int offset, int count) {
+        if (VectorSupport.use(count)) {
+            VectorKernels.linearGrid(slopeM, yIntB, start, step, out, offset, count);
+            return;
+        }
+        double m = slopeM;
+        double b = yIntB;
+        for (int i = 0; i < count; i++) {
+            out[offset + i] = m * (start + i * step) + b;
+        }
+    }
+
+    /**
+     * Returns the range of the line over [lo, hi]. A line is monotonic, so
+     * the range runs between its values at the two ends.
+     *
+     * @param lo the lower end of the x-range
+     * @param hi the upper end of the x-range
+     * @return the range of y-values
+     */
+    @Override
+    public Interval evaluateInterval(double lo, double hi) {
+        return Interval.between(evaluate(lo), evaluate(hi));
+    }
+
+    /**
+     * A line rises when its slope is positive and falls when it is negative.
+     *
+     * @return the sign of the slope (0 for a flat line)
+     */
+    @Override
+    public int monotonicity() {
+        return (int) Math.signum(slopeM);
+    }
+
+    /**
+     * Two lines are equal when they have the same slope and y-intercept.
+     *
+     * @param other the object to compare with
+     * @return true if other is a LinearFunction with the same slope and y-intercept
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        LinearFunction that = (LinearFunction) other;
+        return Double.compare(slopeM, that.slopeM) == 0 &&
+                Double.compare(yIntB, that.yIntB) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(slopeM, yIntB);
+    }
+}
+	
+	
+	
+	
+	
+	
+	
+	
+	
@@ -1,3 +1,6 @@
+package graphing;
+
+import java.io.IOException;
 import java.util.Scanner;
 
 /**
@@ -5,6 +8,7 @@ import java.util.Scanner;
  * 
  * This program allows the user to:
  * - Choose and graph mathematical functions
+ * - See the zeros, minima, maxima and intersections of the graphs
  * - Adjust graph bounds and size
  * - Use a built-in basic calculator
  * 
@@ -42,16 +46,42 @@ public class Main {
     /** Grapher object used to plot functions */
     private static Grapher grapher = new Grapher();
 
+    /** Functions collected to be graphed together */
+    private static PlotRequest overlay = new PlotRequest();
+
+    /** Finds the points listed under each graph */
+    private static FunctionAnalyzer analyzer = new FunctionAnalyzer();
+
+    /** Finds the area printed under each graph */
+    private static FunctionCalculus calculus = new FunctionCalculus();
+
+    /** Most points listed on one line under a graph */
+    private static final int MAX_LISTED = 8;
+
     /**
      * Program entry point.
      * 
+     * Starts the menu. With the --self-test option, the calculator
+     * checks are printed first. Plots can also be made without the menu
+     * by BatchRunner.
+     * 
+     * @param args command-line arguments (--self-test is the only option)
+     */
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--self-test")) {
+            selfTest();
+        }
+
+    	showDefaultSettings();
+        runMenuLoop();
+    }
+
+    /**
      * Test variables used to verify calculator functionality.
      * These are not part of the main program logic and are used
      * only to demonstrate testing during development.
-     * 
-     * @param args command-line arguments (not used)
      */
-    public static void main(String[] args) {
+    private static void selfTest() {
     	double testA = 10.0;
         double testB = 5.0;
 
@@ -63,9 +93,6 @@ public class Main {
         double multiplyTestResult = calc.multiply(testA, testB);
         System.out.println("TEST: multiply(" + testA + ", " + testB + ") = " + multiplyTestResult);
         System.out.println();
-        
-    	showDefaultSettings();
-        runMenuLoop();
     }
 
     /**
@@ -81,8 +108,11 @@ public class Main {
         System.out.println("3) Set graph width/height");
         System.out.println("4) Graph the function");
         System.out.println("5) Calculator");
-        System.out.println("6) Quit");
-        System.out.println("Enter Choice (1-6):");
+        System.out.println("6) Add the function to the overlay");
+        System.out.println("7) Graph the overlay");
+        System.out.println("8) Clear the overlay");
+        System.out.println("9) Quit");
+        System.out.println("Enter Choice (1-9):");
     }
 
     /**
@@ -100,7 +130,7 @@ public class Main {
             scanner.nextLine();
 
             // Sentinel value to exit the loop
-            if (choice == 6) {
+            if (choice == 9) {
                 System.out.print("Are you sure you want to quit? (y/n): ");
                 String confirm = scanner.nextLine();
 
@@ -126,6 +156,16 @@ public class Main {
             else if (choice == 5) {
                 calculatorMenu();
             }
+            else if (choice == 6) {
+                addToOverlay();
+            }
+            else if (choice == 7) {
+                graphOverlay();
+            }
+            else if (choice == 8) {
+                overlay = new PlotRequest();
+                System.out.println("Overlay cleared.");
+            }
             else {
                 System.out.println("Invalid choice.");
             }
@@ -142,7 +182,8 @@ public class Main {
         System.out.println("2) Quadratic (y = ax^2 + bx + c)");
         System.out.println("3) Trigonometric Functions");
         System.out.println("4) Exponential (y = A * e^(B(x - C)) + D)");
-        System.out.print("Enter choice (1-4): ");
+        System.out.println("5) Custom formula (e.g. y = 2*sin(x) + x^2)");
+        System.out.print("Enter choice (1-5): ");
         System.out.println();
 
         int choice = scanner.nextInt();
@@ -161,6 +202,9 @@ public class Main {
         else if (choice == 4) {
             exponentialFunction();
         } 
+        else if (choice == 5) {
+            customFunction();
+        } 
         else {
             System.out.println("Invalid choice. Returning to main menu.");
         }
@@ -279,6 +323,24 @@ public class Main {
                 + verticalShiftD);
     }
     
+    /**
+     * Creates a function from a formula typed in by the user.
+     * Uses try/catch so a mistyped formula does not end the program.
+     */
+    private static void customFunction() {
+        System.out.println();
+
+        System.out.print("Enter formula in x: y = ");
+        String formula = scanner.nextLine();
+
+        try {
+            currentFunction = ExpressionParser.parse(formula);
+            System.out.println("Custom function set: y = " + currentFunction);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+    
     /**
      * Allows the user to set graph bounds.
      */
@@ -327,9 +389,130 @@ public class Main {
         }
 
         System.out.println("Graphing function...");
-        grapher.plot(currentFunction, minX, maxX, minY, maxY, width, height);
+        try {
+            grapher.plot(currentFunction, minX, maxX, minY, maxY, width, height);
+        } catch (IOException e) {
+            System.out.println("Error: Could not write the graph: " + e.getMessage());
+            return;
+        }
+        System.out.println("Function evaluations: " + grapher.getEvaluationCount());
+
+        try {
+            printPoints("Zeros", currentFunction, analyzer.zeros(currentFunction, minX, maxX));
+            printPoints("Minima", currentFunction, analyzer.minima(currentFunction, minX, maxX));
+            printPoints("Maxima", currentFunction, analyzer.maxima(currentFunction, minX, maxX));
+            printArea(currentFunction);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Prints the points of a function at the given x-values as (x, y)
+     * pairs on one line, listing at most MAX_LISTED of them.
+     * 
+     * @param label What the points are
+     * @param f The function the points are on
+     * @param xs The x-values of the points
+     */
+    private static void printPoints(String label, Function f, double[] xs) {
+        StringBuilder line = new StringBuilder(label + ":");
+        if (xs.length == 0) {
+            line.append(" none");
+        }
+        for (int i = 0; i < Math.min(xs.length, MAX_LISTED); i++) {
+            line.append(i == 0 ? " (" : ", (").append(formatPoint(xs[i]))
+                .append(", ").append(formatPoint(f.evaluate(xs[i]))).append(")");
+        }
+        if (xs.length > MAX_LISTED) {
+            line.append(" and ").append(xs.length - MAX_LISTED).append(" more");
+        }
+        System.out.println(line);
+    }
+
+    /**
+     * Prints the signed area between a function and the x-axis from minX
+     * to maxX, with its error.
+     * 
+     * @param f The function
+     */
+    private static void printArea(Function f) {
+        FunctionCalculus.Estimate area = calculus.integrate(f, minX, maxX);
+        if (Double.isNaN(area.getValue())) {
+            System.out.println("Area: none (the graph has a pole between minX and maxX)");
+        } else {
+            System.out.println("Area: " + formatPoint(area.getValue())
+                + " (error at most " + String.format("%.1e", area.getError()) + ")");
+        }
+    }
+
+    /**
+     * Formats a coordinate to four significant digits. Rounding leaves
+     * values like -7e-15 where the answer is 0, so those print as 0.
+     * 
+     * @param value The coordinate
+     * @return The formatted coordinate
+     */
+    private static String formatPoint(double value) {
+        return Math.abs(value) < 1e-9 ? "0" : String.format("%.4g", value);
     }
     
+    /**
+     * Adds the current function to the overlay, drawn in a color the user
+     * picks.
+     */
+    private static void addToOverlay() {
+        if (currentFunction == null) {
+            System.out.println("No function chosen yet. Please choose a function first.");
+            return;
+        }
+
+        System.out.print("Enter a color (none, red, green, yellow, blue, magenta, cyan, white): ");
+        String name = scanner.nextLine().trim();
+        try {
+            PlotRequest.Color color = name.isEmpty()
+                    ? PlotRequest.Color.NONE
+                    : PlotRequest.Color.valueOf(name.toUpperCase());
+            overlay.add(currentFunction, color);
+            System.out.println("Function added. The overlay has " + overlay.size() + " functions.");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: Unknown color '" + name + "'.");
+        }
+    }
+
+    /**
+     * Graphs every function in the overlay on one graph.
+     */
+    private static void graphOverlay() {
+        if (overlay.size() == 0) {
+            System.out.println("The overlay is empty. Add a function to it first.");
+            return;
+        }
+
+        System.out.println("Graphing " + overlay.size() + " functions...");
+        try {
+            grapher.plotOverlay(overlay, minX, maxX, minY, maxY, width, height);
+        } catch (IOException e) {
+            System.out.println("Error: Could not write the graph: " + e.getMessage());
+            return;
+        }
+        System.out.println("Function evaluations: " + grapher.getEvaluationCount());
+
+        // Where each pair of graphs cross
+        try {
+            for (int i = 0; i < overlay.size(); i++) {
+                for (int j = i + 1; j < overlay.size(); j++) {
+                    Function f = overlay.get(i).getFunction();
+                    Function g = overlay.get(j).getFunction();
+                    printPoints("Functions " + (i + 1) + " and " + (j + 1) + " meet at", f,
+                            analyzer.intersections(f, g, minX, maxX));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
     /**
      * Displays default graph settings.
      */
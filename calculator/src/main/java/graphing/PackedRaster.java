@@ -0,0 +1,263 @@
+package graphing;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A black-and-white picture made of dots, stored as one bit per dot.
+ *
+ * Each row of dots is packed into 64-bit words (a long[] shared by all
+ * rows), so a 160x100 dot picture takes 2.5 KB, while a char[][] grid of
+ * the same size takes about 32 KB. When printed, several dots share one
+ * character:
+ *
+ * - BRAILLE draws 2x4 dots per character with the Unicode Braille
+ *   patterns (U+2800 to U+28FF), so an 80x25 character plot shows
+ *   160x100 dots.
+ * - HALF_BLOCK draws 1x2 dots per character with the block characters
+ *   (upper half, lower half and full block).
+ *
+ * Both need a terminal and output encoding that can show Unicode, such
+ * as UTF-8.
+ */
+public final class PackedRaster {
+
+    /**
+     * How dots are grouped into printed characters.
+     */
+    public enum Style {
+        /** 2 dots across and 4 down per character */
+        BRAILLE(2, 4),
+        /** 1 dot across and 2 down per character */
+        HALF_BLOCK(1, 2);
+
+        /** Dots across one character */
+        private final int across;
+
+        /** Dots down one character */
+        private final int down;
+
+        Style(int across, int down) {
+            this.across = across;
+            this.down = down;
+        }
+
+        /**
+         * Returns the number of dots across one character.
+         *
+         * @return the dots per character horizontally
+         */
+        public int dotsAcross() {
+            return across;
+        }
+
+        /**
+         * Returns the number of dots down one character.
+         *
+         * @return the dots per character vertically
+         */
+        public int dotsDown() {
+            return down;
+        }
+    }
+
+    /** First Braille pattern (no dots raised) */
+    private static final char BRAILLE_BLANK = '\u2800';
+
+    /**
+     * Bit of the Braille pattern for each dot, indexed [row][column]
+     * inside the 2x4 cell (Unicode numbers dots 1-2-3 down the left side,
+     * 4-5-6 down the right side, then 7 and 8 along the bottom).
+     */
+    private static final int[][] BRAILLE_BITS = { { 0x01, 0x08 }, { 0x02, 0x10 }, { 0x04, 0x20 }, { 0x40, 0x80 } };
+
+    /** Half-block characters, indexed by (top dot) + 2 * (bottom dot) */
+    private static final char[] HALF_BLOCKS = { ' ', '\u2580', '\u2584', '\u2588' };
+
+    /** Width in dots */
+    private final int width;
+
+    /** Height in dots */
+    private final int height;
+
+    /** Number of longs holding one row of dots */
+    private final int wordsPerRow;
+
+    /** The dots, row after row; dot x of a row is bit x % 64 of word x / 64 */
+    private final long[] bits;
+
+    /**
+     * Creates a blank raster.
+     *
+     * @param width width in dots
+     * @param height height in dots
+     */
+    public PackedRaster(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Raster size must be positive.");
+        }
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.bits = new long[Math.multiplyExact(wordsPerRow, height)];
+    }
+
+    /**
+     * Returns the width in dots.
+     *
+     * @return the width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height in dots.
+     *
+     * @return the height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Turns on the dot at column x of row y (row 0 is the top). Dots off
+     * the raster are ignored.
+     *
+     * @param x the column
+     * @param y the row
+     */
+    public void set(int x, int y) {
+        if (x >= 0 && x < width && y >= 0 && y < height) {
+            bits[y * wordsPerRow + (x >>> 6)] |= 1L << x;
+        }
+    }
+
+    /**
+     * Checks whether a dot is on.
+     *
+     * @param x the column
+     * @param y the row
+     * @return true if the dot is on (false for dots off the raster)
+     */
+    public boolean get(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return false;
+        }
+        return (bits[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    /**
+     * Turns every dot off.
+     */
+    public void clear() {
+        Arrays.fill(bits, 0);
+    }
+
+    /**
+     * Turns on every dot of row y (used for the x-axis).
+     *
+     * @param y the row
+     */
+    public void drawRow(int y) {
+        if (y < 0 || y >= height) {
+            return;
+        }
+        int start = y * wordsPerRow;
+        Arrays.fill(bits, start, start + wordsPerRow, -1L);
+        if ((width & 63) != 0) {
+            bits[start + wordsPerRow - 1] = -1L >>> (64 - (width & 63)); // no dots past the edge
+        }
+    }
+
+    /**
+     * Turns on every dot of column x (used for the y-axis).
+     *
+     * @param x the column
+     */
+    public void drawColumn(int x) {
+        if (x < 0 || x >= width) {
+            return;
+        }
+        long mask = 1L << x;
+        for (int word = x >>> 6; word < bits.length; word += wordsPerRow) {
+            bits[word] |= mask;
+        }
+    }
+
+    /**
+     * Returns the number of characters in a printed row.
+     *
+     * @param style how dots are grouped into characters
+     * @return the character columns
+     */
+    public int columns(Style style) {
+        return (width + style.across - 1) / style.across;
+    }
+
+    /**
+     * Returns the number of printed rows.
+     *
+     * @param style how dots are grouped into characters
+     * @return the character rows
+     */
+    public int rows(Style style) {
+        return (height + style.down - 1) / style.down;
+    }
+
+    /**
+     * Builds one printed row of characters.
+     *
+     * @param style how dots are grouped into characters
+     * @param row the character row
+     * @param out array receiving columns(style) characters
+     */
+    public void encodeRow(Style style, int row, char[] out) {
+        int columns = columns(style);
+        int top = row * style.down;
+
+        for (int col = 0; col < columns; col++) {
+            int left = col * style.across;
+            if (style == Style.BRAILLE) {
+                int pattern = 0;
+                for (int dy = 0; dy < 4; dy++) {
+                    if (get(left, top + dy)) {
+                        pattern |= BRAILLE_BITS[dy][0];
+                    }
+                    if (get(left + 1, top + dy)) {
+                        pattern |= BRAILLE_BITS[dy][1];
+                    }
+                }
+                out[col] = pattern == 0 ? ' ' : (char) (BRAILLE_BLANK + pattern);
+            } else {
+                int index = (get(left, top) ? 1 : 0) + (get(left, top + 1) ? 2 : 0);
+                out[col] = HALF_BLOCKS[index];
+            }
+        }
+    }
+
+    /**
+     * Prints the raster row by row.
+     *
+     * @param sink where the rows are written
+     * @param style how dots are grouped into characters
+     * @throws IOException if the sink cannot be written
+     */
+    public void writeTo(RenderSink sink, Style style) throws IOException {
+        char[] line = new char[columns(style)];
+        for (int row = 0; row < rows(style); row++) {
+            encodeRow(style, row, line);
+            sink.writeRow(line);
+        }
+        sink.flush();
+    }
+
+    /**
+     * Returns the memory used by the dots.
+     *
+     * @return the size of the bit array in bytes
+     */
+    public long getBytes() {
+        return 8L * bits.length;
+    }
+}
@@ -0,0 +1,120 @@
+package graphing;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An ImageSink that writes binary PGM (gray) or PPM (color) files.
+ *
+ * Both formats are a short text header followed by the raw pixel bytes,
+ * so the size of the file is known before the first row arrives. The
+ * file is mapped into memory a window at a time and each row is copied
+ * straight into the mapped region, with no write calls at all; the
+ * operating system writes the pages back to disk. Windows are limited to
+ * 64 MB, so files of any size can be written.
+ */
+public class PixmapSink extends ImageSink {
+
+    /** Largest part of the file mapped at once */
+    private static final long WINDOW_BYTES = 64L << 20;
+
+    /** The file */
+    private final FileChannel channel;
+
+    /** Total size of the file */
+    private final long fileBytes;
+
+    /** The mapped part of the file being filled */
+    private MappedByteBuffer window;
+
+    /** Bytes stored so far */
+    private long position;
+
+    private PixmapSink(Path path, int width, int height, boolean color) throws IOException {
+        super(width, height, color);
+        byte[] header = ((color ? "P6" : "P5") + "\n" + width + " " + height + "\n255\n")
+                .getBytes(StandardCharsets.US_ASCII);
+        fileBytes = header.length + (long) width * height * getChannels();
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            put(header);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a sink that writes a gray PGM file, replacing anything
+     * already in it.
+     *
+     * @param path the file to write
+     * @param width image width in pixels
+     * @param height image height in pixels
+     * @return a sink for the file
+     * @throws IOException if the file cannot be opened
+     */
+    public static PixmapSink pgm(Path path, int width, int height) throws IOException {
+        return new PixmapSink(path, width, height, false);
+    }
+
+    /**
+     * Creates a sink that writes a color PPM file, replacing anything
+     * already in it.
+     *
+     * @param path the file to write
+     * @param width image width in pixels
+     * @param height image height in pixels
+     * @return a sink for the file
+     * @throws IOException if the file cannot be opened
+     */
+    public static PixmapSink ppm(Path path, int width, int height) throws IOException {
+        return new PixmapSink(path, width, height, true);
+    }
+
+    @Override
+    protected void writePixels(byte[] pixels) throws IOException {
+        put(pixels);
+    }
+
+    /**
+     * Copies bytes into the mapped file, moving the window along as it fills.
+     */
+    private void put(byte[] data) throws IOException {
+        int offset = 0;
+        while (offset < data.length) {
+            if (window == null || !window.hasRemaining()) {
+                long size = Math.min(WINDOW_BYTES, fileBytes - position);
+                window = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+            }
+            int count = Math.min(window.remaining(), data.length - offset);
+            window.put(data, offset, count);
+            offset += count;
+            position += count;
+        }
+    }
+
+    /**
+     * Nothing to do: rows are in the mapped file as soon as they are written.
+     */
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public long bytesWritten() {
+        return position;
+    }
+
+    @Override
+    protected void finish() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,179 @@
+package graphing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list of functions to draw together on one graph, each with its own
+ * glyph and (optionally) its own ANSI color.
+ *
+ * Example:
+ *
+ *   PlotRequest request = new PlotRequest()
+ *       .add(new SineFunction(1, 1, 0, 0), '*', PlotRequest.Color.RED)
+ *       .add(new CosineFunction(1, 1, 0, 0), 'o', PlotRequest.Color.BLUE);
+ *   grapher.plotOverlay(request, -10, 10, -2, 2, 80, 25);
+ *
+ * Where curves cross, the series added last is drawn on top.
+ */
+public class PlotRequest {
+
+    /** Glyphs handed out to series added without one */
+    private static final char[] DEFAULT_GLYPHS = { '*', 'o', '+', '#', 'x', '@', '%', '=', '~', '&' };
+
+    /**
+     * ANSI terminal colors for a series.
+     */
+    public enum Color {
+        NONE(0), RED(31), GREEN(32), YELLOW(33), BLUE(34), MAGENTA(35), CYAN(36), WHITE(37);
+
+        /** The ANSI color code */
+        private final int code;
+
+        Color(int code) {
+            this.code = code;
+        }
+
+        /**
+         * Returns the escape sequence that switches the terminal to this color.
+         *
+         * @return the ANSI escape sequence
+         */
+        public String escape() {
+            return "\u001b[" + code + "m";
+        }
+    }
+
+    /**
+     * One function on the graph and how it is drawn.
+     */
+    public static final class Series {
+
+        /** The function to draw */
+        private final Function function;
+
+        /** Character drawn for each point */
+        private final char glyph;
+
+        /** Color of the glyphs */
+        private final Color color;
+
+        Series(Function function, char glyph, Color color) {
+            this.function = function;
+            this.glyph = glyph;
+            this.color = color;
+        }
+
+        /**
+         * Returns the function to draw.
+         *
+         * @return the function
+         */
+        public Function getFunction() {
+            return function;
+        }
+
+        /**
+         * Returns the character drawn for each point.
+         *
+         * @return the glyph
+         */
+        public char getGlyph() {
+            return glyph;
+        }
+
+        /**
+         * Returns the color of the glyphs.
+         *
+         * @return the color (NONE for the terminal's default)
+         */
+        public Color getColor() {
+            return color;
+        }
+    }
+
+    /** The series, in drawing order */
+    private final List<Series> series = new ArrayList<>();
+
+    /**
+     * Adds a function drawn with the next default glyph.
+     *
+     * @param f the function
+     * @return this request
+     */
+    public PlotRequest add(Function f) {
+        return add(f, Color.NONE);
+    }
+
+    /**
+     * Adds a function drawn with the next default glyph in the given color.
+     *
+     * @param f the function
+     * @param color the color of the glyphs
+     * @return this request
+     */
+    public PlotRequest add(Function f, Color color) {
+        return add(f, DEFAULT_GLYPHS[series.size() % DEFAULT_GLYPHS.length], color);
+    }
+
+    /**
+     * Adds a function drawn with the given glyph.
+     *
+     * @param f the function
+     * @param glyph the character drawn for each point
+     * @return this request
+     */
+    public PlotRequest add(Function f, char glyph) {
+        return add(f, glyph, Color.NONE);
+    }
+
+    /**
+     * Adds a function drawn with the given glyph and color.
+     *
+     * @param f the function
+     * @param glyph the character drawn for each point
+     * @param color the color of the glyphs
+     * @return this request
+     */
+    public PlotRequest add(Function f, char glyph, Color color) {
+        if (f == null) {
+            throw new IllegalArgumentException("Function must not be null.");
+        }
+        series.add(new Series(f, glyph, color == null ? Color.NONE : color));
+        return this;
+    }
+
+    /**
+     * Returns the number of series.
+     *
+     * @return the series count
+     */
+    public int size() {
+        return series.size();
+    }
+
+    /**
+     * Returns one series.
+     *
+     * @param index the position of the series, in the order they were added
+     * @return the series
+     */
+    public Series get(int index) {
+        return series.get(index);
+    }
+
+    /**
+     * Checks whether any series has a color, in which case printing the
+     * graph uses ANSI escape sequences.
+     *
+     * @return true if at least one series is colored
+     */
+    public boolean hasColors() {
+        for (Series s : series) {
+            if (s.getColor() != Color.NONE) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
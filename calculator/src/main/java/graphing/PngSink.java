@@ -0,0 +1,176 @@
+package graphing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An ImageSink that writes PNG files with its own small encoder.
+ *
+ * javax.imageio needs the whole picture as a BufferedImage, so instead
+ * each row is compressed as soon as it arrives with java.util.zip.Deflater
+ * and the compressed data is written out in IDAT chunks of up to 64 KB.
+ * Memory use stays the same however large the image is.
+ *
+ * Rows are stored without a PNG filter, and the fastest compression level
+ * is used by default: plots are mostly long runs of background, which
+ * deflate shrinks well even at that level.
+ */
+public class PngSink extends ImageSink {
+
+    /** The eight bytes every PNG file starts with */
+    private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+
+    /** Largest IDAT chunk written */
+    private static final int IDAT_BYTES = 64 * 1024;
+
+    /** The file */
+    private final FileChannel channel;
+
+    /** Compresses the rows */
+    private final Deflater deflater;
+
+    /** A row with its filter-type byte in front */
+    private final byte[] line;
+
+    /** Compressed bytes waiting to be written as an IDAT chunk */
+    private final byte[] compressed = new byte[IDAT_BYTES];
+
+    /** Number of bytes in compressed */
+    private int compressedLength;
+
+    /** Computes the checksum of each chunk */
+    private final CRC32 crc = new CRC32();
+
+    /** Total bytes written to the file */
+    private long bytesWritten;
+
+    private PngSink(Path path, int width, int height, boolean color, int level) throws IOException {
+        super(width, height, color);
+        line = new byte[1 + width * getChannels()]; // line[0] = 0: no filter
+        deflater = new Deflater(level);
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            write(ByteBuffer.wrap(SIGNATURE));
+
+            ByteBuffer header = ByteBuffer.allocate(13);
+            header.putInt(width).putInt(height);
+            header.put((byte) 8);                  // 8 bits per channel
+            header.put((byte) (color ? 2 : 0));    // truecolor or grayscale
+            header.put((byte) 0).put((byte) 0).put((byte) 0); // deflate, no filter choice, no interlace
+            writeChunk("IHDR", header.array(), 13);
+        } catch (IOException e) {
+            channel.close();
+            deflater.end();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a sink that writes a gray PNG file, replacing anything
+     * already in it.
+     *
+     * @param path the file to write
+     * @param width image width in pixels
+     * @param height image height in pixels
+     * @return a sink for the file
+     * @throws IOException if the file cannot be opened
+     */
+    public static PngSink gray(Path path, int width, int height) throws IOException {
+        return new PngSink(path, width, height, false, Deflater.BEST_SPEED);
+    }
+
+    /**
+     * Creates a sink that writes a color PNG file, replacing anything
+     * already in it.
+     *
+     * @param path the file to write
+     * @param width image width in pixels
+     * @param height image height in pixels
+     * @return a sink for the file
+     * @throws IOException if the file cannot be opened
+     */
+    public static PngSink color(Path path, int width, int height) throws IOException {
+        return new PngSink(path, width, height, true, Deflater.BEST_SPEED);
+    }
+
+    @Override
+    protected void writePixels(byte[] pixels) throws IOException {
+        System.arraycopy(pixels, 0, line, 1, pixels.length);
+        deflater.setInput(line);
+        while (!deflater.needsInput()) {
+            deflate();
+        }
+    }
+
+    /**
+     * Runs the compressor once, writing an IDAT chunk whenever the
+     * compressed buffer is full.
+     */
+    private void deflate() throws IOException {
+        if (compressedLength == compressed.length) {
+            writeChunk("IDAT", compressed, compressedLength);
+            compressedLength = 0;
+        }
+        compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+    }
+
+    /**
+     * Compressed data is only complete once the last row is in, so there
+     * is nothing useful to flush before then.
+     */
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    protected void finish() throws IOException {
+        try {
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate();
+            }
+            if (compressedLength > 0) {
+                writeChunk("IDAT", compressed, compressedLength);
+                compressedLength = 0;
+            }
+            writeChunk("IEND", new byte[0], 0);
+        } finally {
+            deflater.end();
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes one chunk: its length, type, data and CRC.
+     */
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+        crc.reset();
+        crc.update(name);
+        crc.update(data, 0, length);
+
+        ByteBuffer chunk = ByteBuffer.allocate(12 + length);
+        chunk.putInt(length).put(name).put(data, 0, length).putInt((int) crc.getValue());
+        chunk.flip();
+        write(chunk);
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package graphing;
+
+import java.util.Objects;
+
+
+/**
+ * Represents a quadratic mathematical function of the form:
+ * 
+ * y = ax² + bx + c
+ * 
+ * This class implements the Function interface and provides
+ * an evaluation method for quadratic equations.
+ */
+public class QuadraticFunction implements Function {
+	
+    /** Coefficient a (controls the parabola's opening and width) */
+	private double coefficentA;
+
+    /** Coefficient b (controls the linear component) */
+    private double coefficentB;
+
+    /** Coefficient c (constant term / y-intercept) */
+    private double coefficentC;
+    
+    /**
+     * Constructs a quadratic function using the given coefficients.
+     *
+     * @param coefficentA the quadratic coefficient (a)
+     * @param coefficentB the linear coefficient (b)
+     * @param coefficentC the constant term (c)
+     */
+    public QuadraticFunction(double coefficentA, double coefficentB, double coefficentC) {
+        this.coefficentA = coefficentA;
+        this.coefficentB = coefficentB;
+        this.coefficentC = coefficentC;
+    }
+
+    /**
+     * Returns the quadratic coefficient (a).
+     *
+     * @return the quadratic coefficient (a)
+     */
+    public double getCoefficentA() {
+        return coefficentA;
+    }
+
+    /**
+     * Returns the linear coefficient (b).
+     *
+     * @return the linear coefficient (b)
+     */
+    public double getCoefficentB() {
+        return coefficentB;
+    }
+
+    /**
+     * Returns the constant term (c).
+     *
+     * @return the constant term (c)
+     */
+    public double getCoefficentC() {
+        return coefficentC;
+    }
+
+    /**
+     * Evaluates the quadratic function at a given x-value.
+     *
+     * @param x the input value
+     * @return the computed y-value using y = ax² + bx + c
+     */
+    @Override
+    public double evaluate(double x) {
+        // Apply the quadratic formula
+    	double y = coefficentA * Math.pow(x, 2) + coefficentB * x + coefficentC;
+        return y;
+    }
+
+    /**
+     * Evaluates the quadratic function at many x-values in one loop.
+     *
+     * @param xs the input values
+     * @param out the array receiving the y-values
+     * @param offset the first index to evaluate
+     * @param length the number of values to evaluate
+     */
+    @Override
+    public void evaluate(double[] xs, double[] out, int offset, int length) {
+        // Use the SIMD loop when the Vector API is available
+        if (VectorSupport.use(length)) {
+            VectorKernels.quadratic(coefficentA, coefficentB, coefficentC, xs, out, offset, length);
+            return;
+        }
+        // x * x gives the same result as Math.pow(x, 2) without the call
+        double a = coefficentA;
+        double b = coefficentB;
+        double c = coefficentC;
+        for (int i = offset; i < offset + length; i++) {
+            double x = xs[i];
+            out[i] = a * (x * x) + b * x + c;
+        }
+    }
+
+    /**
+     * Evaluates the quadratic function on the grid x = start + i * step.
+     *
+     * @param start the first x-value of the grid
+     * @param step the spacing between grid points
+     * @param out the array receiving the y-values
+     * @param offset the index of out that receives the first result
+     * @param count the number of grid points
+     */
+    @Override
+    public void evaluateGrid(double start, double step, double[] out, int offset, int count) {
+        if (VectorSupport.use(count)) {
+            VectorKernels.quadraticGrid(coefficentA, coefficentB, coefficentC, start, step, out, offset, count);
+            return;
+        }
+        double a = coefficentA;
+        double b = coefficentB;
+        double c = coefficentC;
+        for (int i = 0; i < count; i++) {
+            double x = start + i * step;
+            out[offset + i] = a * (x * x) + b * x + c;
+        }
+    }
+
+    /**
+     * Returns the range of the parabola over [lo, hi]: the values at the two
+     * ends, plus the vertex when it lies inside the range.
+     *
+     * @param lo the lower end of the x-range
+     * @param hi the upper end of the x-range
+     * @return the range of y-values
+     */
+    @Override
+    public Interval evaluateInterval(double lo, double hi) {
+        Interval range = Interval.between(evaluate(lo), evaluate(hi));
+        if (coefficentA != 0) {
+            double vertexX = -coefficentB / (2 * coefficentA);
+            if (vertexX > lo && vertexX < hi) {
+                range = range.include(evaluate(vertexX));
+            }
+        }
+        return range;
+    }
+
+    /**
+     * Two quadratics are equal when they have the same coefficients.
+     *
+     * @param other the object to compare with
+     * @return true if other is a QuadraticFunction with the same coefficients
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        QuadraticFunction that = (QuadraticFunction) other;
+        return Double.compare(coefficentA, that.coefficentA) == 0 &&
+                Double.compare(coefficentB, that.coefficentB) == 0 &&
+                Double.compare(coefficentC, that.coefficentC) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(coefficentA, coefficentB, coefficentC);
+    }
+}
\ No newline at end of file
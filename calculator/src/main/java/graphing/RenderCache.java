@@ -0,0 +1,252 @@
+package graphing;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+/**
+ * Remembers recently rendered grids so the same plot is not computed twice.
+ *
+ * Each entry holds the column samples and the finished rows, keyed by the
+ * function and everything that decides what the grid looks like: the x-
+ * and y-bounds and the grid size. Functions are compared with equals, so a
+ * new LinearFunction(2, 1) finds the grid drawn for an earlier
+ * LinearFunction(2, 1). The samples come back with the rows, so after a hit
+ * the next pan or zoom can reuse them just as it would after a render.
+ *
+ * The cache is bounded by an estimate of the memory its entries use rather
+ * than by their number, because one 5000x1000 grid is as big as hundreds of
+ * console-sized ones. When it is full, the least recently used entries are
+ * dropped first.
+ */
+public class RenderCache {
+
+    /** Default memory budget: 32 MB */
+    public static final long DEFAULT_MAX_BYTES = 32L << 20;
+
+    /** Rough memory used by an entry besides its arrays */
+    private static final int ENTRY_OVERHEAD = 128;
+
+    /** Most memory the entries may use */
+    private final long maxBytes;
+
+    /** Estimated memory used by the entries */
+    private long bytes;
+
+    /** The entries, least recently used first */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Number of lookups that found an entry */
+    private long hits;
+
+    /** Number of lookups that found nothing */
+    private long misses;
+
+    /** Number of entries dropped to stay within the memory budget */
+    private long evictions;
+
+    /**
+     * Constructs a cache with the default memory budget.
+     */
+    public RenderCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Constructs a cache that holds at most about maxBytes of grids.
+     *
+     * @param maxBytes the memory budget in bytes
+     */
+    public RenderCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive.");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Looks up the grid rendered for a function with the given bounds and size.
+     *
+     * @return the entry, or null if it is not cached
+     */
+    synchronized Entry get(Function f, double minX, double maxX, double minY, double maxY,
+                           int width, int height) {
+        Entry entry = entries.get(new Key(f, minX, maxX, minY, maxY, width, height));
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+
+    /**
+     * Stores a rendered grid, dropping the least recently used entries if
+     * the cache grows past its budget. A grid bigger than the whole budget
+     * is not stored.
+     *
+     * @param samples the filled column samples the grid was drawn from
+     * @param rows the finished grid, which must not be changed afterwards
+     */
+    synchronized void put(Function f, double minX, double maxX, double minY, double maxY,
+                          int width, int height, SampleBuffer samples, char[][] rows) {
+        Entry entry = new Entry(samples, rows);
+        if (entry.bytes > maxBytes) {
+            return;
+        }
+        Entry old = entries.put(new Key(f, minX, maxX, minY, maxY, width, height), entry);
+        if (old != null) {
+            bytes -= old.bytes;
+        }
+        bytes += entry.bytes;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().bytes;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes every entry. The counters are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Returns the number of grids in the cache.
+     *
+     * @return the entry count
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the estimated memory used by the cached grids.
+     *
+     * @return the size in bytes
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the memory budget.
+     *
+     * @return the budget in bytes
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the number of lookups that found a cached grid.
+     *
+     * @return the hit count
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that had to render the grid.
+     *
+     * @return the miss count
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of grids dropped to stay within the budget.
+     *
+     * @return the eviction count
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RenderCache[" + entries.size() + " grids, " + bytes + " bytes, " + hits + " hits, "
+                + misses + " misses, " + evictions + " evictions]";
+    }
+
+    /**
+     * What a grid was rendered from.
+     */
+    private static final class Key {
+
+        private final Function f;
+        private final double minX;
+        private final double maxX;
+        private final double minY;
+        private final double maxY;
+        private final int width;
+        private final int height;
+
+        Key(Function f, double minX, double maxX, double minY, double maxY, int width, int height) {
+            this.f = f;
+            this.minX = minX;
+            this.maxX = maxX;
+            this.minY = minY;
+            this.maxY = maxY;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) other;
+            return width == that.width && height == that.height
+                    && Double.compare(minX, that.minX) == 0 && Double.compare(maxX, that.maxX) == 0
+                    && Double.compare(minY, that.minY) == 0 && Double.compare(maxY, that.maxY) == 0
+                    && f.equals(that.f);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(f, minX, maxX, minY, maxY, width, height);
+        }
+    }
+
+    /**
+     * A cached grid and the column samples it was drawn from.
+     */
+    static final class Entry {
+
+        /** The column samples, with their errors */
+        private final SampleBuffer samples;
+
+        /** The finished grid, indexed [row][col] */
+        private final char[][] rows;
+
+        /** Estimated memory used by this entry */
+        private final long bytes;
+
+        Entry(SampleBuffer samples, char[][] rows) {
+            this.samples = samples;
+            this.rows = rows;
+            long size = ENTRY_OVERHEAD + 16L * samples.size(); // a y-value and an error each
+            for (char[] row : rows) {
+                size += 16 + 2L * row.length;
+            }
+            this.bytes = size;
+        }
+
+        SampleBuffer getSamples() {
+            return samples;
+        }
+
+        char[][] getRows() {
+            return rows;
+        }
+    }
+}
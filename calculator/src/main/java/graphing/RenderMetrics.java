@@ -0,0 +1,354 @@
+package graphing;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Counters and histograms that show where the time of each plot goes:
+ * evaluating the function, turning samples into cells, or writing the
+ * output.
+ *
+ * Metrics are off unless the program is started with
+ * -Dgrapher.metrics=true. ENABLED is a static final constant, so when it
+ * is false the JIT removes every check of it together with the timing
+ * code behind it, and plotting costs exactly what it did before.
+ *
+ * When metrics are on:
+ * - counters and histograms are kept here (LongAdders, so many plotting
+ *   threads can update them without contention);
+ * - they are published through JMX as "grapher:type=RenderMetrics"
+ *   (see RenderMetricsMBean);
+ * - each plot is also recorded as a "grapher.Render" Flight Recorder
+ *   event, and each printed plot as a "grapher.Output" event, whenever a
+ *   recording is running (for example with -XX:StartFlightRecording).
+ */
+public final class RenderMetrics implements RenderMetricsMBean {
+
+    /** True when metrics are collected */
+    public static final boolean ENABLED = Boolean.getBoolean("grapher.metrics");
+
+    /** The single instance, which is also the registered MBean */
+    private static final RenderMetrics INSTANCE = new RenderMetrics();
+
+    private final LongAdder plots = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder offGridSamples = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final Histogram evaluationsPerPlot = new Histogram();
+    private final Histogram evaluateNanos = new Histogram();
+    private final Histogram rasterNanos = new Histogram();
+    private final Histogram outputNanos = new Histogram();
+
+    static {
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE,
+                        new ObjectName("grapher:type=RenderMetrics"));
+            } catch (JMException e) {
+                System.out.println("Error: Could not register the metrics MBean: " + e.getMessage());
+            }
+        }
+    }
+
+    private RenderMetrics() {
+    }
+
+    /**
+     * Returns the metrics collected so far (all zero when metrics are off).
+     *
+     * @return the metrics
+     */
+    public static RenderMetricsMBean get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts timing a plot.
+     *
+     * @return the event to finish, or null when metrics are off
+     */
+    static RenderEvent startRender() {
+        if (!ENABLED) {
+            return null;
+        }
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Records a finished plot.
+     *
+     * @param event the event from startRender (null when metrics are off)
+     * @param kind what was drawn, for example "render" or "overlay"
+     * @param f the function plotted (may be null for plots of several functions)
+     * @param spec the bounds and size of the plot
+     * @param stats the work counted while drawing
+     * @param cached true when the grid came from the cache
+     */
+    static void finishRender(RenderEvent event, String kind, Function f, RenderSpec spec,
+                             RenderStats stats, boolean cached) {
+        if (!ENABLED || event == null) {
+            return;
+        }
+        INSTANCE.plots.increment();
+        if (cached) {
+            INSTANCE.cacheHits.increment();
+        } else {
+            INSTANCE.evaluations.add(stats.getEvaluations());
+            INSTANCE.offGridSamples.add(stats.getOffGridSamples());
+            INSTANCE.evaluationsPerPlot.record(stats.getEvaluations());
+            INSTANCE.evaluateNanos.record(stats.getEvaluateNanos());
+            INSTANCE.rasterNanos.record(stats.getRasterNanos());
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = kind;
+            event.function = f != null ? f.toString() : null;
+            event.width = spec.getWidth();
+            event.height = spec.getHeight();
+            event.cached = cached;
+            event.evaluations = stats.getEvaluations();
+            event.offGridSamples = stats.getOffGridSamples();
+            event.evaluateNanos = stats.getEvaluateNanos();
+            event.rasterNanos = stats.getRasterNanos();
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing the output of a plot.
+     *
+     * @return the event to finish, or null when metrics are off
+     */
+    static OutputEvent startOutput() {
+        if (!ENABLED) {
+            return null;
+        }
+        OutputEvent event = new OutputEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Records a plot written to its sink.
+     *
+     * @param event the event from startOutput (null when metrics are off)
+     * @param nanos time spent writing
+     * @param bytes bytes written
+     */
+    static void finishOutput(OutputEvent event, long nanos, long bytes) {
+        if (!ENABLED || event == null) {
+            return;
+        }
+        INSTANCE.outputNanos.record(nanos);
+        INSTANCE.bytesWritten.add(bytes);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    @Override
+    public long getPlots() {
+        return plots.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getEvaluations() {
+        return evaluations.sum();
+    }
+
+    @Override
+    public double getMeanEvaluationsPerPlot() {
+        return evaluationsPerPlot.mean();
+    }
+
+    @Override
+    public long getOffGridSamples() {
+        return offGridSamples.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public double getMeanEvaluateNanos() {
+        return evaluateNanos.mean();
+    }
+
+    @Override
+    public long getP99EvaluateNanos() {
+        return evaluateNanos.percentile(0.99);
+    }
+
+    @Override
+    public double getMeanRasterNanos() {
+        return rasterNanos.mean();
+    }
+
+    @Override
+    public long getP99RasterNanos() {
+        return rasterNanos.percentile(0.99);
+    }
+
+    @Override
+    public double getMeanOutputNanos() {
+        return outputNanos.mean();
+    }
+
+    @Override
+    public long getP99OutputNanos() {
+        return outputNanos.percentile(0.99);
+    }
+
+    @Override
+    public void reset() {
+        plots.reset();
+        cacheHits.reset();
+        evaluations.reset();
+        offGridSamples.reset();
+        bytesWritten.reset();
+        evaluationsPerPlot.reset();
+        evaluateNanos.reset();
+        rasterNanos.reset();
+        outputNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "RenderMetrics[" + getPlots() + " plots, " + getCacheHits() + " cached, "
+                + getEvaluations() + " evaluations, " + getOffGridSamples() + " off-grid samples, "
+                + getBytesWritten() + " bytes written, mean evaluate/raster/output "
+                + Math.round(getMeanEvaluateNanos()) + "/" + Math.round(getMeanRasterNanos()) + "/"
+                + Math.round(getMeanOutputNanos()) + " ns]";
+    }
+
+    /**
+     * A histogram of non-negative values in power-of-two buckets: bucket i
+     * holds values below 2^i. Recording is a few atomic adds, with no
+     * locks and no allocation.
+     */
+    private static final class Histogram {
+
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long value) {
+            long v = Math.max(0, value);
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(v));
+            count.increment();
+            sum.add(v);
+            max.accumulate(v);
+        }
+
+        double mean() {
+            long n = count.sum();
+            return n == 0 ? 0 : (double) sum.sum() / n;
+        }
+
+        /**
+         * Returns the upper edge of the bucket holding the given fraction
+         * of the values, capped at the largest value seen.
+         */
+        long percentile(double fraction) {
+            long n = count.sum();
+            if (n == 0) {
+                return 0;
+            }
+            long wanted = (long) Math.ceil(n * fraction);
+            long seen = 0;
+            for (int i = 0; i < 64; i++) {
+                seen += buckets.get(i);
+                if (seen >= wanted) {
+                    return i >= 63 ? max.get() : Math.min((1L << i) - 1, max.get());
+                }
+            }
+            return max.get();
+        }
+
+        void reset() {
+            for (int i = 0; i < 64; i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            sum.reset();
+            max.reset();
+        }
+    }
+
+    /**
+     * Flight Recorder event for one plot.
+     */
+    @Name("grapher.Render")
+    @Label("Render")
+    @Category("Graphing Calculator")
+    @Description("One plot drawn by Grapher")
+    static final class RenderEvent extends Event {
+        @Label("Kind")
+        String kind;
+
+        @Label("Function")
+        String function;
+
+        @Label("Width")
+        int width;
+
+        @Label("Height")
+        int height;
+
+        @Label("From Cache")
+        boolean cached;
+
+        @Label("Evaluations")
+        long evaluations;
+
+        @Label("Off-Grid Samples")
+        long offGridSamples;
+
+        @Label("Evaluate Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long evaluateNanos;
+
+        @Label("Raster Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long rasterNanos;
+    }
+
+    /**
+     * Flight Recorder event for one plot written to its sink.
+     */
+    @Name("grapher.Output")
+    @Label("Output")
+    @Category("Graphing Calculator")
+    @Description("A plot written to its sink")
+    static final class OutputEvent extends Event {
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+}
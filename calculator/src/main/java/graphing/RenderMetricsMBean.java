@@ -0,0 +1,48 @@
+package graphing;
+
+/**
+ * The plotting metrics as seen through JMX (for example in JConsole or
+ * JDK Mission Control), under the name "grapher:type=RenderMetrics".
+ * Times are in nanoseconds; percentiles are rounded up to a power of two.
+ */
+public interface RenderMetricsMBean {
+
+    /** @return plots rendered, including cache hits */
+    long getPlots();
+
+    /** @return plots taken from the cache */
+    long getCacheHits();
+
+    /** @return function evaluations over all plots */
+    long getEvaluations();
+
+    /** @return mean function evaluations per rendered plot */
+    double getMeanEvaluationsPerPlot();
+
+    /** @return column samples that fell off the grid and were not drawn */
+    long getOffGridSamples();
+
+    /** @return bytes written by printed plots */
+    long getBytesWritten();
+
+    /** @return mean time spent evaluating the function per plot */
+    double getMeanEvaluateNanos();
+
+    /** @return 99th percentile of the time spent evaluating per plot */
+    long getP99EvaluateNanos();
+
+    /** @return mean time spent turning samples into cells per plot */
+    double getMeanRasterNanos();
+
+    /** @return 99th percentile of the time spent turning samples into cells per plot */
+    long getP99RasterNanos();
+
+    /** @return mean time spent writing a plot to its sink */
+    double getMeanOutputNanos();
+
+    /** @return 99th percentile of the time spent writing a plot to its sink */
+    long getP99OutputNanos();
+
+    /** Sets every counter and histogram back to zero. */
+    void reset();
+}
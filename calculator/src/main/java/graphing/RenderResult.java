@@ -0,0 +1,137 @@
+package graphing;
+
+import java.io.IOException;
+
+/**
+ * A finished plot returned by Grapher.render(Function, RenderSpec): the
+ * grid of characters, the spec it was drawn with and how much work it
+ * took.
+ *
+ * A result never changes after it is returned. Its grid may be the very
+ * one kept in a RenderCache, so it is never handed out directly: getRow
+ * and toGrid return copies.
+ */
+public final class RenderResult {
+
+    /** The spec the grid was drawn with */
+    private final RenderSpec spec;
+
+    /** The grid, indexed [row][col]; never changed after construction */
+    private final char[][] rows;
+
+    /** Function evaluations used (0 when the grid came from the cache) */
+    private final long evaluations;
+
+    /** True when the grid was found in the cache */
+    private final boolean cached;
+
+    /** The column samples the grid was drawn from */
+    private final SampleBuffer samples;
+
+    RenderResult(RenderSpec spec, char[][] rows, long evaluations, boolean cached, SampleBuffer samples) {
+        this.spec = spec;
+        this.rows = rows;
+        this.evaluations = evaluations;
+        this.cached = cached;
+        this.samples = samples;
+    }
+
+    /**
+     * Returns the column samples the grid was drawn from, which Grapher
+     * hands to the next plot of its stored view after a pan or zoom.
+     */
+    SampleBuffer getSamples() {
+        return samples;
+    }
+
+    /**
+     * Returns the spec the plot was drawn with.
+     *
+     * @return the spec
+     */
+    public RenderSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * Returns the character in one cell of the grid.
+     *
+     * @param row the row (0 is the top)
+     * @param col the column
+     * @return the character
+     */
+    public char getCell(int row, int col) {
+        return rows[row][col];
+    }
+
+    /**
+     * Returns a copy of one row of the grid.
+     *
+     * @param row the row (0 is the top)
+     * @return the row's characters
+     */
+    public char[] getRow(int row) {
+        return rows[row].clone();
+    }
+
+    /**
+     * Returns a copy of the whole grid that the caller may change.
+     *
+     * @return the grid, indexed [row][col]
+     */
+    public char[][] toGrid() {
+        char[][] copy = new char[rows.length][];
+        for (int row = 0; row < rows.length; row++) {
+            copy[row] = rows[row].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the grid without copying it, for Grapher's own use. It must
+     * not be changed.
+     */
+    char[][] sharedRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of function evaluations used to draw the plot.
+     *
+     * @return the evaluation count, 0 if the grid came from the cache
+     */
+    public long getEvaluationCount() {
+        return evaluations;
+    }
+
+    /**
+     * Checks whether the grid was found in the cache instead of drawn.
+     *
+     * @return true for a cache hit
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * Writes the grid row by row to a sink and flushes it.
+     *
+     * @param sink where the rows are written
+     * @throws IOException if the sink cannot be written
+     */
+    public void writeTo(RenderSink sink) throws IOException {
+        for (char[] row : rows) {
+            sink.writeRow(row);
+        }
+        sink.flush();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (char[] row : rows) {
+            text.append(row).append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package graphing;
+
+import java.io.IOException;
+
+/**
+ * Destination for rendered text, such as the console or a file.
+ * 
+ * Grapher hands a sink whole rows of characters instead of printing one
+ * character at a time, so implementations can encode and write output in
+ * large blocks.
+ */
+public interface RenderSink {
+
+    /**
+     * Writes length characters of chars, starting at offset.
+     * @param chars the characters to write
+     * @param offset index of the first character
+     * @param length number of characters to write
+     * @throws IOException if the output cannot be written
+     */
+    void write(char[] chars, int offset, int length) throws IOException;
+
+    /**
+     * Ends the current line.
+     * @throws IOException if the output cannot be written
+     */
+    void newLine() throws IOException;
+
+    /**
+     * Pushes any buffered output to its destination.
+     * @throws IOException if the output cannot be written
+     */
+    void flush() throws IOException;
+
+    /**
+     * Returns the number of bytes written to the destination so far.
+     * @return total bytes written
+     */
+    long bytesWritten();
+
+    /**
+     * Writes a whole row followed by a line break.
+     * @param row the characters of the row
+     * @throws IOException if the output cannot be written
+     */
+    default void writeRow(char[] row) throws IOException {
+        write(row, 0, row.length);
+        newLine();
+    }
+}
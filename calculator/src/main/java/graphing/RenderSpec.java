@@ -0,0 +1,276 @@
+package graphing;
+
+import java.util.Objects;
+
+/**
+ * The bounds and size of one plot, plus the arithmetic that maps between
+ * x/y values and grid columns/rows.
+ *
+ * A RenderSpec never changes after it is made, so one can be handed to
+ * any number of threads. Grapher.render(Function, RenderSpec) takes
+ * everything it needs from the spec instead of from fields of the
+ * Grapher, which is what lets many threads share one Grapher.
+ *
+ * Like the plot methods, the constructor does not reject odd bounds
+ * (min above max); such plots are simply empty or mirrored.
+ */
+public final class RenderSpec {
+
+    private final double minX;
+    private final double maxX;
+    private final double minY;
+    private final double maxY;
+    private final int width;
+    private final int height;
+
+    /**
+     * Creates a spec.
+     *
+     * @param minX Minimum x-value
+     * @param maxX Maximum x-value
+     * @param minY Minimum y-value
+     * @param maxY Maximum y-value
+     * @param width Width of the ASCII grid
+     * @param height Height of the ASCII grid
+     */
+    public RenderSpec(double minX, double maxX, double minY, double maxY, int width, int height) {
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Returns the minimum x-value.
+     *
+     * @return the minimum x-value
+     */
+    public double getMinX() {
+        return minX;
+    }
+
+    /**
+     * Returns the maximum x-value.
+     *
+     * @return the maximum x-value
+     */
+    public double getMaxX() {
+        return maxX;
+    }
+
+    /**
+     * Returns the minimum y-value.
+     *
+     * @return the minimum y-value
+     */
+    public double getMinY() {
+        return minY;
+    }
+
+    /**
+     * Returns the maximum y-value.
+     *
+     * @return the maximum y-value
+     */
+    public double getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * Returns the width of the grid in columns.
+     *
+     * @return the width of the grid in columns
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the grid in rows.
+     *
+     * @return the height of the grid in rows
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns a spec with new x-bounds and everything else the same.
+     *
+     * @param minX Minimum x-value
+     * @param maxX Maximum x-value
+     * @return the new spec
+     */
+    public RenderSpec withX(double minX, double maxX) {
+        return new RenderSpec(minX, maxX, minY, maxY, width, height);
+    }
+
+    /**
+     * Returns the x-distance between the left edges of neighboring columns.
+     *
+     * @return Column width in x units
+     */
+    public double columnStep() {
+        return width > 1 ? (maxX - minX) / (width - 1) : 0;
+    }
+
+    /**
+     * Returns the x-value at the left edge of a column.
+     *
+     * @param col Column index
+     * @return The x-value that xToCol maps to the start of that column
+     */
+    public double columnX(int col) {
+        return minX + col * columnStep();
+    }
+
+    /**
+     * Returns the y-distance covered by one row.
+     *
+     * @return Row height in y units
+     */
+    public double rowHeight() {
+        return Math.abs(maxY - minY) / Math.max(height - 1, 1);
+    }
+
+    /**
+     * Converts a y-value to a fractional row count measured up from the
+     * bottom of the grid, without rounding or clamping. yToRow truncates
+     * this value to pick a row.
+     *
+     * @param y The y-value
+     * @return Rows above the bottom edge (negative below the grid)
+     */
+    public double rowPosition(double y) {
+        double percent = (y - minY) / (maxY - minY);
+        return percent * (height - 1);
+    }
+
+    /**
+     * Converts an x-value to the corresponding column index in the ASCII grid.
+     *
+     * @param x The x-value
+     * @return Column index on the grid
+     */
+    public int xToCol(double x) {
+        double percent = (x - minX) / (maxX - minX);
+        return (int) (percent * (width - 1)); // Scale to grid width
+    }
+
+    /**
+     * Converts a y-value to the corresponding row index in the ASCII grid.
+     *
+     * @param y The y-value
+     * @return Row index on the grid
+     */
+    public int yToRow(double y) {
+        double percent = (y - minY) / (maxY - minY);
+
+        // Flip vertically because row 0 is at the top
+        return height - 1 - (int) (percent * (height - 1));
+    }
+
+    /**
+     * Finds the row a y-value is drawn in.
+     *
+     * @param y The y-value
+     * @return The row index, or -1 if y is off the grid or not a number
+     */
+    public int pointRow(double y) {
+        if (Double.isNaN(y)) {
+            return -1;
+        }
+        double position = rowPosition(y);
+        if (position <= -1 || position >= height) {
+            return -1; // off the top or bottom of the grid
+        }
+        int row = yToRow(y);
+        return row >= 0 && row < height ? row : -1;
+    }
+
+    /**
+     * Checks whether any y-value between lo and hi lands on the grid.
+     *
+     * @param lo Lowest y-value
+     * @param hi Highest y-value
+     * @return true if at least one row is covered
+     */
+    public boolean rangeVisible(double lo, double hi) {
+        double bottom = rowPosition(lo);
+        double top = rowPosition(hi);
+        return !Double.isNaN(bottom) && !Double.isNaN(top) && top > -1 && bottom < height;
+    }
+
+    /**
+     * Returns the top row covered by a range of y-values, clamped to the grid.
+     *
+     * @param hi Highest y-value of the range
+     * @return Row index of hi, or 0 if hi is above the grid
+     */
+    public int rangeFirstRow(double hi) {
+        // Clamp to the grid, then convert with the same rounding as yToRow
+        return rowPosition(hi) >= height ? 0 : Math.max(yToRow(hi), 0);
+    }
+
+    /**
+     * Returns the bottom row covered by a range of y-values, clamped to the grid.
+     *
+     * @param lo Lowest y-value of the range
+     * @return Row index of lo, or the last row if lo is below the grid
+     */
+    public int rangeLastRow(double lo) {
+        return rowPosition(lo) <= -1 ? height - 1 : Math.min(yToRow(lo), height - 1);
+    }
+
+    /**
+     * Checks whether y is within the given error of a row boundary, meaning
+     * the exact value might belong to a different row.
+     *
+     * @param y The (possibly approximate) y-value
+     * @param error Largest possible distance from the exact y-value
+     * @return true if the row of y cannot be trusted
+     */
+    public boolean nearRowBoundary(double y, double error) {
+        if (!(error > 0) || Double.isNaN(y) || Double.isInfinite(y)) {
+            return false;
+        }
+        // Same scaling as yToRow, with a little slack for rounding
+        double scale = (height - 1) / (maxY - minY);
+        double position = rowPosition(y);
+        double slack = Math.abs(error * scale) + 1e-9;
+        return Math.floor(position - slack) != Math.floor(position + slack);
+    }
+
+    /**
+     * Two specs are equal when their bounds and sizes are the same.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        RenderSpec that = (RenderSpec) o;
+        return Double.compare(minX, that.minX) == 0
+                && Double.compare(maxX, that.maxX) == 0
+                && Double.compare(minY, that.minY) == 0
+                && Double.compare(maxY, that.maxY) == 0
+                && width == that.width
+                && height == that.height;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minX, maxX, minY, maxY, width, height);
+    }
+
+    @Override
+    public String toString() {
+        return "RenderSpec[x " + minX + " to " + maxX + ", y " + minY + " to " + maxY
+                + ", " + width + "x" + height + "]";
+    }
+}
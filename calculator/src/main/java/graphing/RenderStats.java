@@ -0,0 +1,59 @@
+package graphing;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the work done for one plot. Strips of a wide plot run on several
+ * threads and all add to the same RenderStats, so the counts are
+ * LongAdders.
+ *
+ * Evaluations are always counted (Grapher.getEvaluationCount reports
+ * them). The timings and the off-grid count are only collected when
+ * RenderMetrics.ENABLED is on; otherwise they stay 0.
+ */
+final class RenderStats {
+
+    /** Function evaluations */
+    private final LongAdder evaluations = new LongAdder();
+
+    /** Time spent sampling the function, summed over threads */
+    private final LongAdder evaluateNanos = new LongAdder();
+
+    /** Time spent turning samples into cells (including refinement), summed over threads */
+    private final LongAdder rasterNanos = new LongAdder();
+
+    /** Column samples that fell above, below or outside the grid */
+    private final LongAdder offGridSamples = new LongAdder();
+
+    void addEvaluations(long count) {
+        evaluations.add(count);
+    }
+
+    void addEvaluateNanos(long nanos) {
+        evaluateNanos.add(nanos);
+    }
+
+    void addRasterNanos(long nanos) {
+        rasterNanos.add(nanos);
+    }
+
+    void addOffGridSamples(long count) {
+        offGridSamples.add(count);
+    }
+
+    long getEvaluations() {
+        return evaluations.sum();
+    }
+
+    long getEvaluateNanos() {
+        return evaluateNanos.sum();
+    }
+
+    long getRasterNanos() {
+        return rasterNanos.sum();
+    }
+
+    long getOffGridSamples() {
+        return offGridSamples.sum();
+    }
+}
@@ -0,0 +1,113 @@
+package graphing;
+
+/**
+ * The y-values sampled for one row of evenly spaced x-values
+ * (x = firstX + i * step), kept after a render so the next render can reuse
+ * them.
+ *
+ * Samples are looked up by x-value, not by column, so they still line up
+ * after the window moves: when the plot is panned, the columns that stay on
+ * screen find their old samples, and when it is zoomed, the new columns
+ * that fall on old columns do.
+ *
+ * Each sample keeps the largest possible error of its value (from drift or
+ * a fast trig kernel), so the grapher can check that the value is still
+ * accurate enough for the new row height.
+ */
+final class SampleBuffer {
+
+    /** How far apart two x-values may be and still count as the same column, in steps */
+    private static final double ALIGNMENT = 1e-9;
+
+    /** The function that was sampled */
+    private final Function function;
+
+    /** x-value of the first sample */
+    private final double firstX;
+
+    /** Distance between neighboring samples */
+    private final double step;
+
+    /** The sampled y-values */
+    private final double[] ys;
+
+    /** Largest possible error of each y-value */
+    private final double[] errors;
+
+    /**
+     * Creates an empty buffer for count samples of f.
+     *
+     * @param function the function being sampled
+     * @param firstX the x-value of the first sample
+     * @param step the distance between samples
+     * @param count the number of samples
+     */
+    SampleBuffer(Function function, double firstX, double step, int count) {
+        this.function = function;
+        this.firstX = firstX;
+        this.step = step;
+        this.ys = new double[count];
+        this.errors = new double[count];
+    }
+
+    /**
+     * Checks whether this buffer holds samples of the given function.
+     */
+    boolean holds(Function f) {
+        return function.equals(f);
+    }
+
+    /**
+     * Finds the sample taken at x.
+     *
+     * @param x the x-value
+     * @return the index of the sample at x, or -1 if no sample lines up with x
+     */
+    int indexOf(double x) {
+        if (step <= 0) {
+            return ys.length > 0 && x == firstX ? 0 : -1;
+        }
+        double position = (x - firstX) / step;
+        if (!(position > -0.5 && position < ys.length - 0.5)) {
+            return -1;
+        }
+        int index = (int) Math.round(position);
+        double distance = Math.abs(firstX + index * step - x);
+        double tolerance = Math.max(step * ALIGNMENT, 4 * Math.ulp(x));
+        return distance <= tolerance ? index : -1;
+    }
+
+    /**
+     * Returns the y-value of a sample.
+     */
+    double getY(int index) {
+        return ys[index];
+    }
+
+    /**
+     * Returns the largest possible error of a sample.
+     */
+    double getError(int index) {
+        return errors[index];
+    }
+
+    /**
+     * Copies samples into the buffer.
+     *
+     * @param from index of the first sample to fill
+     * @param values the y-values
+     * @param valueErrors the error of each y-value
+     * @param count number of samples to copy
+     */
+    void store(int from, double[] values, double[] valueErrors, int count) {
+        System.arraycopy(values, 0, ys, from, count);
+        System.arraycopy(valueErrors, 0, errors, from, count);
+    }
+
+    /**
+     * Returns the number of samples.
+     */
+    int size() {
+        return ys.length;
+    }
+}
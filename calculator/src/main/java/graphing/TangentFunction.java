@@ -0,0 +1,248 @@
+package graphing;
+
+import java.util.Objects;
+
+
+/**
+ * Represents a tangent trigonometric function of the form:
+ * 
+ * y = A * tan(Bx + C) + D
+ * 
+ * This class implements the Function interface and allows
+ * evaluation of tangent functions with configurable parameters.
+ */
+public class TangentFunction implements Function {
+
+    /** Amplitude (A): controls the vertical stretch of the graph */
+    private double amplitude;
+
+    /** Frequency (B): affects the period of the tangent function */
+    private double frequency;
+
+    /** Phase shift (C): shifts the graph horizontally */
+    private double phaseShift;
+
+    /** Vertical shift (D): moves the graph up or down */
+    private double verticalShift;
+
+    /**
+     * Constructs a tangent function with the specified parameters.
+     *
+     * @param amplitude the amplitude of the tangent function
+     * @param frequency the frequency factor
+     * @param phaseShift the horizontal phase shift
+     * @param verticalShift the vertical shift
+     */
+    public TangentFunction(double amplitude, double frequency, double phaseShift, double verticalShift) {
+        this.amplitude = amplitude;
+        this.frequency = frequency;
+        this.phaseShift = phaseShift;
+        this.verticalShift = verticalShift;
+    }
+
+    /**
+     * Returns the amplitude (A).
+     *
+     * @return the amplitude (A)
+     */
+    public double getAmplitude() {
+        return amplitude;
+    }
+
+    /**
+     * Returns the frequency (B).
+     *
+     * @return the frequency (B)
+     */
+    public double getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Returns the phase shift (C).
+     *
+     * @return the phase shift (C)
+     */
+    public double getPhaseShift() {
+        return phaseShift;
+    }
+
+    /**
+     * Returns the vertical shift (D).
+     *
+     * @return the vertical shift (D)
+     */
+    public double getVerticalShift() {
+        return verticalShift;
+    }
+
+    /**
+     * Evaluates the tangent function at a given x-value.
+     *
+     * @param x the input value
+     * @return the computed y-value
+     */
+    @Override
+    public double evaluate(double x) {
+        // Apply the tangent function formula
+        return amplitude * Math.tan(frequency * x + phaseShift) + verticalShift;
+    }
+
+    /**
+     * Evaluates the tangent function at many x-values in one loop.
+     *
+     * @param xs the input values
+     * @param out the array receiving the y-values
+     * @param offset the first index to evaluate
+     * @param length the number of values to evaluate
+     */
+    @Override
+    public void evaluate(double[] xs, double[] out, int offset, int length) {
+        double a = amplitude;
+        double b = frequency;
+        double c = phaseShift;
+        double d = verticalShift;
+        for (int i = offset; i < offset + length; i++) {
+            out[i] = a * Math.tan(b * xs[i] + c) + d;
+        }
+    }
+
+    /**
+     * Evaluates the tangent function on the grid x = start + i * step.
+     *
+     * @param start the first x-value of the grid
+     * @param step the spacing between grid points
+     * @param out the array receiving the y-values
+     * @param offset the index of out that receives the first result
+     * @param count the number of grid points
+     */
+    @Override
+    public void evaluateGrid(double start, double step, double[] out, int offset, int count) {
+        double a = amplitude;
+        double b = frequency;
+        double c = phaseShift;
+        double d = verticalShift;
+        for (int i = 0; i < count; i++) {
+            out[offset + i] = a * Math.tan(b * (start + i * step) + c) + d;
+        }
+    }
+
+    /**
+     * Evaluates the tangent function using the fast kernels in FastTrig.
+     *
+     * @param x the input value
+     * @param accuracy the accuracy tier
+     * @return the calculated y-value
+     */
+    @Override
+    public double evaluate(double x, FastTrig.Accuracy accuracy) {
+        return amplitude * FastTrig.tan(frequency * x + phaseShift, accuracy) + verticalShift;
+    }
+
+    /**
+     * Returns the largest error of evaluate(x, accuracy) for a result y.
+     *
+     * @param y the value returned by evaluate(x, accuracy)
+     * @param accuracy the accuracy tier that produced it
+     * @return the largest possible absolute error
+     */
+    @Override
+    public double approximationError(double y, FastTrig.Accuracy accuracy) {
+        // The ratio of two approximations is most sensitive near the poles,
+        // where the error grows with 1 + tan^2
+        double t = amplitude == 0 ? 0 : (y - verticalShift) / amplitude;
+        return 2 * Math.abs(amplitude) * accuracy.errorBound() * (1 + t * t);
+    }
+
+    /**
+     * Returns the range of the tangent over [lo, hi]. Between two poles
+     * (pi/2 + k*pi) tangent only increases, so the range runs between the
+     * values at the two ends; if a pole falls inside [lo, hi] the range is
+     * unbounded.
+     *
+     * @param lo the lower end of the x-range
+     * @param hi the upper end of the x-range
+     * @return the range of y-values
+     */
+    @Override
+    public Interval evaluateInterval(double lo, double hi) {
+        double a1 = frequency * lo + phaseShift;
+        double a2 = frequency * hi + phaseShift;
+        double from = Math.min(a1, a2);
+        double to = Math.max(a1, a2);
+
+        // First pole at or after the start of the range
+        double k = Math.ceil((from - Math.PI / 2) / Math.PI);
+        if (to - from >= Math.PI || Math.PI / 2 + k * Math.PI <= to) {
+            return Interval.ALL;
+        }
+        return Interval.between(Math.tan(from), Math.tan(to)).scale(amplitude, verticalShift);
+    }
+
+    /**
+     * Returns the first pole after x. The poles are where Bx + C reaches
+     * pi/2 + k*pi, so x = (pi/2 + k*pi - C) / B for every whole number k.
+     *
+     * @param x the x-value to search from
+     * @return the next pole, or Double.POSITIVE_INFINITY if there is none
+     */
+    @Override
+    public double nextPole(double x) {
+        if (amplitude == 0 || frequency == 0 || !Double.isFinite(x)) {
+            return Double.POSITIVE_INFINITY; // a flat line, or nowhere to search from
+        }
+        // How many poles along the angle Bx + C x lies; a positive B meets
+        // the poles in increasing k, a negative B in decreasing k
+        double position = (frequency * x + phaseShift - Math.PI / 2) / Math.PI;
+        double step = frequency > 0 ? 1 : -1;
+        double k = frequency > 0 ? Math.floor(position) : Math.ceil(position);
+
+        // Start at the pole at or before x, since rounding may have moved
+        // position past a pole just after x, then step forward
+        for (int tries = 0; tries < 3; tries++) {
+            double pole = (Math.PI / 2 + k * Math.PI - phaseShift) / frequency;
+            if (pole > x) {
+                return pole;
+            }
+            k += step;
+        }
+        return Double.POSITIVE_INFINITY; // x is too large to tell the poles apart
+    }
+
+    /**
+     * Between two poles tangent always increases, so the function rises
+     * when A and B have the same sign and falls when they differ.
+     *
+     * @return the sign of A * B (0 when the function is flat)
+     */
+    @Override
+    public int monotonicity() {
+        return (int) (Math.signum(amplitude) * Math.signum(frequency));
+    }
+
+    /**
+     * Two tangent functions are equal when they have the same parameters.
+     *
+     * @param other the object to compare with
+     * @return true if other is a TangentFunction with the same parameters
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        TangentFunction that = (TangentFunction) other;
+        return Double.compare(amplitude, that.amplitude) == 0 &&
+                Double.compare(frequency, that.frequency) == 0 &&
+                Double.compare(phaseShift, that.phaseShift) == 0 &&
+                Double.compare(verticalShift, that.verticalShift) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(amplitude, frequency, phaseShift, verticalShift);
+    }
+}
\ No newline at end of file
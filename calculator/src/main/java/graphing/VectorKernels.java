@@ -0,0 +1,138 @@
+package graphing;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD versions of the bulk loops for the closed-form function families
+ * (linear, quadratic and exponential), written with the incubating
+ * Java Vector API.
+ * 
+ * Each loop handles as many values per step as the CPU has lanes and
+ * finishes the leftover values with the same scalar formula the function
+ * classes use. Nothing here should be called directly: go through
+ * VectorSupport, which only uses this class when the
+ * jdk.incubator.vector module is actually present.
+ */
+final class VectorKernels {
+
+    /** Widest vector shape the running CPU supports */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /** Lane offsets 0, 1, 2, ... used to build x-values on a grid */
+    private static final double[] LANE_OFFSETS = new double[SPECIES.length()];
+
+    static {
+        for (int lane = 0; lane < LANE_OFFSETS.length; lane++) {
+            LANE_OFFSETS[lane] = lane;
+        }
+    }
+
+    private VectorKernels() {
+    }
+
+    /**
+     * Returns the number of doubles processed per vector operation.
+     */
+    static int laneCount() {
+        return SPECIES.length();
+    }
+
+    /**
+     * Computes out[i] = m * xs[i] + b for the given range.
+     */
+    static void linear(double m, double b, double[] xs, double[] out, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        for (; i <= end - SPECIES.length(); i += SPECIES.length()) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, xs, i);
+            x.mul(m).add(b).intoArray(out, i);
+        }
+        for (; i < end; i++) {
+            out[i] = m * xs[i] + b;
+        }
+    }
+
+    /**
+     * Computes out[offset + i] = m * (start + i * step) + b for i in [0, count).
+     */
+    static void linearGrid(double m, double b, double start, double step,
+                           double[] out, int offset, int count) {
+        DoubleVector lanes = DoubleVector.fromArray(SPECIES, LANE_OFFSETS, 0);
+        int i = 0;
+        for (; i <= count - SPECIES.length(); i += SPECIES.length()) {
+            DoubleVector x = lanes.add(i).mul(step).add(start);
+            x.mul(m).add(b).intoArray(out, offset + i);
+        }
+        for (; i < count; i++) {
+            out[offset + i] = m * (start + i * step) + b;
+        }
+    }
+
+    /**
+     * Computes out[i] = a * (xs[i] * xs[i]) + b * xs[i] + c for the given range.
+     */
+    static void quadratic(double a, double b, double c, double[] xs, double[] out,
+                          int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        for (; i <= end - SPECIES.length(); i += SPECIES.length()) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, xs, i);
+            x.mul(x).mul(a).add(x.mul(b)).add(c).intoArray(out, i);
+        }
+        for (; i < end; i++) {
+            double x = xs[i];
+            out[i] = a * (x * x) + b * x + c;
+        }
+    }
+
+    /**
+     * Computes the quadratic at x = start + i * step for i in [0, count).
+     */
+    static void quadraticGrid(double a, double b, double c, double start, double step,
+                              double[] out, int offset, int count) {
+        DoubleVector lanes = DoubleVector.fromArray(SPECIES, LANE_OFFSETS, 0);
+        int i = 0;
+        for (; i <= count - SPECIES.length(); i += SPECIES.length()) {
+            DoubleVector x = lanes.add(i).mul(step).add(start);
+            x.mul(x).mul(a).add(x.mul(b)).add(c).intoArray(out, offset + i);
+        }
+        for (; i < count; i++) {
+            double x = start + i * step;
+            out[offset + i] = a * (x * x) + b * x + c;
+        }
+    }
+
+    /**
+     * Computes out[i] = a * e^(b * (xs[i] - c)) + d for the given range.
+     */
+    static void exponential(double a, double b, double c, double d, double[] xs, double[] out,
+                            int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        for (; i <= end - SPECIES.length(); i += SPECIES.length()) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, xs, i);
+            x.sub(c).mul(b).lanewise(VectorOperators.EXP).mul(a).add(d).intoArray(out, i);
+        }
+        for (; i < end; i++) {
+            out[i] = a * Math.exp(b * (xs[i] - c)) + d;
+        }
+    }
+
+    /**
+     * Computes the exponential at x = start + i * step for i in [0, count).
+     */
+    static void exponentialGrid(double a, double b, double c, double d, double start, double step,
+                                double[] out, int offset, int count) {
+        DoubleVector lanes = DoubleVector.fromArray(SPECIES, LANE_OFFSETS, 0);
+        int i = 0;
+        for (; i <= count - SPECIES.length(); i += SPECIES.length()) {
+            DoubleVector x = lanes.add(i).mul(step).add(start);
+            x.sub(c).mul(b).lanewise(VectorOperators.EXP).mul(a).add(d).intoArray(out, offset + i);
+        }
+        for (; i < count; i++) {
+            out[offset + i] = a * Math.exp(b * ((start + i * step) - c)) + d;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package graphing;
+
+/**
+ * Decides whether the SIMD loops in VectorKernels can be used.
+ * 
+ * The Vector API lives in the incubating jdk.incubator.vector module,
+ * which is only visible when the program is started with
+ * --add-modules jdk.incubator.vector. When the module is missing (or the
+ * user turns the feature off with -Dgrapher.vector=false) the function
+ * classes keep using their plain scalar loops.
+ * 
+ * This class never touches the Vector API itself, so it is always safe
+ * to load.
+ */
+public final class VectorSupport {
+
+    /** Name of the module that provides the Vector API */
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /** Smallest batch worth sending through the vector loops */
+    private static final int MIN_VECTOR_LENGTH = 16;
+
+    /** Lanes per vector operation, or 1 when the scalar loops are used */
+    private static final int LANES = detectLanes();
+
+    private VectorSupport() {
+    }
+
+    /**
+     * Returns true when the vector loops are in use.
+     */
+    public static boolean isEnabled() {
+        return LANES > 1;
+    }
+
+    /**
+     * Returns the number of doubles handled per vector operation
+     * (1 when the scalar loops are used).
+     */
+    public static int laneCount() {
+        return LANES;
+    }
+
+    /**
+     * Returns true when a batch of the given size should use the vector loops.
+     * 
+     * @param length number of values to evaluate
+     */
+    static boolean use(int length) {
+        return LANES > 1 && length >= MIN_VECTOR_LENGTH;
+    }
+
+    /**
+     * Looks for the Vector API and asks it for the preferred lane width.
+     * 
+     * @return lane count, or 1 when vectors are unavailable or disabled
+     */
+    private static int detectLanes() {
+        if (!Boolean.parseBoolean(System.getProperty("grapher.vector", "true"))) {
+            return 1;
+        }
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return 1;
+        }
+        try {
+            return VectorKernels.laneCount();
+        } catch (LinkageError e) {
+            // Compiled against the module but it could not be linked at runtime
+            return 1;
+        }
+    }
+}